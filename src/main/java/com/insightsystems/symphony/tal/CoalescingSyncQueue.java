@@ -0,0 +1,178 @@
+package com.insightsystems.symphony.tal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.avispl.symphony.api.tal.dto.TalTicket;
+
+/**
+ * Merges rapid successive updates of the same ticket into a single sync.
+ * An update is held until no newer update of its ticket arrived for a whole window, then the latest state is
+ * synced once. Since Symphony always sends every field of a ticket, the latest update contains all earlier changes.
+ * Every caller still receives the result of the sync that included its update.
+ * <p>
+ * The first caller of a burst performs the sync on its own thread, while the other callers wait for its result,
+ * so no thread is added.
+ *
+ * @since 5.8
+ */
+public class CoalescingSyncQueue {
+    //* ----------------------------- VARIABLES ----------------------------- *//
+
+    /**
+     * Logger instance
+     */
+    private static final Logger logger = LoggerFactory.getLogger(CoalescingSyncQueue.class);
+
+    /**
+     * A burst is synced at the latest after this many windows, even if updates keep arriving
+     */
+    private static final int MAX_WINDOWS_PER_BURST = 5;
+
+    /**
+     * Bursts waiting for their sync, by Symphony ID
+     */
+    private final ConcurrentHashMap<String, Burst> bursts = new ConcurrentHashMap<>();
+
+
+    //* ----------------------------- METHODS ----------------------------- *//
+
+    /**
+     * Sync of the latest state of a ticket
+     */
+    @FunctionalInterface
+    public interface TicketSync {
+        /**
+         * @param talTicket latest state of the ticket
+         * @return synced ticket
+         * @throws Exception if the sync failed
+         */
+        TalTicket sync(TalTicket talTicket) throws Exception;
+    }
+
+    /**
+     * Holds an update until its ticket has been quiet for windowMillis, then syncs the latest state once
+     *
+     * @param talTicket updated ticket. Must have a Symphony ID
+     * @param windowMillis time without newer updates before the ticket is synced
+     * @param ticketSync sync to perform with the latest state
+     * @return the synced ticket
+     * @throws Exception the error of the sync, shared by every update of the burst
+     */
+    public TalTicket submit(TalTicket talTicket, long windowMillis, TicketSync ticketSync) throws Exception {
+        long now = System.nanoTime();
+        long window = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        Burst[] joined = new Burst[1];
+        boolean[] leader = new boolean[1];
+
+        bursts.compute(talTicket.getSymphonyId(), (symphonyId, burst) -> {
+            if (burst == null) {
+                burst = new Burst(now + window * MAX_WINDOWS_PER_BURST);
+                leader[0] = true;
+            }
+            burst.add(talTicket, now + window);
+            joined[0] = burst;
+            return burst;
+        });
+
+        if (!leader[0]) {
+            logger.info("submit: update coalesced with pending sync of ticket {}", talTicket.getSymphonyId());
+            try {
+                return joined[0].result.get();
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            }
+        }
+        return lead(talTicket.getSymphonyId(), joined[0], ticketSync);
+    }
+
+    /**
+     * @return number of tickets with updates waiting for their sync
+     */
+    public int size() {
+        return bursts.size();
+    }
+
+
+    //* ----------------------------- HELPER METHODS ----------------------------- *//
+
+    /**
+     * Waits until the burst is quiet, then syncs its latest state and shares the result with every caller
+     */
+    private TalTicket lead(String symphonyId, Burst burst, TicketSync ticketSync) throws Exception {
+        boolean interrupted = false;
+        long remaining;
+        while (!interrupted && (remaining = burst.remainingNanos()) > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(remaining);
+            } catch (InterruptedException e) {
+                // Sync right away: callers are already waiting for the result
+                interrupted = true;
+            }
+        }
+
+        // Updates arriving from now on start a new burst
+        bursts.remove(symphonyId, burst);
+        TalTicket latest = burst.latest();
+        logger.info("lead: syncing {} coalesced update(s) of ticket {}", burst.size(), symphonyId);
+        try {
+            TalTicket synced = ticketSync.sync(latest);
+            burst.result.complete(synced);
+            return synced;
+        } catch (Exception e) {
+            burst.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Updates of a ticket waiting for the same sync. Mutable state is only accessed inside
+     * {@link ConcurrentHashMap#compute} calls or after the burst was removed from the map
+     */
+    private static final class Burst {
+        private final long maxDeadline;
+        private final List<TalTicket> updates = new ArrayList<>(4);
+        private final CompletableFuture<TalTicket> result = new CompletableFuture<>();
+        private volatile long deadline;
+
+        private Burst(long maxDeadline) {
+            this.maxDeadline = maxDeadline;
+        }
+
+        private void add(TalTicket talTicket, long quietDeadline) {
+            updates.add(talTicket);
+            deadline = Math.min(quietDeadline, maxDeadline);
+        }
+
+        private long remainingNanos() {
+            return deadline - System.nanoTime();
+        }
+
+        private int size() {
+            return updates.size();
+        }
+
+        /**
+         * @return the most recently modified update. Updates delivered out of order do not replace newer ones
+         */
+        private TalTicket latest() {
+            TalTicket latest = updates.get(0);
+            for (TalTicket update : updates) {
+                if (update.getLastModified() == null || latest.getLastModified() == null ||
+                        update.getLastModified() >= latest.getLastModified())
+                    latest = update;
+            }
+            return latest;
+        }
+    }
+}
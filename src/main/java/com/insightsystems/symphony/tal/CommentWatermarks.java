@@ -0,0 +1,178 @@
+package com.insightsystems.symphony.tal;
+
+import java.util.Collection;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.avispl.symphony.api.tal.dto.Comment;
+import com.avispl.symphony.api.tal.dto.TicketSystemConfig;
+
+/**
+ * Keeps the comment watermarks of a ticket in its extra parameters.
+ * A watermark is the latest lastModified of the comments that were fully synced in one direction.
+ * Comments at or below the watermark have not changed since the last successful sync and can be skipped.
+ * Every few syncs the watermarks are ignored, so that a full reconcile repairs anything incremental syncs missed.
+ *
+ * @since 5.8
+ */
+public class CommentWatermarks {
+    //* ----------------------------- VARIABLES ----------------------------- *//
+
+    /**
+     * Logger instance
+     */
+    private static final Logger logger = LoggerFactory.getLogger(CommentWatermarks.class);
+
+    /**
+     * Watermark value meaning that every comment must be considered
+     */
+    public static final long NONE = Long.MIN_VALUE;
+
+    /**
+     * Default number of incremental syncs between two full comment reconciles
+     */
+    private static final int DEFAULT_FULL_RECONCILE_INTERVAL = 20;
+
+    /**
+     * Extra parameter with the watermark of comments synced from Symphony to ConnectWise
+     */
+    private static final String SYMPHONY_TO_CONNECTWISE = "commentWatermarkToConnectWise";
+
+    /**
+     * Extra parameter with the watermark of comments mapped from ConnectWise back to Symphony
+     */
+    private static final String CONNECTWISE_TO_SYMPHONY = "commentWatermarkToSymphony";
+
+    /**
+     * Extra parameter with the number of incremental syncs since the last full reconcile
+     */
+    private static final String SYNCS_SINCE_FULL_RECONCILE = "syncsSinceFullCommentReconcile";
+
+
+    //* ----------------------------- METHODS ----------------------------- *//
+
+    private CommentWatermarks() {
+    }
+
+    /**
+     * Gets the watermark of comments synced from Symphony to ConnectWise
+     *
+     * @param extraParams ticket's extra parameters
+     * @return the watermark, or {@link #NONE} if every comment must be considered
+     */
+    public static long toConnectWise(Map<String, String> extraParams, TicketSystemConfig config) {
+        return read(extraParams, config, SYMPHONY_TO_CONNECTWISE);
+    }
+
+    /**
+     * Gets the watermark of comments mapped from ConnectWise back to Symphony
+     *
+     * @param extraParams ticket's extra parameters
+     * @return the watermark, or {@link #NONE} if every comment must be considered
+     */
+    public static long toSymphony(Map<String, String> extraParams, TicketSystemConfig config) {
+        return read(extraParams, config, CONNECTWISE_TO_SYMPHONY);
+    }
+
+    /**
+     * Advances the Symphony to ConnectWise watermark after a successful sync.
+     * The watermark stays below the oldest comment whose text could not be written, so that the next sync
+     * compares that comment again
+     *
+     * @param extraParams ticket's extra parameters
+     * @param comments comments of the ticket after the sync
+     * @param fullReconcile true if the sync considered every comment
+     */
+    public static void advanceToConnectWise(Map<String, String> extraParams, Collection<ConnectWiseComment> comments,
+                                            boolean fullReconcile) {
+        long watermark = NONE;
+        long oldestFailure = Long.MAX_VALUE;
+        if (comments != null) {
+            for (ConnectWiseComment comment : comments) {
+                if (comment.isSyncFailed())
+                    oldestFailure = Math.min(oldestFailure, comment.getLastModified());
+                else if (comment.getThirdPartyId() != null)
+                    watermark = Math.max(watermark, comment.getLastModified());
+            }
+        }
+        if (oldestFailure != Long.MAX_VALUE)
+            watermark = Math.min(watermark, oldestFailure == NONE ? NONE : oldestFailure - 1);
+        write(extraParams, SYMPHONY_TO_CONNECTWISE, watermark);
+
+        int syncsSinceFullReconcile = fullReconcile ? 0 : parseInt(extraParams.get(SYNCS_SINCE_FULL_RECONCILE)) + 1;
+        extraParams.put(SYNCS_SINCE_FULL_RECONCILE, Integer.toString(syncsSinceFullReconcile));
+    }
+
+    /**
+     * Advances the ConnectWise to Symphony watermark after the comments were mapped back to Symphony
+     *
+     * @param extraParams ticket's extra parameters
+     * @param comments comments returned to Symphony
+     */
+    public static void advanceToSymphony(Map<String, String> extraParams, Collection<Comment> comments) {
+        long watermark = NONE;
+        if (comments != null) {
+            for (Comment comment : comments) {
+                if (comment.getThirdPartyId() != null && comment.getLastModified() != null)
+                    watermark = Math.max(watermark, comment.getLastModified());
+            }
+        }
+        write(extraParams, CONNECTWISE_TO_SYMPHONY, watermark);
+    }
+
+    /**
+     * Checks if the next sync of a ticket must reconcile every comment
+     *
+     * @param extraParams ticket's extra parameters
+     * @return true if watermarks must be ignored
+     */
+    public static boolean isFullReconcileDue(Map<String, String> extraParams, TicketSystemConfig config) {
+        if (extraParams == null || extraParams.get(SYNCS_SINCE_FULL_RECONCILE) == null)
+            return true;
+
+        int interval = DEFAULT_FULL_RECONCILE_INTERVAL;
+        String configuredInterval = config == null || config.getTicketSourceConfig() == null ? null :
+                config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.FULL_COMMENT_RECONCILE_INTERVAL);
+        if (configuredInterval != null) {
+            try {
+                interval = Integer.parseInt(configuredInterval.trim());
+            } catch (NumberFormatException e) {
+                logger.warn("isFullReconcileDue: invalid full comment reconcile interval {}", configuredInterval);
+            }
+        }
+
+        return parseInt(extraParams.get(SYNCS_SINCE_FULL_RECONCILE)) + 1 >= interval;
+    }
+
+
+    //* ----------------------------- HELPER METHODS ----------------------------- *//
+
+    private static long read(Map<String, String> extraParams, TicketSystemConfig config, String key) {
+        if (extraParams == null || extraParams.get(key) == null || isFullReconcileDue(extraParams, config))
+            return NONE;
+        try {
+            return Long.parseLong(extraParams.get(key));
+        } catch (NumberFormatException e) {
+            return NONE;
+        }
+    }
+
+    private static void write(Map<String, String> extraParams, String key, long watermark) {
+        if (watermark == NONE)
+            extraParams.remove(key);
+        else
+            extraParams.put(key, Long.toString(watermark));
+    }
+
+    private static int parseInt(String value) {
+        if (value == null)
+            return 0;
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.insightsystems.symphony.tal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local HTTP endpoint receiving ConnectWise callbacks.
+ * ConnectWise posts a small JSON message whenever a ticket it watches changes; every message is passed to the
+ * listener as a {@link Event}, so that cached copies of the ticket are dropped right away instead of expiring.
+ * <p>
+ * Requests must carry the shared secret as a {@code token} query parameter, which is part of the URL registered
+ * in ConnectWise. Requests with a wrong or missing token are rejected with HTTP 403.
+ *
+ * @since 5.8
+ */
+public class ConnectWiseCallbackServer {
+    //* ----------------------------- VARIABLES ----------------------------- *//
+
+    /**
+     * Logger instance
+     */
+    private static final Logger logger = LoggerFactory.getLogger(ConnectWiseCallbackServer.class);
+
+    /**
+     * Path ConnectWise posts callbacks to
+     */
+    public static final String CALLBACK_PATH = "/connectwise/callbacks";
+
+    /**
+     * Callbacks are a few hundred bytes. Larger bodies are rejected
+     */
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+
+    private final int port;
+    private final byte[] token;
+    private final Consumer<Event> listener;
+
+    /**
+     * Guards server and executor
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+
+    //* ----------------------------- METHODS ----------------------------- *//
+
+    /**
+     * ConnectWiseCallbackServer constructor
+     *
+     * @param port port to listen on. 0 picks a free port
+     * @param token shared secret expected in the token query parameter
+     * @param listener receives every accepted callback
+     */
+    public ConnectWiseCallbackServer(int port, String token, Consumer<Event> listener) {
+        if (token == null || token.isEmpty())
+            throw new IllegalArgumentException("Callback token cannot be empty");
+        this.port = port;
+        this.token = token.getBytes(StandardCharsets.UTF_8);
+        this.listener = listener;
+    }
+
+    /**
+     * Starts listening for callbacks
+     *
+     * @throws IOException if the port cannot be bound
+     */
+    public void start() throws IOException {
+        lock.lock();
+        try {
+            if (server != null)
+                return;
+            server = HttpServer.create(new InetSocketAddress(port), 0);
+            executor = Executors.newFixedThreadPool(2, SyncThreads.newThreadFactory("connectwise-callback-"));
+            server.setExecutor(executor);
+            server.createContext(CALLBACK_PATH, this::handle);
+            server.start();
+            logger.info("start: listening for ConnectWise callbacks on port {}", getPort());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops listening for callbacks
+     */
+    public void stop() {
+        lock.lock();
+        try {
+            if (server == null)
+                return;
+            server.stop(0);
+            executor.shutdownNow();
+            server = null;
+            executor = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return port the server listens on, or -1 if it is not started
+     */
+    public int getPort() {
+        lock.lock();
+        try {
+            return server == null ? -1 : server.getAddress().getPort();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    //* ----------------------------- HELPER METHODS ----------------------------- *//
+
+    /**
+     * Handles a callback request. ConnectWise retries callbacks answered with an error, so a message that cannot be
+     * used is still acknowledged once its token was accepted
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            if (!hasValidToken(exchange.getRequestURI().getRawQuery())) {
+                logger.warn("handle: callback rejected - invalid token");
+                exchange.sendResponseHeaders(403, -1);
+                return;
+            }
+
+            byte[] body;
+            try (InputStream in = exchange.getRequestBody()) {
+                body = in.readNBytes(MAX_BODY_BYTES + 1);
+            }
+            if (body.length > MAX_BODY_BYTES) {
+                exchange.sendResponseHeaders(413, -1);
+                return;
+            }
+
+            Event event = parse(new String(body, StandardCharsets.UTF_8));
+            if (event != null && event.getTicketId() != null) {
+                try {
+                    listener.accept(event);
+                } catch (RuntimeException e) {
+                    logger.error("handle: callback listener failed - {}", e.getMessage());
+                }
+            }
+
+            byte[] response = "{}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Compares the token query parameter with the shared secret in constant time
+     */
+    private boolean hasValidToken(String rawQuery) {
+        if (rawQuery == null)
+            return false;
+        for (String parameter : rawQuery.split("&")) {
+            if (parameter.startsWith("token=")) {
+                String received = URLDecoder.decode(parameter.substring("token=".length()), StandardCharsets.UTF_8);
+                return MessageDigest.isEqual(token, received.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads a ConnectWise callback message. Note callbacks carry the ticket ID in their entity only
+     *
+     * @return the event, or null if body is not a callback message
+     */
+    private static Event parse(String body) {
+        JSONObject message;
+        try {
+            message = new JSONObject(body);
+        } catch (JSONException e) {
+            logger.warn("parse: callback body is not JSON - {}", e.getMessage());
+            return null;
+        }
+
+        String type = message.optString("Type", null);
+        String ticketId = message.has("ID") ? String.valueOf(message.get("ID")) : null;
+        if (type != null && !type.equalsIgnoreCase("ticket")) {
+            ticketId = null;
+            Object entity = message.opt("Entity");
+            try {
+                JSONObject jsonEntity = entity instanceof JSONObject ? (JSONObject) entity :
+                        entity instanceof String ? new JSONObject((String) entity) : null;
+                if (jsonEntity != null && jsonEntity.has("ticketId"))
+                    ticketId = String.valueOf(jsonEntity.get("ticketId"));
+            } catch (JSONException e) {
+                logger.warn("parse: callback entity is not JSON - {}", e.getMessage());
+            }
+        }
+
+        return new Event(message.optString("CompanyId", null), type, message.optString("Action", null), ticketId);
+    }
+
+    /**
+     * Change reported by a ConnectWise callback
+     */
+    public static final class Event {
+        private final String companyId;
+        private final String type;
+        private final String action;
+        private final String ticketId;
+
+        public Event(String companyId, String type, String action, String ticketId) {
+            this.companyId = companyId;
+            this.type = type;
+            this.action = action;
+            this.ticketId = ticketId;
+        }
+
+        /**
+         * @return ConnectWise login company ID the callback was sent for
+         */
+        public String getCompanyId() {
+            return companyId;
+        }
+
+        /**
+         * @return type of the changed record, e.g. "ticket"
+         */
+        public String getType() {
+            return type;
+        }
+
+        /**
+         * @return "added", "updated" or "deleted"
+         */
+        public String getAction() {
+            return action;
+        }
+
+        /**
+         * @return ID of the ticket the change belongs to
+         */
+        public String getTicketId() {
+            return ticketId;
+        }
+
+        @Override
+        public String toString() {
+            return "Event{companyId=" + companyId + ", type=" + type + ", action=" + action +
+                    ", ticketId=" + ticketId + "}";
+        }
+    }
+}
@@ -0,0 +1,363 @@
+package com.insightsystems.symphony.tal;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.avispl.symphony.api.tal.TalConfigService;
+import com.avispl.symphony.api.tal.TalProxy;
+import com.avispl.symphony.api.tal.dto.Comment;
+import com.avispl.symphony.api.tal.dto.TalTicket;
+import com.avispl.symphony.api.tal.dto.TicketSystemConfig;
+
+/**
+ * Pushes tickets changed in ConnectWise to Symphony without waiting for Symphony to sync them.
+ * For every customer with a {@link TicketSourceConfigPropertyCW#CHANGE_POLL_INTERVAL_SECONDS} interval, ConnectWise
+ * is queried for tickets changed since the last poll, and changed tickets are mapped back and pushed through
+ * {@link TalProxy#pushUpdatesToTal(TalTicket)}.
+ * <p>
+ * Only tickets synced by this adapter since it started are pushed, since their Symphony ID is only known then.
+ * For the same reason, only customers with such tickets are polled, with the config of their latest sync.
+ *
+ * @since 5.8
+ */
+public class ConnectWiseChangePoller {
+    //* ----------------------------- VARIABLES ----------------------------- *//
+
+    /**
+     * Logger instance
+     */
+    private static final Logger logger = LoggerFactory.getLogger(ConnectWiseChangePoller.class);
+
+    /**
+     * Seconds between two checks for customers due for a poll
+     */
+    private static final long TICK_SECONDS = 5;
+
+    /**
+     * Margin subtracted from the first watermark of a customer, for clock differences with ConnectWise
+     */
+    private static final long FIRST_WATERMARK_MARGIN_SECONDS = 60;
+
+    /**
+     * Maximum number of synced tickets remembered
+     */
+    private static final int MAX_TRACKED_TICKETS = 10000;
+
+    private final TalConfigService talConfigService;
+    private final TalProxy talProxy;
+    private final TicketServiceImpl ticketService;
+
+    /**
+     * Locks shared with the adapter's syncs, so that a ticket is never pushed while it is synced
+     */
+    private final TicketLocks ticketLocks;
+
+    /**
+     * Config of the latest sync, by customer. Polls reuse it instead of retrieving it on every tick
+     */
+    private final Map<UUID, TicketSystemConfig> configs = new ConcurrentHashMap<>();
+
+    /**
+     * ConnectWise date of the latest change seen, by customer
+     */
+    private final Map<UUID, String> watermarks = new ConcurrentHashMap<>();
+
+    /**
+     * Time of the next poll in milliseconds, by customer
+     */
+    private final Map<UUID, Long> nextPolls = new ConcurrentHashMap<>();
+
+    /**
+     * Latest Symphony state of synced tickets, by customer ID and ConnectWise ID, least recently synced first
+     */
+    private final LinkedHashMap<String, TalTicket> trackedTickets = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, TalTicket> eldest) {
+            return size() > MAX_TRACKED_TICKETS;
+        }
+    };
+
+    /**
+     * Guards trackedTickets and scheduler
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Runs the polls. Null while stopped
+     */
+    private ScheduledExecutorService scheduler;
+
+
+    //* ----------------------------- METHODS ----------------------------- *//
+
+    /**
+     * ConnectWiseChangePoller constructor
+     *
+     * @param talConfigService service providing the configs of customers not synced yet
+     * @param talProxy proxy receiving the changed tickets
+     * @param ticketService service querying ConnectWise
+     * @param ticketLocks locks held by the adapter while it syncs a ticket
+     */
+    public ConnectWiseChangePoller(TalConfigService talConfigService, TalProxy talProxy, TicketServiceImpl ticketService,
+                                   TicketLocks ticketLocks) {
+        this.talConfigService = talConfigService;
+        this.talProxy = talProxy;
+        this.ticketService = ticketService;
+        this.ticketLocks = ticketLocks;
+    }
+
+    /**
+     * Starts polling. The poll interval of a customer is read again from the config of its latest sync on every
+     * tick, so that config changes are picked up without a restart
+     */
+    public void start() {
+        lock.lock();
+        try {
+            if (scheduler != null)
+                return;
+            scheduler = Executors.newSingleThreadScheduledExecutor(SyncThreads.newThreadFactory("connectwise-change-poller-"));
+            scheduler.scheduleWithFixedDelay(this::pollDueCustomers, TICK_SECONDS, TICK_SECONDS, TimeUnit.SECONDS);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops polling
+     */
+    public void stop() {
+        lock.lock();
+        try {
+            if (scheduler != null) {
+                scheduler.shutdownNow();
+                scheduler = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remembers the Symphony state of a successfully synced ticket, so that its ConnectWise changes can be pushed
+     *
+     * @param talTicket ticket after its sync, with customer ID and thirdPartyId set
+     * @param config config the ticket was synced with
+     */
+    public void track(TalTicket talTicket, TicketSystemConfig config) {
+        if (talTicket.getCustomerId() == null || talTicket.getThirdPartyId() == null || talTicket.getSymphonyId() == null)
+            return;
+        if (config != null) {
+            try {
+                configs.put(UUID.fromString(talTicket.getCustomerId()), config);
+            } catch (IllegalArgumentException e) {
+                logger.warn("track: invalid customer ID {} - ticket not tracked", talTicket.getCustomerId());
+                return;
+            }
+        }
+        TalTicket snapshot = copyOf(talTicket);
+        lock.lock();
+        try {
+            trackedTickets.put(trackingKey(talTicket.getCustomerId(), talTicket.getThirdPartyId()), snapshot);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Queries ConnectWise once for tickets of a customer changed since the last poll and pushes them to Symphony
+     *
+     * @param customerId Symphony customer ID
+     * @return number of tickets pushed
+     * @throws Exception if the config cannot be retrieved or ConnectWise cannot be queried
+     */
+    public int poll(UUID customerId) throws Exception {
+        TicketSystemConfig config = configs.get(customerId);
+        if (config == null)
+            config = talConfigService.retrieveTicketSystemConfig(customerId);
+        String since = watermarks.get(customerId);
+        if (since == null) {
+            // Changes made before the adapter started are synced by Symphony itself
+            since = Instant.now().minusSeconds(FIRST_WATERMARK_MARGIN_SECONDS).truncatedTo(ChronoUnit.SECONDS).toString();
+        }
+
+        List<ConnectWiseTicket> changedCWTickets = ticketService.getChangedCWTickets(config, since);
+        String latestChange = since;
+        int pushed = 0;
+        for (ConnectWiseTicket changedCWTicket : changedCWTickets) {
+            if (changedCWTicket.getLastUpdated() != null && changedCWTicket.getLastUpdated().compareTo(latestChange) > 0)
+                latestChange = changedCWTicket.getLastUpdated();
+            try {
+                if (push(customerId.toString(), config, changedCWTicket))
+                    pushed++;
+            } catch (Exception e) {
+                // Symphony still syncs the ticket itself
+                logger.warn("poll: unable to push ConnectWise ticket {} to Symphony - {}", changedCWTicket.getId(), e.getMessage());
+            }
+        }
+        watermarks.put(customerId, latestChange);
+
+        if (pushed > 0)
+            logger.info("poll: pushed {} ticket(s) changed in ConnectWise to Symphony", pushed);
+        return pushed;
+    }
+
+
+    //* ----------------------------- HELPER METHODS ----------------------------- *//
+
+    /**
+     * Polls every customer whose poll interval has elapsed. Errors are logged, so that polling continues
+     */
+    private void pollDueCustomers() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<UUID, TicketSystemConfig> customerConfig : configs.entrySet()) {
+            UUID customerId = customerConfig.getKey();
+            try {
+                long interval = getPollInterval(customerConfig.getValue());
+                if (interval <= 0 || nextPolls.getOrDefault(customerId, 0L) > now)
+                    continue;
+                nextPolls.put(customerId, now + interval);
+                poll(customerId);
+            } catch (Exception e) {
+                logger.warn("pollDueCustomers: unable to poll ConnectWise for customer {} - {}", customerId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Maps a changed ConnectWise ticket back to Symphony and pushes it
+     *
+     * @return true if the ticket was pushed. False if it is not tracked or its change was already pushed
+     */
+    private boolean push(String customerId, TicketSystemConfig config, ConnectWiseTicket changedCWTicket) throws Exception {
+        TalTicket snapshot = getTracked(customerId, changedCWTicket.getId());
+        if (snapshot == null)
+            return false;
+
+        // A sync running meanwhile tracks the state it leaves ConnectWise in, which is read again under the lock
+        String symphonyId = snapshot.getSymphonyId();
+        ticketLocks.lock(symphonyId);
+        try {
+            snapshot = getTracked(customerId, changedCWTicket.getId());
+            return snapshot != null && pushLocked(config, snapshot, changedCWTicket);
+        } finally {
+            ticketLocks.unlock(symphonyId);
+        }
+    }
+
+    /**
+     * Pushes a changed ConnectWise ticket while holding its lock
+     *
+     * @param snapshot latest Symphony state of the ticket
+     * @return true if the ticket was pushed. False if its change was already pushed, or made by the adapter's sync
+     */
+    private boolean pushLocked(TicketSystemConfig config, TalTicket snapshot, ConnectWiseTicket changedCWTicket) throws Exception {
+        Map<String, String> extraParams = snapshot.getExtraParams() == null ?
+                new HashMap<>() : new HashMap<>(snapshot.getExtraParams());
+        if (changedCWTicket.getLastUpdated() != null &&
+                changedCWTicket.getLastUpdated().equals(extraParams.get("cwLastUpdated")))
+            return false;
+
+        // Load comments and record the successful retrieval in the ticket's extra parameters
+        ConnectWiseTicket CWTicket = new ConnectWiseTicket(snapshot.getSymphonyId(), snapshot.getSymphonyLink(),
+                changedCWTicket.getId(), changedCWTicket.getUrl(), extraParams);
+        ticketService.getCWTicket(config, CWTicket, changedCWTicket);
+        extraParams.put("cwLastUpdated", changedCWTicket.getLastUpdated());
+        changedCWTicket.setExtraParams(extraParams);
+
+        // ConnectWise notes do not know their Symphony comment
+        Map<String, String> symphonyCommentIds = new HashMap<>();
+        if (snapshot.getComments() != null) {
+            for (Comment comment : snapshot.getComments()) {
+                if (comment.getThirdPartyId() != null && comment.getSymphonyId() != null)
+                    symphonyCommentIds.put(comment.getThirdPartyId(), comment.getSymphonyId());
+            }
+        }
+        for (ConnectWiseComment comment : changedCWTicket.getComments()) {
+            if (comment.getSymphonyId() == null && comment.getThirdPartyId() != null)
+                comment.setSymphonyId(symphonyCommentIds.get(comment.getThirdPartyId()));
+        }
+
+        TalTicket update = TicketMapper.mapThirdPartyToSymphony(copyOf(snapshot), changedCWTicket, config);
+        talProxy.pushUpdatesToTal(update);
+        track(update, null);
+        return true;
+    }
+
+    /**
+     * @return latest Symphony state of a synced ticket. Null if it is not tracked
+     */
+    private TalTicket getTracked(String customerId, String thirdPartyId) {
+        lock.lock();
+        try {
+            return trackedTickets.get(trackingKey(customerId, thirdPartyId));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the poll interval of a customer
+     *
+     * @return interval in milliseconds. 0 if polling is disabled
+     */
+    private long getPollInterval(TicketSystemConfig config) {
+        String interval = config == null || config.getTicketSourceConfig() == null ? null :
+                config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.CHANGE_POLL_INTERVAL_SECONDS);
+        if (interval == null)
+            return 0;
+        try {
+            return TimeUnit.SECONDS.toMillis(Math.max(0, Long.parseLong(interval.trim())));
+        } catch (NumberFormatException e) {
+            logger.warn("getPollInterval: invalid change poll interval {} - polling disabled", interval);
+            return 0;
+        }
+    }
+
+    private static String trackingKey(String customerId, String thirdPartyId) {
+        return customerId + "|" + thirdPartyId;
+    }
+
+    /**
+     * Copies a ticket, so that later changes to either instance do not affect the other
+     */
+    private static TalTicket copyOf(TalTicket talTicket) {
+        TalTicket copy = new TalTicket();
+        copy.setSymphonyId(talTicket.getSymphonyId());
+        copy.setSymphonyLink(talTicket.getSymphonyLink());
+        copy.setThirdPartyId(talTicket.getThirdPartyId());
+        copy.setThirdPartyLink(talTicket.getThirdPartyLink());
+        copy.setTriggerName(talTicket.getTriggerName());
+        copy.setCustomerId(talTicket.getCustomerId());
+        copy.setPriority(talTicket.getPriority());
+        copy.setStatus(talTicket.getStatus());
+        copy.setSubject(talTicket.getSubject());
+        copy.setDescription(talTicket.getDescription());
+        copy.setRequester(talTicket.getRequester());
+        copy.setAssignedTo(talTicket.getAssignedTo());
+        copy.setRoomConfigurationItemID(talTicket.getRoomConfigurationItemID());
+        copy.setDeviceConfigurationItemID(talTicket.getDeviceConfigurationItemID());
+        copy.setLastModified(talTicket.getLastModified());
+        copy.setResolution(talTicket.getResolution());
+        copy.setResolutionNotes(talTicket.getResolutionNotes());
+        copy.setHighImportance(talTicket.getHighImportance());
+        copy.setRoomExchangeId(talTicket.getRoomExchangeId());
+        copy.setComments(talTicket.getComments() == null ? null : new HashSet<>(talTicket.getComments()));
+        copy.setAttachments(talTicket.getAttachments() == null ? null : new HashSet<>(talTicket.getAttachments()));
+        copy.setExtraParams(talTicket.getExtraParams() == null ? null : new HashMap<>(talTicket.getExtraParams()));
+        return copy;
+    }
+}
@@ -2,18 +2,32 @@ package com.insightsystems.symphony.tal;
 
 import java.io.IOException;
 import java.net.URI;
+import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.springframework.http.HttpStatus;
 
@@ -28,6 +42,8 @@ import com.avispl.symphony.api.tal.dto.TicketSourceConfigProperty;
 import com.avispl.symphony.api.tal.dto.TicketSystemConfig;
 import com.avispl.symphony.api.tal.error.TalAdapterSyncException;
 
+import com.fasterxml.jackson.databind.ObjectReader;
+
 /**
  * Sends and receives HTTP API requests to and from ConnectWise.
  *
@@ -44,15 +60,66 @@ public class ConnectWiseClient {
     private static final Logger logger = LoggerFactory.getLogger(ConnectWiseClient.class);
 
     /**
-     * List of recoverable HTTP statuses
+     * Maximum number of tickets retrieved by a single batched GET request
+     */
+    private static final int MAX_TICKETS_PER_REQUEST = 100;
+
+    /**
+     * Maximum number of pages retrieved by a single paginated query
      */
-    private List<Integer> RecoverableHttpStatus;
+    private static final int MAX_PAGES = 50;
+
+    /**
+     * Time a priority ID stays cached, in milliseconds
+     */
+    private static final long PRIORITY_ID_CACHE_TTL = 10 * 60 * 1000L;
+
+    /**
+     * Recoverable HTTP statuses of customers without override, shared by every sync
+     */
+    private volatile RecoverableStatusPolicy recoverableStatusPolicy = RecoverableStatusPolicy.DEFAULT;
 
     /**
      * HTTP Client to send requests
      */
     private HttpClient client;
 
+    /**
+     * Executor for concurrent write requests: independent operations of a sync plan and parallel comment POSTs.
+     * Created on first use
+     */
+    private ExecutorService writeExecutor;
+
+    /**
+     * Guards writeExecutor
+     */
+    private final ReentrantLock executorLock = new ReentrantLock();
+
+    /**
+     * Priority IDs by ConnectWise instance and priority name, shared by every sync of the same instance
+     */
+    private final Map<String, CachedPriorityID> priorityIDCache = new ConcurrentHashMap<>();
+
+    /**
+     * Snapshots of ticket and note responses, enabled per customer by the ticket cache config property
+     */
+    private final TicketResponseCache ticketResponseCache = new TicketResponseCache();
+
+    /**
+     * Failed writes replayed in the background. Null if failed writes are not deferred
+     */
+    private volatile WriteOutbox writeOutbox;
+
+    /**
+     * Checkpoints of ticket creations that did not complete, so that a retry resumes them
+     */
+    private volatile CreationJournal creationJournal = new CreationJournal();
+
+    /**
+     * Registry API calls, replayed writes and comment phases are recorded in
+     */
+    private final ConnectWiseMetrics metrics = ConnectWiseMetrics.getInstance();
+
 
     //* ----------------------------- METHODS ----------------------------- *//
 
@@ -60,12 +127,6 @@ public class ConnectWiseClient {
      * ConnectWiseClient empty constructor
      */
     public ConnectWiseClient(){
-        RecoverableHttpStatus = new ArrayList<Integer>();
-        RecoverableHttpStatus.add(408);
-        RecoverableHttpStatus.add(429);
-        RecoverableHttpStatus.add(502);
-        RecoverableHttpStatus.add(503);
-
         this.client = HttpClient.newHttpClient();
     }
 
@@ -79,12 +140,6 @@ public class ConnectWiseClient {
             logger.error("ConnectWiseClient: attempted to create instance with null config or null TicketSourceConfig");
             throw new InvalidArgumentException("ConnectWiseClient cannot be instantiated with null config");
         }
-        RecoverableHttpStatus = new ArrayList<Integer>();
-        RecoverableHttpStatus.add(408);
-        RecoverableHttpStatus.add(429);
-        RecoverableHttpStatus.add(502);
-        RecoverableHttpStatus.add(503);
-
         this.client = HttpClient.newHttpClient();
     }
 
@@ -92,11 +147,53 @@ public class ConnectWiseClient {
      * Performs an HTTP request call to ConnectWise API using credentials set in config
      * @param url the HTTP request URI
      * @param method the HTTP method (i.e. GET)
-     * @param requestBody the HTTP request's body
+     * @param requestBody the HTTP request's body in UTF-8. Null for GET requests
      * @return JSON object with the HTTP request response
      * @throws TalAdapterSyncException if request fails
      */
-    private JSONObject ConnectWiseAPICall(TicketSystemConfig config, String url, String method, String requestBody) throws TalAdapterSyncException {
+    private JSONObject ConnectWiseAPICall(TicketSystemConfig config, String url, String method, byte[] requestBody) throws TalAdapterSyncException {
+        return parseResponse(sendRequest(config, url, method, requestBody), url);
+    }
+
+    /**
+     * Performs a GET request to ConnectWise API and binds the response to a typed record
+     *
+     * @param url the HTTP request URI
+     * @param reader reader of the expected record type, see {@link ConnectWiseResponseCodec}
+     * @param <T> record type
+     * @return the bound record, or null if the response does not match the expected type
+     * @throws TalAdapterSyncException if request fails
+     */
+    private <T> T ConnectWiseAPICall(TicketSystemConfig config, String url, ObjectReader reader) throws TalAdapterSyncException {
+        return ConnectWiseResponseCodec.read(reader, sendRequest(config, url, "GET", null), url);
+    }
+
+    /**
+     * Sends an HTTP request to ConnectWise API using credentials set in config
+     * @param url the HTTP request URI
+     * @param method the HTTP method (i.e. GET)
+     * @param requestBody the HTTP request's body in UTF-8. Null for GET requests
+     * @return body of the HTTP request response
+     * @throws TalAdapterSyncException if request fails
+     */
+    private String sendRequest(TicketSystemConfig config, String url, String method, byte[] requestBody) throws TalAdapterSyncException {
+        try (SyncTrace.Span span = SyncTrace.startSpan(method)) {
+            span.setAttribute("http.method", method)
+                    .setAttribute("http.route", url == null ? null : ConnectWiseMetrics.endpointOf(method, url));
+            try {
+                return sendTracedRequest(config, url, method, requestBody, span);
+            } catch (RuntimeException e) {
+                span.setError(e);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Sends an HTTP request to ConnectWise API, recording its outcome on span
+     */
+    private String sendTracedRequest(TicketSystemConfig config, String url, String method, byte[] requestBody,
+                                     SyncTrace.Span span) throws TalAdapterSyncException {
         // Check for nulls
         if (config == null || config.getTicketSourceConfig() == null) {
             // Decided to use a Sync error because the config is not an argument (so not using an InvalidArgumentException)
@@ -116,6 +213,22 @@ public class ConnectWiseClient {
             throw new InvalidArgumentException("URL for API call cannot be null");
         }
 
+        // Ticket and note reads may be answered from the snapshot cache. Writes drop the ticket's snapshot
+        String ticketKey = getTicketKey(config, url);
+        boolean cacheable = ticketKey != null && Objects.equals(method, "GET") && isSnapshotURL(config, url) &&
+                getTicketCacheTTL(config) > 0;
+        long cacheVersion = ticketResponseCache.version();
+        if (cacheable) {
+            String cachedBody = ticketResponseCache.get(ticketKey, url);
+            if (cachedBody != null) {
+                span.setAttribute("cache.hit", true);
+                logger.info("ConnectWiseAPICall: GET answered from cache");
+                return cachedBody;
+            }
+        } else if (ticketKey != null && !Objects.equals(method, "GET")) {
+            ticketResponseCache.invalidate(ticketKey);
+        }
+
 
         HttpRequest request = null;
 
@@ -130,7 +243,7 @@ public class ConnectWiseClient {
             if (requestBody != null) {
                 request = HttpRequest.newBuilder()
                         .uri(URI.create(url))
-                        .method(method, HttpRequest.BodyPublishers.ofString(requestBody))
+                        .method(method, HttpRequest.BodyPublishers.ofByteArray(requestBody))
                         .header("clientID", clientID)
                         .header("Authorization", authorization)
                         .header("Content-Type", "application/json")
@@ -153,10 +266,14 @@ public class ConnectWiseClient {
         // Response
         HttpResponse<String> response = null;
         //logger.info("ConnectWiseAPICall: Getting response");
+        long bytesSent = requestBody == null ? 0 : requestBody.length;
+        long start = System.nanoTime();
         try {
             // Send HTTP request
             response = client.send(request, HttpResponse.BodyHandlers.ofString());
         } catch (IOException | InterruptedException e) {
+            metrics.recordCall(ConnectWiseMetrics.tenantOf(config), method, url, 0, System.nanoTime() - start,
+                    bytesSent, 0);
             logger.error("ConnectWiseAPICall: HTTP request generated error: " + e.getMessage());
             if (response != null) {
                 throw new TalAdapterSyncException("HTTP request error", HttpStatus.valueOf(response.statusCode()), e);
@@ -164,6 +281,12 @@ public class ConnectWiseClient {
                 throw new TalAdapterSyncException("HTTP request error", e);
         }
 
+        if (response != null) {
+            span.setAttribute("http.status_code", response.statusCode());
+            metrics.recordCall(ConnectWiseMetrics.tenantOf(config), method, url, response.statusCode(),
+                    System.nanoTime() - start, bytesSent, responseSize(response));
+        }
+
         if (response != null && (response.statusCode() == 200 || response.statusCode() == 201)) {
             logger.info("ConnectWiseAPICall: {} call successful - HTTP Code: {}",
                     method,
@@ -182,18 +305,56 @@ public class ConnectWiseClient {
                     response != null ? HttpStatus.valueOf(response.statusCode()) : null);
         }
 
+        if (cacheable)
+            ticketResponseCache.put(ticketKey, url, response.body(), getTicketCacheTTL(config), cacheVersion);
+        else if (ticketKey != null && !Objects.equals(method, "GET"))
+            // A read sent while the write was in flight may have cached the previous state
+            ticketResponseCache.invalidate(ticketKey);
+
+        return response.body();
+    }
+
+    /**
+     * @param response HTTP response
+     * @return size of the response body as sent by ConnectWise, or its length in characters if unknown
+     */
+    private static long responseSize(HttpResponse<String> response) {
+        if (response.headers() != null) {
+            long contentLength = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+            if (contentLength >= 0)
+                return contentLength;
+        }
+        return response.body() == null ? 0 : response.body().length();
+    }
+
+    /**
+     * @param requestBody request body. May be null
+     * @return the body in UTF-8, as sent to ConnectWise
+     */
+    private static byte[] utf8(String requestBody) {
+        return requestBody == null ? null : requestBody.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parses a ConnectWise response body
+     *
+     * @param body response body
+     * @param url request URL, for logging
+     * @return JSON object with the response. An array response is put under "JSONArray". Null if body is not JSON
+     */
+    private JSONObject parseResponse(String body, String url) {
         JSONObject jsonObject;
         try {
-            //System.out.println(response.body());
-            jsonObject = new JSONObject(response.body());
+            //System.out.println(body);
+            jsonObject = new JSONObject(body);
         } catch (JSONException e) {
             try {
                 // It is possible that the response is a JSON array, so it is put in a JSON object under JSONArray
-                jsonObject = new JSONObject("{ \"JSONArray\" : " + response.body() + "}");
+                jsonObject = new JSONObject("{ \"JSONArray\" : " + body + "}");
             } catch (JSONException e2) {
                 // If it is also not an Array: give up and report error
                 logger.error("ConnectWiseAPICall: error parsing content to JSON - " + e2);
-                logger.error("ConnectWiseAPICall: API call object: " + response.request());
+                logger.error("ConnectWiseAPICall: API call URL: " + url);
                 return null;
             }
         }
@@ -211,55 +372,188 @@ public class ConnectWiseClient {
      */
     public ConnectWiseTicket get(TicketSystemConfig config, String url) throws TalAdapterSyncException {
         // Attempt connection
-        JSONObject response = null;
+        ConnectWiseDto.Ticket response = null;
         ConnectWiseTicket refreshedCWTicket = null;
 
         logger.info("get: retrieving ticket");
-        response = ConnectWiseAPICall(config, url, "GET", null);
+        response = ConnectWiseAPICall(config, url, ConnectWiseResponseCodec.TICKET);
 
         // If connection successful:
         if (response != null) {
             // Create new ticket and assign values
-            refreshedCWTicket = new ConnectWiseTicket(response);
+            refreshedCWTicket = new ConnectWiseTicket(response, StringPool.forConfig(config));
             refreshedCWTicket.setUrl(url);
 
-            // Attempting to get comments
-            logger.info("get: retrieving comments");
-            boolean commentsFailed = false;
-            if (config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.URL_PATTERN_TO_GET_COMMENTS) == null) {
-                logger.warn("get: URL Pattern to get Comments config property cannot be null");
-                // FIXME: No error here? Sync should continue without syncing comments
-                commentsFailed = true;
-                //throw new TalAdapterSyncException("URL Pattern to get Comments config property cannot be null");
+            loadComments(config, refreshedCWTicket);
+        }
+
+        return refreshedCWTicket;
+    }
+
+    /**
+     * Retrieves the comments of a ConnectWise ticket and sets its description to the oldest description comment.
+     * Failures are only logged, so that the sync can continue without comments.
+     *
+     * @param CWTicket ticket retrieved from ConnectWise, with its URL set
+     */
+    public void loadComments(TicketSystemConfig config, ConnectWiseTicket CWTicket) {
+        logger.info("loadComments: retrieving comments");
+        if (config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.URL_PATTERN_TO_GET_COMMENTS) == null) {
+            // FIXME: No error here? Sync should continue without syncing comments
+            logger.warn("loadComments: URL Pattern to get Comments config property cannot be null");
+            return;
+        }
+
+        try {
+            ConnectWiseDto.Note[] notes = ConnectWiseAPICall(config,
+                    CWTicket.getUrl() + config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.URL_PATTERN_TO_GET_COMMENTS),
+                    ConnectWiseResponseCodec.NOTES);
+            if (notes == null) {
+                logger.warn("loadComments: unable to parse comments/description");
+                return;
             }
-            if (!commentsFailed) {
-                try {
-                    JSONArray jsonArray = ConnectWiseAPICall(config,
-                            url + config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.URL_PATTERN_TO_GET_COMMENTS),
-                            "GET",
-                            null)
-                            .getJSONArray("JSONArray");
-                    refreshedCWTicket.setComments(jsonArray);
-
-                    // Set description
-                    Optional<ConnectWiseComment> oldestDescriptionComment = refreshedCWTicket.getComments()
-                            .stream()
-                            .filter(ConnectWiseComment::isDescriptionFlag)
-                            .min(Comparator.comparing(ConnectWiseComment::getLastModified));
-                    if (oldestDescriptionComment.isPresent()) {
-                        logger.info("get: ticket description found");
-                        ConnectWiseComment description = oldestDescriptionComment.get();
-                        refreshedCWTicket.setDescription(description);
-                    } else {
-                        logger.info("get: ticket description not found");
-                    }
-                } catch (TalAdapterSyncException e) {
-                    logger.warn("get: unable to retrieve comments/description");
-                }
+            // Comments and description are only converted once the sync accesses them
+            CWTicket.setNotes(notes, StringPool.forConfig(config));
+        } catch (TalAdapterSyncException e) {
+            logger.warn("loadComments: unable to retrieve comments/description");
+        }
+    }
+
+    /**
+     * Retrieves several ConnectWise tickets with as few requests as possible.
+     * Comments are not retrieved, see {@link #loadComments(TicketSystemConfig, ConnectWiseTicket)}.
+     *
+     * @param ids ConnectWise IDs of the tickets. IDs that are not numeric are ignored
+     * @return tickets found in ConnectWise by ID, with their URL set. Tickets not found are missing from the map
+     * @throws TalAdapterSyncException if any request fails
+     */
+    public Map<String, ConnectWiseTicket> getTickets(TicketSystemConfig config, Collection<String> ids) throws TalAdapterSyncException {
+        if (config == null || config.getTicketSourceConfig() == null) {
+            logger.error("getTickets: config or ticket source config cannot be null");
+            throw new TalAdapterSyncException("config or ticket source config cannot be null");
+        }
+        Map<String, String> ticketSourceConfig = config.getTicketSourceConfig();
+        if (ticketSourceConfig.get(TicketSourceConfigProperty.URL) == null ||
+                ticketSourceConfig.get(TicketSourceConfigProperty.API_PATH) == null ||
+                ticketSourceConfig.get(TicketSourceConfigPropertyCW.URL_PATTERN_TO_GET_TICKET) == null) {
+            logger.error("getTickets: unable to form URL. URL, API Path or URL Pattern to get Ticket config properties cannot be null");
+            throw new TalAdapterSyncException("URL, API Path or URL Pattern to get Ticket config properties cannot be null");
+        }
+
+        String ticketsURL = ticketSourceConfig.get(TicketSourceConfigProperty.URL) +
+                ticketSourceConfig.get(TicketSourceConfigProperty.API_PATH) +
+                ticketSourceConfig.get(TicketSourceConfigPropertyCW.URL_PATTERN_TO_GET_TICKET);
+
+        // Only numeric IDs are safe to put in a conditions query
+        List<String> numericIds = new ArrayList<>(ids.size());
+        for (String id : new LinkedHashSet<>(ids)) {
+            if (id != null && !id.isEmpty() && id.chars().allMatch(Character::isDigit))
+                numericIds.add(id);
+        }
+
+        Map<String, ConnectWiseTicket> tickets = new HashMap<>(numericIds.size() * 2);
+        StringPool stringPool = StringPool.forConfig(config);
+        for (int from = 0; from < numericIds.size(); from += MAX_TICKETS_PER_REQUEST) {
+            List<String> page = numericIds.subList(from, Math.min(from + MAX_TICKETS_PER_REQUEST, numericIds.size()));
+            logger.info("getTickets: retrieving {} ticket(s)", page.size());
+            ConnectWiseDto.Ticket[] response = ConnectWiseAPICall(config,
+                    ticketsURL + "?conditions=id%20in%20(" + String.join(",", page) + ")&pageSize=" + page.size(),
+                    ConnectWiseResponseCodec.TICKETS);
+            if (response == null) {
+                logger.warn("getTickets: unable to parse tickets");
+                continue;
+            }
+
+            for (ConnectWiseDto.Ticket ticket : response) {
+                if (ticket == null)
+                    continue;
+                ConnectWiseTicket CWTicket = new ConnectWiseTicket(ticket, stringPool);
+                if (CWTicket.getId() == null)
+                    continue;
+                CWTicket.setUrl(ticketsURL + "/" + CWTicket.getId());
+                tickets.put(CWTicket.getId(), CWTicket);
             }
         }
+        return tickets;
+    }
 
-        return refreshedCWTicket;
+    /**
+     * Retrieves every ConnectWise ticket changed at or after a given date, following pagination.
+     * Comments are not retrieved, see {@link #loadComments(TicketSystemConfig, ConnectWiseTicket)}.
+     *
+     * @param since ConnectWise date (i.e. "2024-08-01T10:00:00Z"). Tickets changed at this exact date are included
+     * @return changed tickets with their URL set, oldest change first
+     * @throws TalAdapterSyncException if any request fails
+     */
+    public List<ConnectWiseTicket> getTicketsUpdatedSince(TicketSystemConfig config, String since) throws TalAdapterSyncException {
+        if (config == null || config.getTicketSourceConfig() == null) {
+            logger.error("getTicketsUpdatedSince: config or ticket source config cannot be null");
+            throw new TalAdapterSyncException("config or ticket source config cannot be null");
+        }
+        if (since == null) {
+            logger.error("getTicketsUpdatedSince: since cannot be null");
+            throw new InvalidArgumentException("since cannot be null");
+        }
+        Map<String, String> ticketSourceConfig = config.getTicketSourceConfig();
+        if (ticketSourceConfig.get(TicketSourceConfigProperty.URL) == null ||
+                ticketSourceConfig.get(TicketSourceConfigProperty.API_PATH) == null ||
+                ticketSourceConfig.get(TicketSourceConfigPropertyCW.URL_PATTERN_TO_GET_TICKET) == null) {
+            logger.error("getTicketsUpdatedSince: unable to form URL. URL, API Path or URL Pattern to get Ticket config properties cannot be null");
+            throw new TalAdapterSyncException("URL, API Path or URL Pattern to get Ticket config properties cannot be null");
+        }
+
+        String ticketsURL = ticketSourceConfig.get(TicketSourceConfigProperty.URL) +
+                ticketSourceConfig.get(TicketSourceConfigProperty.API_PATH) +
+                ticketSourceConfig.get(TicketSourceConfigPropertyCW.URL_PATTERN_TO_GET_TICKET);
+        String conditions = URLEncoder.encode("lastUpdated>=[" + since + "]", StandardCharsets.UTF_8)
+                .replace("+", "%20");
+
+        List<ConnectWiseTicket> tickets = new ArrayList<>();
+        StringPool stringPool = StringPool.forConfig(config);
+        for (int page = 1; page <= MAX_PAGES; page++) {
+            ConnectWiseDto.Ticket[] jsonTickets = ConnectWiseAPICall(config,
+                    ticketsURL + "?conditions=" + conditions + "&orderBy=lastUpdated%20asc&page=" + page +
+                            "&pageSize=" + MAX_TICKETS_PER_REQUEST,
+                    ConnectWiseResponseCodec.TICKETS);
+            if (jsonTickets == null) {
+                logger.warn("getTicketsUpdatedSince: unable to parse tickets");
+                break;
+            }
+
+            for (ConnectWiseDto.Ticket ticket : jsonTickets) {
+                if (ticket == null)
+                    continue;
+                ConnectWiseTicket CWTicket = new ConnectWiseTicket(ticket, stringPool);
+                if (CWTicket.getId() == null)
+                    continue;
+                CWTicket.setUrl(ticketsURL + "/" + CWTicket.getId());
+                tickets.add(CWTicket);
+            }
+            // A partial page is the last one
+            if (jsonTickets.length < MAX_TICKETS_PER_REQUEST)
+                return tickets;
+        }
+
+        logger.warn("getTicketsUpdatedSince: more than {} pages of changed tickets - remaining tickets are retrieved next time",
+                MAX_PAGES);
+        return tickets;
+    }
+
+    /**
+     * Retrieves only the date of the last change to a ConnectWise ticket.
+     * Much cheaper than {@link #get(TicketSystemConfig, String)} since no other field or comment is transferred.
+     *
+     * @param url of the ticket
+     * @return date and time of the ticket's last change. Null if ConnectWise did not report it
+     * @throws TalAdapterSyncException if request fails
+     */
+    public String getLastUpdated(TicketSystemConfig config, String url) throws TalAdapterSyncException {
+        ConnectWiseDto.Ticket response = ConnectWiseAPICall(config, url + "?fields=_info/lastUpdated",
+                ConnectWiseResponseCodec.TICKET);
+        if (response == null || response.getInfo() == null)
+            return null;
+
+        return response.getInfo().getLastUpdated();
     }
 
     /**
@@ -270,11 +564,61 @@ public class ConnectWiseClient {
      * @throws TalAdapterSyncException if request fails
      */
     public void patch(TicketSystemConfig config, String url, String requestBody) throws TalAdapterSyncException {
-        ConnectWiseAPICall(config, url, "PATCH", requestBody);
+        ConnectWiseAPICall(config, url, "PATCH", utf8(requestBody));
+        // Deferred writes of the same fields are now obsolete
+        WriteOutbox outbox = writeOutbox;
+        if (outbox != null)
+            outbox.written(url, requestBody);
+    }
+
+    /**
+     * Defers a failed write to the outbox, so that only this request is sent again later.
+     * Writes are only deferred to an outbox kept in a journal file: the sync is then reported as successful and its
+     * state committed, so a write kept only in memory would be lost for good on restart
+     *
+     * @param config customer config
+     * @param CWTicket ticket the write belongs to
+     * @param method HTTP method
+     * @param url request URL
+     * @param requestBody JSON request body
+     * @param error error of the failed write
+     * @return true if the write was deferred. False if there is no durable outbox or the error is not recoverable
+     */
+    public boolean deferWrite(TicketSystemConfig config, ConnectWiseTicket CWTicket, String method, String url,
+                              String requestBody, TalAdapterSyncException error) {
+        WriteOutbox outbox = writeOutbox;
+        if (outbox == null || !outbox.isDurable() || CWTicket == null || CWTicket.getCustomerId() == null ||
+                !getRecoverableStatusPolicy(config).isRecoverable(error))
+            return false;
+        outbox.add(CWTicket.getCustomerId(), CWTicket.getSymphonyId(), method, url, requestBody);
+        return true;
+    }
+
+    /**
+     * Sends a deferred write again
+     *
+     * @param entry deferred write
+     * @return true if the write is done: it succeeded, or failed with an error that is not recoverable.
+     * False if it failed again with a recoverable error
+     */
+    public boolean replay(TicketSystemConfig config, WriteOutbox.Entry entry) {
+        metrics.recordRetry(ConnectWiseMetrics.tenantOf(config));
+        try {
+            ConnectWiseAPICall(config, entry.getUrl(), entry.getMethod(), utf8(entry.getBody()));
+            logger.info("replay: deferred {} {} succeeded", entry.getMethod(), entry.getUrl());
+            return true;
+        } catch (TalAdapterSyncException e) {
+            if (getRecoverableStatusPolicy(config).isRecoverable(e))
+                return false;
+            logger.error("replay: dropping deferred {} {} - {}", entry.getMethod(), entry.getUrl(), e.getMessage());
+            return true;
+        }
     }
 
     /**
      * Posts this ticket and its comments to ConnectWise.
+     * Every completed step is checkpointed in the creation journal. If a step fails, the next attempt for the same
+     * Symphony ticket resumes at the first incomplete step and reuses the ticket already created in ConnectWise.
      *
      * @param CWTicket ticket to post to ConnectWise
      * @throws TalAdapterSyncException if posting ticket failed
@@ -318,64 +662,250 @@ public class ConnectWiseClient {
             logger.warn("post: Config's board is null. Ticket will be created on default board.");
         }
 
-        // Try to get priority ID from name
-        String priorityId = getPriorityID(config, CWTicket.getPriority());
+        // Resume a creation that failed after some of its steps
+        String symphonyId = CWTicket.getSymphonyId();
+        CreationJournal.Checkpoint checkpoint = creationJournal.get(symphonyId);
 
-        String url = config.getTicketSourceConfig().get(TicketSourceConfigProperty.URL) +
-                config.getTicketSourceConfig().get(TicketSourceConfigProperty.API_PATH) +
-                config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.URL_PATTERN_TO_GET_TICKET);
-
-        String requestBody = "{\n" +
-                "    \"summary\" : \"" + CWTicket.getSummary() + "\",\n" +
-                (config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.BOARD_ID) != null ?
-                "    \"board\" : {\n" +
-                "        \"id\": "+
-                        config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.BOARD_ID) + "\n" +
-                "    },\n" : "") +
-                "    \"company\": {\n" +
-                "        \"id\": " +
-                        config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.COMPANY_REC_ID) + "\n" +
-                "    }" +
-                (CWTicket.getStatus() != null ?
-                ",\n" +
-                "    \"status\" : {\n" +
-                "        \"name\": \""+ CWTicket.getStatus() +"\"\n" +
-                "    }" : "\n") +
-                (CWTicket.getAssignee() != null ?
-                ",\n" +
-                "    \"owner\" : {\n" +
-                "        \"identifier\": \""+ CWTicket.getAssignee() +"\"\n" +
-                "    }" : "\n") +
-                (priorityId != null ?
-                ",\n" +
-                "    \"priority\" : {\n" +
-                "        \"id\": "+ priorityId +"\n" + // FIXME: Priority should be mapped by name, not id
-                "    }\n" : "\n") +
-                //      "    \"contactEmailAddress\" : \"" + talTicket.getRequester() + "\"\n" +
-                "}";
-
-        JSONObject response = ConnectWiseAPICall(config, url, "POST", requestBody);
-        ConnectWiseTicket newTicket = new ConnectWiseTicket(response);
-        newTicket.setUrl(url + "/" + newTicket.getId());
-
-        // Update CWTicket
-        CWTicket.setId(newTicket.getId());
-        CWTicket.setUrl(newTicket.getUrl());
-
-        // Update new ticket
-        newTicket.setSymphonyId(CWTicket.getSymphonyId());
-        newTicket.setSymphonyLink(CWTicket.getSymphonyLink());
-
-        // POST description
-        postDescription(config, CWTicket);
-
-        // POST comments
-        patchComments(config, CWTicket, newTicket);
+        // Step 1: POST ticket
+        if (checkpoint != null && checkpoint.getTicketId() != null) {
+            logger.info("post: resuming creation of ConnectWise ticket {}", checkpoint.getTicketId());
+            CWTicket.setId(checkpoint.getTicketId());
+            CWTicket.setUrl(checkpoint.getUrl());
+        } else {
+            // Try to get priority ID from name
+            String priorityId = getPriorityID(config, CWTicket.getPriority());
+
+            String url = config.getTicketSourceConfig().get(TicketSourceConfigProperty.URL) +
+                    config.getTicketSourceConfig().get(TicketSourceConfigProperty.API_PATH) +
+                    config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.URL_PATTERN_TO_GET_TICKET);
+
+            byte[] requestBody = ConnectWiseRequestCodec.encode(new ConnectWiseRequestCodec.TicketRequest(
+                    CWTicket.getSummary(),
+                    config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.BOARD_ID),
+                    config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.COMPANY_REC_ID),
+                    CWTicket.getStatus(),
+                    CWTicket.getAssignee(),
+                    priorityId)); // FIXME: Priority should be mapped by name, not id
+
+            JSONObject response = ConnectWiseAPICall(config, url, "POST", requestBody);
+            ConnectWiseTicket newTicket = new ConnectWiseTicket(response, StringPool.forConfig(config));
+
+            // Update CWTicket
+            CWTicket.setId(newTicket.getId());
+            CWTicket.setUrl(url + "/" + newTicket.getId());
+            creationJournal.ticketCreated(symphonyId, CWTicket.getId(), CWTicket.getUrl());
+        }
+
+        try {
+            // Step 2: POST description
+            if (checkpoint != null && checkpoint.getDescriptionId() != null) {
+                if (CWTicket.getDescription() != null)
+                    CWTicket.getDescription().setThirdPartyId(checkpoint.getDescriptionId());
+            } else {
+                postDescription(config, CWTicket);
+                if (CWTicket.getDescription() != null && CWTicket.getDescription().getThirdPartyId() != null)
+                    creationJournal.descriptionPosted(symphonyId, CWTicket.getDescription().getThirdPartyId());
+            }
+
+            // Step 3: POST comments not created by a previous attempt
+            List<ConnectWiseComment> commentsToPost = new ArrayList<>();
+            if (CWTicket.getComments() != null) {
+                for (ConnectWiseComment CWComment : CWTicket.getComments()) {
+                    String noteId = checkpoint == null ? null :
+                            checkpoint.getCommentIds().get(CreationJournal.commentKey(CWComment));
+                    if (noteId != null)
+                        CWComment.setThirdPartyId(noteId);
+                    else
+                        commentsToPost.add(CWComment);
+                }
+            }
+            if (!commentsToPost.isEmpty()) {
+                String notesURL = CWTicket.getUrl() +
+                        config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.URL_PATTERN_TO_GET_COMMENTS);
+                try {
+                    postComments(config, notesURL, commentsToPost);
+                } finally {
+                    // Checkpoint every comment created, even if others failed
+                    for (ConnectWiseComment CWComment : commentsToPost) {
+                        if (CWComment.getThirdPartyId() != null)
+                            creationJournal.commentPosted(symphonyId, CreationJournal.commentKey(CWComment),
+                                    CWComment.getThirdPartyId());
+                    }
+                }
+            }
+        } catch (TalAdapterSyncException e) {
+            // A resumed ticket deleted in ConnectWise meanwhile cannot be completed: the next attempt starts over
+            if (checkpoint != null && e.getHttpStatus() == HttpStatus.NOT_FOUND) {
+                logger.warn("post: ConnectWise ticket {} no longer exists - creation starts over", CWTicket.getId());
+                creationJournal.completed(symphonyId);
+            }
+            throw e;
+        }
+
+        creationJournal.completed(symphonyId);
+    }
+
+
+    /**
+     * Drops the cached snapshot of a ticket and of its notes, after ConnectWise reported a change
+     *
+     * @param companyId ConnectWise login company ID
+     * @param ticketId ConnectWise ticket ID
+     */
+    public void invalidateTicket(String companyId, String ticketId) {
+        ticketResponseCache.invalidate(TicketResponseCache.ticketKey(companyId, ticketId));
+    }
+
+    /**
+     * Registers a ConnectWise callback for ticket changes, or updates its URL if it is already registered.
+     * Callbacks are registered at board level if a board is configured, at company level otherwise.
+     * Changes made by the adapter itself are suppressed by ConnectWise.
+     *
+     * @param callbackURL URL ConnectWise calls back
+     * @param description description identifying the callback of this adapter and customer
+     * @throws TalAdapterSyncException if the callback cannot be registered
+     */
+    public void registerCallback(TicketSystemConfig config, String callbackURL, String description) throws TalAdapterSyncException {
+        if (config == null || config.getTicketSourceConfig() == null) {
+            logger.error("registerCallback: config or ticket source config cannot be null");
+            throw new TalAdapterSyncException("config or ticket source config cannot be null");
+        }
+        if (callbackURL == null || description == null) {
+            logger.error("registerCallback: callback URL and description cannot be null");
+            throw new InvalidArgumentException("callback URL and description cannot be null");
+        }
+        Map<String, String> ticketSourceConfig = config.getTicketSourceConfig();
+        if (ticketSourceConfig.get(TicketSourceConfigProperty.URL) == null ||
+                ticketSourceConfig.get(TicketSourceConfigProperty.API_PATH) == null) {
+            logger.error("registerCallback: unable to form URL. URL or API Path config properties cannot be null");
+            throw new TalAdapterSyncException("URL or API Path config properties cannot be null");
+        }
+
+        String level;
+        String objectId;
+        if (ticketSourceConfig.get(TicketSourceConfigPropertyCW.BOARD_ID) != null) {
+            level = "Board";
+            objectId = ticketSourceConfig.get(TicketSourceConfigPropertyCW.BOARD_ID);
+        } else if (ticketSourceConfig.get(TicketSourceConfigPropertyCW.COMPANY_REC_ID) != null) {
+            level = "Company";
+            objectId = ticketSourceConfig.get(TicketSourceConfigPropertyCW.COMPANY_REC_ID);
+        } else {
+            logger.error("registerCallback: board ID or company recID config properties are required");
+            throw new TalAdapterSyncException("Board ID or company recID config properties are required to register callbacks",
+                    HttpStatus.BAD_REQUEST);
+        }
+
+        String callbacksURL = ticketSourceConfig.get(TicketSourceConfigProperty.URL) +
+                ticketSourceConfig.get(TicketSourceConfigProperty.API_PATH) + "/system/callbacks";
+
+        // Look for a callback registered by a previous run
+        JSONObject response = ConnectWiseAPICall(config,
+                callbacksURL + "?conditions=" +
+                        URLEncoder.encode("description=\"" + description + "\"", StandardCharsets.UTF_8).replace("+", "%20"),
+                "GET",
+                null);
+        JSONArray callbacks = response == null ? null : response.optJSONArray("JSONArray");
+        JSONObject existing = callbacks == null || callbacks.isEmpty() ? null : callbacks.optJSONObject(0);
+
+        if (existing == null) {
+            JSONObject callback = new JSONObject();
+            callback.put("description", description);
+            callback.put("url", callbackURL);
+            callback.put("objectId", Integer.parseInt(objectId.trim()));
+            callback.put("type", "Ticket");
+            callback.put("level", level);
+            callback.put("inactiveFlag", false);
+            callback.put("isSelfSuppressedFlag", true);
+            ConnectWiseAPICall(config, callbacksURL, "POST", utf8(callback.toString()));
+            logger.info("registerCallback: callback registered at {} level", level);
+        } else if (!Objects.equals(existing.optString("url", null), callbackURL)) {
+            ConnectWiseAPICall(config, callbacksURL + "/" + existing.getInt("id"), "PATCH",
+                    utf8(PatchOperation.toJson(Collections.singletonList(PatchOperation.replace("url", callbackURL)))));
+            logger.info("registerCallback: callback URL updated");
+        } else {
+            logger.info("registerCallback: callback already registered");
+        }
     }
 
 
     //* ----------------------------- HELPER METHODS ----------------------------- *//
 
+    /**
+     * Gets the key of the ticket a URL belongs to
+     *
+     * @param url request URL
+     * @return the ticket key, or null if url does not belong to a single ticket
+     */
+    private String getTicketKey(TicketSystemConfig config, String url) {
+        int idEnd = getTicketIdEnd(config, url);
+        if (idEnd < 0)
+            return null;
+        return TicketResponseCache.ticketKey(config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.COMPANY_ID),
+                url.substring(getTicketsURL(config).length() + 1, idEnd));
+    }
+
+    /**
+     * Checks if a URL reads a ticket or its notes, which are the responses kept in the snapshot cache
+     *
+     * @param url request URL of a ticket
+     * @return true if the response can be cached
+     */
+    private boolean isSnapshotURL(TicketSystemConfig config, String url) {
+        String rest = url.substring(getTicketIdEnd(config, url));
+        return rest.isEmpty() ||
+                rest.equals(config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.URL_PATTERN_TO_GET_COMMENTS));
+    }
+
+    /**
+     * Finds the end of the ticket ID in a URL
+     *
+     * @param url request URL
+     * @return index after the last digit of the ticket ID, or -1 if url does not belong to a single ticket
+     */
+    private int getTicketIdEnd(TicketSystemConfig config, String url) {
+        String ticketsURL = getTicketsURL(config);
+        if (ticketsURL == null || !url.startsWith(ticketsURL + "/"))
+            return -1;
+        int idStart = ticketsURL.length() + 1;
+        int idEnd = idStart;
+        while (idEnd < url.length() && Character.isDigit(url.charAt(idEnd)))
+            idEnd++;
+        return idEnd == idStart ? -1 : idEnd;
+    }
+
+    /**
+     * Gets the URL of the tickets collection
+     *
+     * @return the URL, or null if it cannot be formed from config
+     */
+    private String getTicketsURL(TicketSystemConfig config) {
+        Map<String, String> ticketSourceConfig = config.getTicketSourceConfig();
+        if (ticketSourceConfig.get(TicketSourceConfigProperty.URL) == null ||
+                ticketSourceConfig.get(TicketSourceConfigProperty.API_PATH) == null ||
+                ticketSourceConfig.get(TicketSourceConfigPropertyCW.URL_PATTERN_TO_GET_TICKET) == null)
+            return null;
+        return ticketSourceConfig.get(TicketSourceConfigProperty.URL) +
+                ticketSourceConfig.get(TicketSourceConfigProperty.API_PATH) +
+                ticketSourceConfig.get(TicketSourceConfigPropertyCW.URL_PATTERN_TO_GET_TICKET);
+    }
+
+    /**
+     * Gets the time ticket and note responses stay cached without a ConnectWise callback
+     *
+     * @return configured time in milliseconds. 0 if responses are not cached
+     */
+    private long getTicketCacheTTL(TicketSystemConfig config) {
+        String seconds = config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.TICKET_CACHE_SECONDS);
+        if (seconds == null)
+            return 0;
+        try {
+            return Math.max(0, Long.parseLong(seconds.trim())) * 1000;
+        } catch (NumberFormatException e) {
+            logger.warn("getTicketCacheTTL: invalid ticket cache time {} - caching disabled", seconds);
+            return 0;
+        }
+    }
+
     /**
      * Gets ConnectWise Priority ID based on Priority name.
      * This is needed because CW cannot do operations with the priority name, but the IDs can vary across
@@ -406,6 +936,15 @@ public class ConnectWiseClient {
             return null;
         }
 
+        // Priority IDs rarely change, so they are shared by every sync of the same ConnectWise company:
+        // companies hosted on the same ConnectWise instance can define different priorities
+        String cacheKey = config.getTicketSourceConfig().get(TicketSourceConfigProperty.URL) +
+                config.getTicketSourceConfig().get(TicketSourceConfigProperty.API_PATH) + "|" +
+                config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.COMPANY_ID) + "|" + priorityName;
+        CachedPriorityID cachedPriorityID = priorityIDCache.get(cacheKey);
+        if (cachedPriorityID != null && cachedPriorityID.expiresAt > System.currentTimeMillis())
+            return cachedPriorityID.id;
+
         logger.info("getPriorityID: Getting Priority ID in ConnectWise using Priority name");
 
         // First, make sure priority name has no spaces
@@ -418,19 +957,24 @@ public class ConnectWiseClient {
                 "?conditions=name%20=%20%22"+ urlSafePriorityName + "%22";
 
         // Make the request
-        JSONArray priority = ConnectWiseAPICall(config, url, "GET", null)
-                .getJSONArray("JSONArray"); // Get JSONArray from response
+        ConnectWiseDto.Priority[] priority;
+        try (SyncTrace.Span span = SyncTrace.startSpan("priority")) {
+            span.setAttribute("priority.name", priorityName);
+            priority = ConnectWiseAPICall(config, url, ConnectWiseResponseCodec.PRIORITIES);
+        }
         if (priority != null) {
-            if (!priority.isEmpty()) {
-                JSONObject firstPriorityFound = priority.getJSONObject(0); // Get first priority found
-                if (firstPriorityFound != null) {
-                    retVal = firstPriorityFound.getInt("id") + ""; // Get priority's name
+            if (priority.length > 0) {
+                ConnectWiseDto.Priority firstPriorityFound = priority[0]; // Get first priority found
+                if (firstPriorityFound != null && firstPriorityFound.getId() != null) {
+                    retVal = firstPriorityFound.getId().toString(); // Get priority's ID
                 }
             } else {
                 logger.warn("getPriorityID: Failed to find priority {} in ConnectWise", priorityName);
             }
         }
 
+        if (retVal != null)
+            priorityIDCache.put(cacheKey, new CachedPriorityID(retVal, System.currentTimeMillis() + PRIORITY_ID_CACHE_TTL));
         return retVal;
     }
 
@@ -444,6 +988,40 @@ public class ConnectWiseClient {
      * @throws TalAdapterSyncException if any request to POST new comments fail
      */
     public void patchComments(TicketSystemConfig config, ConnectWiseTicket CWTicket, ConnectWiseTicket newTicket) throws TalAdapterSyncException {
+        patchComments(config, CWTicket, newTicket, CommentWatermarks.NONE);
+    }
+
+    /**
+     * Updates ConnectWise comments based on SymphonyTicket, only considering Symphony comments modified after the
+     * watermark. Comments that already exist in ConnectWise and have not been modified since are skipped.
+     *
+     * @param CWTicket ticket with updated Symphony information
+     * @param newTicket ticket to be updated
+     * @param watermark latest lastModified of the comments synced by the last successful sync.
+     *                  {@link CommentWatermarks#NONE} to consider every comment
+     * @throws TalAdapterSyncException if any request to POST new comments fail
+     */
+    public void patchComments(TicketSystemConfig config, ConnectWiseTicket CWTicket, ConnectWiseTicket newTicket, long watermark) throws TalAdapterSyncException {
+        SyncPlan plan = new SyncPlan();
+        planComments(config, CWTicket, newTicket, watermark, plan);
+        plan.execute(getWriteExecutor());
+    }
+
+    /**
+     * Plans the requests that update ConnectWise comments based on SymphonyTicket, without sending them.
+     * Changed texts are already applied to newTicket's comments. Each note PATCH is independent, while new comments
+     * are posted by a single operation that keeps their chronological order.
+     *
+     * @param CWTicket ticket with updated Symphony information
+     * @param newTicket ticket to be updated
+     * @param watermark latest lastModified of the comments synced by the last successful sync.
+     *                  {@link CommentWatermarks#NONE} to consider every comment
+     * @param plan plan the requests are added to
+     * @param postAfter operations that must complete before new comments are posted, e.g. the ticket PATCH and posting
+     *                  the description
+     */
+    public void planComments(TicketSystemConfig config, ConnectWiseTicket CWTicket, ConnectWiseTicket newTicket, long watermark,
+                             SyncPlan plan, SyncPlan.Operation... postAfter) {
         // null check
         if (CWTicket == null || newTicket == null)
             throw new InvalidArgumentException("CWTicket, newTicket and comments cannot be null");
@@ -462,105 +1040,221 @@ public class ConnectWiseClient {
         String notesURL = newTicket.getUrl() +
                 config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.URL_PATTERN_TO_GET_COMMENTS);
 
+        // Only comments created or modified since the watermark need work
+        List<ConnectWiseComment> pendingComments = new ArrayList<>();
+        boolean anyPendingCommentInConnectWise = false;
+        for (ConnectWiseComment SymphonyComment : CWTicket.getComments()) {
+            if (SymphonyComment.getThirdPartyId() != null && SymphonyComment.getLastModified() <= watermark)
+                continue;
+            pendingComments.add(SymphonyComment);
+            anyPendingCommentInConnectWise |= SymphonyComment.getThirdPartyId() != null;
+        }
+        if (pendingComments.size() < CWTicket.getComments().size()) {
+            logger.info("patchComments: {}/{} comments modified since last sync",
+                    pendingComments.size(), CWTicket.getComments().size());
+        }
+
+        // Index ConnectWise comments by their ConnectWise ID
+        Map<String, ConnectWiseComment> CWCommentsById = new HashMap<>();
+        if (anyPendingCommentInConnectWise) {
+            for (ConnectWiseComment CWComment : newTicket.getComments()) {
+                if (CWComment.getThirdPartyId() != null)
+                    CWCommentsById.put(CWComment.getThirdPartyId(), CWComment);
+            }
+        }
+        // Comments can only be matched when the ConnectWise description is known, and the description is never matched
+        boolean canMatchComments = newTicket.getDescription() != null;
+        String descriptionId = canMatchComments ? newTicket.getDescription().getThirdPartyId() : null;
+
         // Go for every Symphony ticket
         Set<ConnectWiseComment> commentsToPost = new HashSet<>();
-        Iterator<ConnectWiseComment> itr = CWTicket.getComments().iterator();
-        ConnectWiseComment SymphonyComment;
-        while ( itr.hasNext() ) {
-            SymphonyComment = itr.next();
-            boolean commentFound = false;
-
+        for (ConnectWiseComment SymphonyComment : pendingComments) {
             // Check if ticket exists in ConnectWise
-            for (ConnectWiseComment CWComment : newTicket.getComments()) {
-                // If it exists, and it's not the description: update CW ticket
-                if (SymphonyComment.getThirdPartyId() != null && // if it has a CW ID
-                        newTicket.getDescription() != null &&
-                        !Objects.equals( SymphonyComment.getThirdPartyId(), newTicket.getDescription().getThirdPartyId() ) && // It's not the description
-                        Objects.equals( CWComment.getThirdPartyId(), SymphonyComment.getThirdPartyId() ) ) { // And CW ID matches
-                    commentFound = true;
-                    CWComment.setSymphonyId( SymphonyComment.getSymphonyId() ); // Keep Symphony ID
-
-                    // API call PATCH
-                    if (!Objects.equals( SymphonyComment.getText(), CWComment.getText() )) { // if text is not the same
-                        // Update text in TAL
-                        CWComment.setText( SymphonyComment.getText() );
-
-                        // Update text in CW
-                        try {
-                            logger.info("patchComments: Attempting to update comment");
-                            String body = "[ {\n" +
-                                    "        \"op\": \"replace\",\n" +
-                                    "        \"path\": \"text\",\n" +
-                                    "        \"value\": \"" + SymphonyComment.getText() + "\"\n" +
-                                    "    }]";
-                            ConnectWiseAPICall(config,notesURL + "/" + CWComment.getThirdPartyId(), "PATCH", body);
-                        } catch (TalAdapterSyncException e) {
-                            logger.error("patchComments: Attempt failed. HTTP error {} - {}",
-                                    e.getHttpStatus() != null ? e.getHttpStatus() : "not specified",
-                                    e.getMessage());
-                        }
-                    }
-                }
+            ConnectWiseComment CWComment = null;
+            if (canMatchComments &&
+                    SymphonyComment.getThirdPartyId() != null && // if it has a CW ID
+                    !Objects.equals( SymphonyComment.getThirdPartyId(), descriptionId )) { // It's not the description
+                CWComment = CWCommentsById.get(SymphonyComment.getThirdPartyId());
             }
 
-            if (!commentFound)
+            if (CWComment == null) {
                 commentsToPost.add(SymphonyComment);
+                continue;
+            }
+
+            // If it exists, and it's not the description: update CW ticket
+            CWComment.setSymphonyId( SymphonyComment.getSymphonyId() ); // Keep Symphony ID
+
+            // API call PATCH
+            if (!SymphonyComment.hasSameText(CWComment)) { // if text is not the same
+                // Update text in TAL
+                CWComment.setText( SymphonyComment.getText() );
+
+                // Update text in CW
+                String noteURL = notesURL + "/" + CWComment.getThirdPartyId();
+                String body = PatchOperation.toJson(
+                        Collections.singletonList(PatchOperation.replace("text", SymphonyComment.getText())));
+                plan.add("PATCH", noteURL, "note text",
+                        metrics.timed(config, ConnectWiseMetrics.Phase.COMMENTS, () -> {
+                    try {
+                        logger.info("patchComments: Attempting to update comment");
+                        patch(config, noteURL, body);
+                    } catch (TalAdapterSyncException e) {
+                        logger.error("patchComments: Attempt failed. HTTP error {} - {}",
+                                e.getHttpStatus() != null ? e.getHttpStatus() : "not specified",
+                                e.getMessage());
+                        // The next sync compares the comment again, unless the outbox replays its PATCH
+                        if (!deferWrite(config, CWTicket, "PATCH", noteURL, body, e))
+                            SymphonyComment.setSyncFailed(true);
+                    }
+                }));
+            }
         }
 
         if ( !commentsToPost.isEmpty() ) {
-            // POST Ticket
-            logger.info("updateComments: Posting {} new comments to ConnectWise",
-                    commentsToPost.size());
+            plan.add("POST", notesURL, commentsToPost.size() + " new note(s)",
+                    metrics.timed(config, ConnectWiseMetrics.Phase.COMMENTS,
+                            () -> postComments(config, notesURL, commentsToPost)),
+                    postAfter);
+        } else {
+            logger.info("updateComments: No comments to POST");
+        }
+    }
 
-            String requestBody = "";
-            int commentsToPostSize = commentsToPost.size();
-            int commentNumber = 0;
-            boolean anyCommentsFailed = false;
-            TalAdapterSyncException lastException = null;
+    /**
+     * Posts new comments to ConnectWise and sets their ConnectWise IDs.
+     * Comments are dispatched in chronological order with at most {@link TicketSourceConfigPropertyCW#NOTE_POST_PARALLELISM}
+     * POST requests in flight for the ticket. With the default parallelism of 1, comments are created in ConnectWise
+     * in exactly the same order as in Symphony.
+     *
+     * @param notesURL URL of the ticket's notes
+     * @param commentsToPost comments to be created
+     * @throws TalAdapterSyncException summarizing every failed POST, if any POST failed
+     */
+    private void postComments(TicketSystemConfig config, String notesURL, Collection<ConnectWiseComment> commentsToPost) throws TalAdapterSyncException {
+        List<ConnectWiseComment> orderedComments = new ArrayList<>(commentsToPost);
+        orderedComments.sort(Comparator.comparingLong(ConnectWiseComment::getLastModified));
+        int commentsToPostSize = orderedComments.size();
+        int parallelism = Math.min(getNotePostParallelism(config), commentsToPostSize);
 
-            for ( ConnectWiseComment CWComment : commentsToPost ) {
-                commentNumber++;
-                requestBody = "{\n" +
-                        "    \"text\" : \"" + CWComment.getText() + "\",\n" +
-                        "    \"detailDescriptionFlag\": " + CWComment.isDescriptionFlag() + ",\n" +
-                        "    \"internalAnalysisFlag\": " + CWComment.isInternalFlag() + ",\n" +
-                        "    \"resolutionFlag\": " + CWComment.isResolutionFlag() +
-                        (CWComment.getCreator() != null ? // Make sure comment creator is not null
-                            ",\n" +
-                            "    \"member\": {\n" +
-                            "        \"identifier\": \"" + CWComment.getCreator() + "\"\n" +
-                            "    }\n" : "\n") +
-                        "}";
+        logger.info("updateComments: Posting {} new comments to ConnectWise - parallelism {}",
+                commentsToPostSize, parallelism);
 
-                try {
-                    JSONObject jsonObject = ConnectWiseAPICall(config, notesURL, "POST", requestBody);
-                    // Add ThirdParty ticket ID to ticket
-                    logger.info("updateComments: POST {}/{} Successful. Updating Comment ID on Symphony",
-                            commentNumber,
-                            commentsToPostSize);
-                    CWComment.setThirdPartyId(jsonObject.getInt("id") + "");
-                } catch (TalAdapterSyncException e) {
-                    anyCommentsFailed = true;
-                    lastException = e;
-                    logger.error("updateComments: Unable to POST comment {}/{} - Symphony ID: {}. HTTP error: {}",
-                            commentNumber,
-                            commentsToPostSize,
-                            CWComment.getSymphonyId(),
-                            e.getHttpStatus() != null ? e.getHttpStatus() : "not specified");
-                }
-            }
-            if (anyCommentsFailed) {
-                logger.error("updateComments: unable to POST comment(s)");
-                if (lastException != null)
-                    throw new TalAdapterSyncException(lastException.getMessage() == null? "" : "");
-            } else {
-                logger.info("updateComments: Finished POSTing comments");
+        Map<ConnectWiseComment, TalAdapterSyncException> failures = new LinkedHashMap<>();
+        if (parallelism <= 1) {
+            int commentNumber = 0;
+            for (ConnectWiseComment CWComment : orderedComments) {
+                commentNumber++;
+                TalAdapterSyncException failure = postComment(config, notesURL, CWComment, commentNumber, commentsToPostSize);
+                if (failure != null)
+                    failures.put(CWComment, failure);
             }
         } else {
-            logger.info("updateComments: No comments to POST");
+            CompletionService<TalAdapterSyncException> completionService = new ExecutorCompletionService<>(getWriteExecutor());
+            Map<Future<TalAdapterSyncException>, ConnectWiseComment> inFlight = new HashMap<>();
+            int commentNumber = 0;
+            try {
+                for (ConnectWiseComment CWComment : orderedComments) {
+                    if (inFlight.size() >= parallelism)
+                        collectPostResult(completionService.take(), inFlight, failures);
+                    int number = ++commentNumber;
+                    inFlight.put(completionService.submit(SyncTrace.wrap(
+                            () -> postComment(config, notesURL, CWComment, number, commentsToPostSize))), CWComment);
+                }
+                while (!inFlight.isEmpty())
+                    collectPostResult(completionService.take(), inFlight, failures);
+            } catch (InterruptedException e) {
+                inFlight.keySet().forEach(future -> future.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new TalAdapterSyncException("Interrupted while posting comments", e);
+            }
+        }
+
+        if (failures.isEmpty()) {
+            logger.info("updateComments: Finished POSTing comments");
+            return;
+        }
+
+        // Aggregate every failure into a single error. It is only recoverable if every failure is recoverable
+        RecoverableStatusPolicy policy = getRecoverableStatusPolicy(config);
+        HttpStatus status = null;
+        boolean allRecoverable = true;
+        StringBuilder failedIds = new StringBuilder();
+        for (Map.Entry<ConnectWiseComment, TalAdapterSyncException> failure : failures.entrySet()) {
+            HttpStatus failureStatus = failure.getValue().getHttpStatus();
+            boolean recoverable = policy.isRecoverable(failureStatus);
+            if (allRecoverable && (!recoverable || status == null))
+                status = failureStatus;
+            allRecoverable &= recoverable;
+
+            if (failedIds.length() > 0)
+                failedIds.append(", ");
+            failedIds.append(failure.getKey().getSymphonyId());
+        }
+        logger.error("updateComments: unable to POST {}/{} comment(s)", failures.size(), commentsToPostSize);
+        throw new TalAdapterSyncException("Unable to POST " + failures.size() + "/" + commentsToPostSize +
+                " comment(s) - Symphony IDs: " + failedIds, status);
+    }
+
+    /**
+     * Posts a single new comment to ConnectWise and sets its ConnectWise ID
+     *
+     * @param notesURL URL of the ticket's notes
+     * @param CWComment comment to be created
+     * @return the error that made the POST fail. Null if the POST succeeded
+     */
+    private TalAdapterSyncException postComment(TicketSystemConfig config, String notesURL, ConnectWiseComment CWComment,
+                                                int commentNumber, int commentsToPostSize) {
+        byte[] requestBody = ConnectWiseRequestCodec.encode(ConnectWiseRequestCodec.NoteRequest.of(CWComment));
+
+        try {
+            JSONObject jsonObject = ConnectWiseAPICall(config, notesURL, "POST", requestBody);
+            if (jsonObject == null)
+                throw new TalAdapterSyncException("Unable to read ID of new comment from ConnectWise response");
+            // Add ThirdParty ticket ID to ticket
+            logger.info("updateComments: POST {}/{} Successful. Updating Comment ID on Symphony",
+                    commentNumber,
+                    commentsToPostSize);
+            CWComment.setThirdPartyId(jsonObject.getInt("id") + "");
+            return null;
+        } catch (TalAdapterSyncException e) {
+            logger.error("updateComments: Unable to POST comment {}/{} - Symphony ID: {}. HTTP error: {}",
+                    commentNumber,
+                    commentsToPostSize,
+                    CWComment.getSymphonyId(),
+                    e.getHttpStatus() != null ? e.getHttpStatus() : "not specified");
+            return e;
+        } catch (RuntimeException e) {
+            logger.error("updateComments: Unable to POST comment {}/{} - Symphony ID: {}. {}",
+                    commentNumber,
+                    commentsToPostSize,
+                    CWComment.getSymphonyId(),
+                    e.getMessage());
+            return new TalAdapterSyncException(e.getMessage(), e);
         }
     }
 
+    /**
+     * Records the result of a finished comment POST
+     *
+     * @param future finished POST
+     * @param inFlight POSTs in flight, the finished POST is removed from it
+     * @param failures failed POSTs, the finished POST is added to it if it failed
+     */
+    private void collectPostResult(Future<TalAdapterSyncException> future,
+                                   Map<Future<TalAdapterSyncException>, ConnectWiseComment> inFlight,
+                                   Map<ConnectWiseComment, TalAdapterSyncException> failures) throws InterruptedException {
+        ConnectWiseComment CWComment = inFlight.remove(future);
+        TalAdapterSyncException failure;
+        try {
+            failure = future.get();
+        } catch (ExecutionException e) {
+            failure = new TalAdapterSyncException(e.getCause().getMessage(), e.getCause());
+        }
+        if (failure != null)
+            failures.put(CWComment, failure);
+    }
+
     /**
      * Posts description comment in ConnectWise using the ticket's url
      *
@@ -577,25 +1271,16 @@ public class ConnectWiseClient {
 
         String description = "New Symphony ticket: No description found";
         if (CWTicket.getDescription() != null) description = CWTicket.getDescription().getText();
-        String requestBody = "{\n" +
-                "    \"text\" : \"" + description + "\",\n" +
-                "    \"detailDescriptionFlag\": true,\n" + // It's the description
-                "    \"internalAnalysisFlag\": false,\n" +
-                "    \"resolutionFlag\": false" +
-                (CWTicket.getRequester() != null ? // make sure ticket requester is not null
-                    ",\n" +
-                    "    \"member\": {\n" +
-                    "        \"identifier\": \"" + CWTicket.getRequester() + "\"\n" +
-                    "    }\n"
-                    : "\n") +
-                "}";
+        // It's the description
+        byte[] requestBody = ConnectWiseRequestCodec.encode(new ConnectWiseRequestCodec.NoteRequest(
+                description, true, false, false, CWTicket.getRequester()));
 
         try {
             logger.info("Attempting to POST ticket description");
             String url = CWTicket.getUrl() +
                     config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.URL_PATTERN_TO_GET_COMMENTS);
             JSONObject newDescription = ConnectWiseAPICall(config, url, "POST", requestBody);
-            CWTicket.AddJSONDescription(newDescription);
+            CWTicket.AddJSONDescription(newDescription, StringPool.forConfig(config));
         } catch (TalAdapterSyncException e) {
             logger.error("postDescription: Error posting description comment. Code {} - {}",
                     e.getHttpStatus() == null ? "not specified" : e.getHttpStatus(),
@@ -604,6 +1289,39 @@ public class ConnectWiseClient {
         }
     }
 
+    /**
+     * Gets the maximum number of comment POST requests in flight for a single ticket
+     *
+     * @return configured parallelism, at least 1
+     */
+    private int getNotePostParallelism(TicketSystemConfig config) {
+        String parallelism = config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.NOTE_POST_PARALLELISM);
+        if (parallelism == null)
+            return 1;
+        try {
+            return Math.max(1, Integer.parseInt(parallelism.trim()));
+        } catch (NumberFormatException e) {
+            logger.warn("getNotePostParallelism: invalid note POST parallelism {} - posting comments one at a time", parallelism);
+            return 1;
+        }
+    }
+
+    /**
+     * Gets the executor that runs concurrent write requests, creating it on first use
+     *
+     * @return write executor
+     */
+    public ExecutorService getWriteExecutor() {
+        executorLock.lock();
+        try {
+            if (writeExecutor == null)
+                writeExecutor = Executors.newCachedThreadPool(SyncThreads.newThreadFactory("connectwise-write-"));
+            return writeExecutor;
+        } finally {
+            executorLock.unlock();
+        }
+    }
+
     /**
      * Gets Basic authentication header for ConnectWise API in Base64
      *
@@ -626,14 +1344,79 @@ public class ConnectWiseClient {
         return "Basic " + Base64.getEncoder().encodeToString(temp.getBytes());
     }
 
+    /**
+     * Releases the threads used for parallel requests.
+     * Called by Spring when the application context is closed.
+     */
+    public void shutdown() {
+        executorLock.lock();
+        try {
+            if (writeExecutor != null) {
+                writeExecutor.shutdown();
+                writeExecutor = null;
+            }
+        } finally {
+            executorLock.unlock();
+        }
+    }
+
+    /**
+     * Priority ID with the time it stops being valid
+     */
+    private static final class CachedPriorityID {
+        private final String id;
+        private final long expiresAt;
+
+        private CachedPriorityID(String id, long expiresAt) {
+            this.id = id;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+
     //* ----------------------------- GETTERS / SETTERS ----------------------------- *//
 
+    public CreationJournal getCreationJournal() {
+        return creationJournal;
+    }
+
+    public void setCreationJournal(CreationJournal creationJournal) {
+        this.creationJournal = creationJournal;
+    }
+
+    public WriteOutbox getWriteOutbox() {
+        return writeOutbox;
+    }
+
+    public void setWriteOutbox(WriteOutbox writeOutbox) {
+        this.writeOutbox = writeOutbox;
+    }
+
+    /**
+     * Gets the recoverable HTTP statuses of a customer
+     *
+     * @param config customer config
+     * @return the customer's override if configured, otherwise the policy shared by every customer
+     */
+    public RecoverableStatusPolicy getRecoverableStatusPolicy(TicketSystemConfig config) {
+        RecoverableStatusPolicy policy = RecoverableStatusPolicy.forConfig(config);
+        return policy != RecoverableStatusPolicy.DEFAULT ? policy : recoverableStatusPolicy;
+    }
+
+    public RecoverableStatusPolicy getRecoverableStatusPolicy() {
+        return recoverableStatusPolicy;
+    }
+
+    public void setRecoverableStatusPolicy(RecoverableStatusPolicy recoverableStatusPolicy) {
+        this.recoverableStatusPolicy = recoverableStatusPolicy;
+    }
+
     public List<Integer> getRecoverableHttpStatus() {
-        return RecoverableHttpStatus;
+        return recoverableStatusPolicy.toList();
     }
 
     public void setRecoverableHttpStatus(List<Integer> recoverableHttpStatus) {
-        RecoverableHttpStatus = recoverableHttpStatus;
+        recoverableStatusPolicy = RecoverableStatusPolicy.of(recoverableHttpStatus);
     }
 
 }
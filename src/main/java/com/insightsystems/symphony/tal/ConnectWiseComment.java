@@ -1,5 +1,8 @@
 package com.insightsystems.symphony.tal;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
 /**
  * Representation of ConnectWise comment for TAL adapter
  *
@@ -25,9 +28,15 @@ public class ConnectWiseComment {
     private String creator;
 
     /**
-     * Comment content
+     * Comment content in UTF-8, about half the size of a String for the mostly ASCII texts of notes.
+     * Only decoded when the text itself is needed, since comments are mostly compared
+     */
+    private byte[] text;
+
+    /**
+     * Fingerprint of the comment content, used to detect changed texts without comparing full texts
      */
-    private String text;
+    private int textHash;
 
     /**
      * Date comment was last modified
@@ -35,19 +44,29 @@ public class ConnectWiseComment {
     private long lastModified;
 
     /**
-     * true if this comment is a discussion comment
+     * Description, internal, resolution and sync failure flags
+     */
+    private byte flags;
+
+    /**
+     * Flag set if this comment is a discussion comment
      */
-    private boolean descriptionFlag;
+    private static final byte DESCRIPTION_FLAG = 1;
 
     /**
-     * true if this comment is an internal comment
+     * Flag set if this comment is an internal comment
      */
-    private boolean internalFlag;
+    private static final byte INTERNAL_FLAG = 1 << 1;
 
     /**
-     * true if this comment is marked as resolution
+     * Flag set if this comment is marked as resolution
      */
-    private boolean resolutionFlag;
+    private static final byte RESOLUTION_FLAG = 1 << 2;
+
+    /**
+     * Flag set if this comment's text could not be written to ConnectWise during the current sync
+     */
+    private static final byte SYNC_FAILED_FLAG = 1 << 3;
 
 
     //* ----------------------------- METHODS ----------------------------- *//
@@ -76,6 +95,23 @@ public class ConnectWiseComment {
         setResolutionFlag(resolutionFlag);
     }
 
+    /**
+     * ConnectWiseComment constructor using a ConnectWise note
+     *
+     * @param note ConnectWise note, with its ID
+     * @param pool pool of the customer's company, sharing creator values between comments
+     */
+    public ConnectWiseComment(ConnectWiseDto.Note note, StringPool pool) {
+        this(null,
+                note.getId().toString(),
+                pool.canonicalize(ConnectWiseSchema.NOTE_CREATED_BY.count(note.getCreatedBy())),
+                ConnectWiseSchema.NOTE_TEXT.count(note.getText()),
+                lastModified(ConnectWiseSchema.NOTE_DATE_CREATED.count(note.getDateCreated())),
+                Boolean.TRUE.equals(ConnectWiseSchema.NOTE_DESCRIPTION_FLAG.count(note.getDetailDescriptionFlag())),
+                Boolean.TRUE.equals(ConnectWiseSchema.NOTE_INTERNAL_FLAG.count(note.getInternalAnalysisFlag())),
+                Boolean.TRUE.equals(ConnectWiseSchema.NOTE_RESOLUTION_FLAG.count(note.getResolutionFlag())));
+    }
+
     /**
      * ConnectWiseComment constructor.
      *
@@ -97,6 +133,31 @@ public class ConnectWiseComment {
     }
 
 
+    /**
+     * Copies this comment. The text is shared, since it is never modified in place
+     *
+     * @return the copy
+     */
+    public ConnectWiseComment copy() {
+        ConnectWiseComment copy = new ConnectWiseComment(getSymphonyId(), getThirdPartyId(), getCreator(), null,
+                getLastModified());
+        copy.setTextBytes(text);
+        copy.flags = flags;
+        return copy;
+    }
+
+
+    //* ----------------------------- HELPER METHODS ----------------------------- *//
+
+    /**
+     * @param dateCreated ConnectWise timestamp. May be null
+     * @return epoch milliseconds of dateCreated, 0 if null
+     */
+    private static long lastModified(String dateCreated) {
+        return dateCreated == null ? 0L : ConnectWiseDateParser.parseEpochMillis(dateCreated);
+    }
+
+
     //* ----------------------------- GETTERS / SETTERS ----------------------------- *//
 
     public String getSymphonyId() {
@@ -123,12 +184,56 @@ public class ConnectWiseComment {
         this.creator = creator;
     }
 
+    /**
+     * @return comment content, decoded on every call
+     */
     public String getText() {
-        return text;
+        return text == null ? null : new String(text, StandardCharsets.UTF_8);
     }
 
     public void setText(String text) {
+        setTextBytes(text == null ? null : text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return comment content in UTF-8. Shared with this comment, so it must not be modified
+     */
+    byte[] getTextBytes() {
+        return text;
+    }
+
+    private void setTextBytes(byte[] text) {
         this.text = text;
+        this.textHash = text == null ? 0 : Arrays.hashCode(text);
+    }
+
+    public int getTextHash() {
+        return textHash;
+    }
+
+    /**
+     * Checks if this comment has the same text as another comment.
+     * Text fingerprints are compared first so that full texts are only compared when fingerprints match.
+     *
+     * @param other comment to compare to
+     * @return true if both texts are equal
+     */
+    public boolean hasSameText(ConnectWiseComment other) {
+        if (textHash != other.textHash)
+            return false;
+        return Arrays.equals(text, other.text);
+    }
+
+    /**
+     * Checks if this comment has a given text, without decoding this comment's text
+     *
+     * @param other text to compare to
+     * @return true if both texts are equal
+     */
+    public boolean hasText(String other) {
+        if (other == null || text == null)
+            return other == null && text == null;
+        return Arrays.equals(text, other.getBytes(StandardCharsets.UTF_8));
     }
 
     public long getLastModified() {
@@ -140,27 +245,35 @@ public class ConnectWiseComment {
     }
 
     public boolean isDescriptionFlag() {
-        return descriptionFlag;
+        return (flags & DESCRIPTION_FLAG) != 0;
     }
 
     public void setDescriptionFlag(boolean descriptionFlag) {
-        this.descriptionFlag = descriptionFlag;
+        flags = (byte) (descriptionFlag ? flags | DESCRIPTION_FLAG : flags & ~DESCRIPTION_FLAG);
     }
 
     public boolean isInternalFlag() {
-        return internalFlag;
+        return (flags & INTERNAL_FLAG) != 0;
     }
 
     public void setInternalFlag(boolean internalFlag) {
-        this.internalFlag = internalFlag;
+        flags = (byte) (internalFlag ? flags | INTERNAL_FLAG : flags & ~INTERNAL_FLAG);
     }
 
     public boolean isResolutionFlag() {
-        return resolutionFlag;
+        return (flags & RESOLUTION_FLAG) != 0;
     }
 
     public void setResolutionFlag(boolean resolutionFlag) {
-        this.resolutionFlag = resolutionFlag;
+        flags = (byte) (resolutionFlag ? flags | RESOLUTION_FLAG : flags & ~RESOLUTION_FLAG);
+    }
+
+    public boolean isSyncFailed() {
+        return (flags & SYNC_FAILED_FLAG) != 0;
+    }
+
+    public void setSyncFailed(boolean syncFailed) {
+        flags = (byte) (syncFailed ? flags | SYNC_FAILED_FLAG : flags & ~SYNC_FAILED_FLAG);
     }
 
     public String toString() {
@@ -0,0 +1,190 @@
+package com.insightsystems.symphony.tal;
+
+import java.time.format.DateTimeParseException;
+
+/**
+ * Parses the ISO timestamps of ConnectWise responses, e.g. "2024-01-01T10:00:00Z", straight to epoch milliseconds.
+ * Unlike a DateTimeFormatter followed by LocalDateTime and ZonedDateTime, parsing allocates nothing, and the zone
+ * of the timestamp is honoured instead of being replaced by the system default zone.
+ * <p>
+ * Accepted format: {@code yyyy-MM-dd'T'H:m:s}, optionally followed by a fraction of second and a zone: "Z", or an
+ * offset such as "+02:00", "+0200" or "+02". Timestamps without zone are read as UTC, which is what ConnectWise
+ * returns. Stateless, so safe to share across threads.
+ *
+ * @since 5.8
+ */
+public final class ConnectWiseDateParser {
+    //* ----------------------------- VARIABLES ----------------------------- *//
+
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    /**
+     * Days from 0000-03-01 to 1970-01-01
+     */
+    private static final long DAYS_0000_TO_1970 = 719_468L;
+
+    /**
+     * Longest accepted timestamp, with a nanosecond fraction and a full offset
+     */
+    private static final int MAX_LENGTH = 35;
+
+
+    //* ----------------------------- METHODS ----------------------------- *//
+
+    private ConnectWiseDateParser() {
+    }
+
+    /**
+     * Parses a ConnectWise timestamp
+     *
+     * @param text timestamp, e.g. "2024-01-01T10:00:00Z"
+     * @return milliseconds since the epoch
+     * @throws DateTimeParseException if text is not a valid ConnectWise timestamp
+     */
+    public static long parseEpochMillis(CharSequence text) {
+        if (text == null)
+            throw new DateTimeParseException("ConnectWise timestamp cannot be null", "", 0);
+        int length = text.length();
+        if (length > MAX_LENGTH)
+            throw error(text, 0);
+
+        // Date: yyyy-MM-dd
+        int year = fixedDigits(text, 0, 4);
+        expect(text, 4, '-');
+        int month = fixedDigits(text, 5, 2);
+        expect(text, 7, '-');
+        int day = fixedDigits(text, 8, 2);
+        expect(text, 10, 'T');
+        if (month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month))
+            throw error(text, 5);
+
+        // Time: H:m:s, each with one or two digits
+        int packed = digits(text, 11);
+        int hour = packed >>> 8;
+        int index = packed & 0xFF;
+        expect(text, index++, ':');
+        packed = digits(text, index);
+        int minute = packed >>> 8;
+        index = packed & 0xFF;
+        expect(text, index++, ':');
+        packed = digits(text, index);
+        int second = packed >>> 8;
+        index = packed & 0xFF;
+        if (hour > 23 || minute > 59 || second > 59)
+            throw error(text, 11);
+
+        // Optional fraction, truncated to milliseconds
+        int millis = 0;
+        if (index < length && text.charAt(index) == '.') {
+            int start = ++index;
+            int scale = 100;
+            while (index < length && isDigit(text.charAt(index))) {
+                millis += (text.charAt(index) - '0') * scale;
+                scale /= 10;
+                index++;
+            }
+            if (index == start)
+                throw error(text, index);
+        }
+
+        // Optional zone
+        int offsetSeconds = 0;
+        if (index < length) {
+            char zone = text.charAt(index);
+            if (zone == 'Z' || zone == 'z') {
+                index++;
+            } else if (zone == '+' || zone == '-') {
+                int offsetHours = fixedDigits(text, index + 1, 2);
+                index += 3;
+                int offsetMinutes = 0;
+                if (index < length) {
+                    if (text.charAt(index) == ':')
+                        index++;
+                    offsetMinutes = fixedDigits(text, index, 2);
+                    index += 2;
+                }
+                if (offsetHours > 18 || offsetMinutes > 59)
+                    throw error(text, index);
+                offsetSeconds = (offsetHours * 3600 + offsetMinutes * 60) * (zone == '-' ? -1 : 1);
+            }
+            if (index != length)
+                throw error(text, index);
+        }
+
+        return epochDay(year, month, day) * MILLIS_PER_DAY +
+                ((hour * 3600L + minute * 60L + second - offsetSeconds) * 1000L) + millis;
+    }
+
+
+    //* ----------------------------- HELPER METHODS ----------------------------- *//
+
+    /**
+     * Parses exactly count digits
+     */
+    private static int fixedDigits(CharSequence text, int start, int count) {
+        if (start + count > text.length())
+            throw error(text, start);
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = text.charAt(i);
+            if (!isDigit(c))
+                throw error(text, i);
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Parses one or two digits
+     *
+     * @return the value shifted left by 8 bits, with the index after the last digit in the low 8 bits
+     */
+    private static int digits(CharSequence text, int start) {
+        if (start >= text.length() || !isDigit(text.charAt(start)))
+            throw error(text, start);
+        int value = text.charAt(start) - '0';
+        int end = start + 1;
+        if (end < text.length() && isDigit(text.charAt(end)))
+            value = value * 10 + (text.charAt(end++) - '0');
+        return (value << 8) | end;
+    }
+
+    private static void expect(CharSequence text, int index, char expected) {
+        if (index >= text.length() || text.charAt(index) != expected)
+            throw error(text, index);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * Days since 1970-01-01 of a date of the proleptic Gregorian calendar
+     */
+    private static long epochDay(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097 + dayOfEra - DAYS_0000_TO_1970;
+    }
+
+    private static DateTimeParseException error(CharSequence text, int index) {
+        return new DateTimeParseException("Invalid ConnectWise timestamp: " + text, text, index);
+    }
+}
@@ -0,0 +1,243 @@
+package com.insightsystems.symphony.tal;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Typed ConnectWise API records, bound from response bodies by {@link ConnectWiseResponseCodec}.
+ * Only the fields the adapter reads are declared, other fields are skipped while binding.
+ * Every field is nullable: ConnectWise leaves out fields without value.
+ *
+ * @since 5.8
+ */
+public final class ConnectWiseDto {
+
+    private ConnectWiseDto() {
+    }
+
+    /**
+     * Service ticket
+     */
+    public static final class Ticket {
+        private Integer id;
+        private String summary;
+        private Status status;
+        private Priority priority;
+        private Member owner;
+        private Info info;
+
+        public Integer getId() {
+            return id;
+        }
+
+        public void setId(Integer id) {
+            this.id = id;
+        }
+
+        public String getSummary() {
+            return summary;
+        }
+
+        public void setSummary(String summary) {
+            this.summary = summary;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public void setStatus(Status status) {
+            this.status = status;
+        }
+
+        public Priority getPriority() {
+            return priority;
+        }
+
+        public void setPriority(Priority priority) {
+            this.priority = priority;
+        }
+
+        public Member getOwner() {
+            return owner;
+        }
+
+        public void setOwner(Member owner) {
+            this.owner = owner;
+        }
+
+        @JsonProperty("_info")
+        public Info getInfo() {
+            return info;
+        }
+
+        @JsonProperty("_info")
+        public void setInfo(Info info) {
+            this.info = info;
+        }
+    }
+
+    /**
+     * Note of a service ticket
+     */
+    public static final class Note {
+        private Integer id;
+        private String dateCreated;
+        private String createdBy;
+        private String text;
+        private Boolean detailDescriptionFlag;
+        private Boolean internalAnalysisFlag;
+        private Boolean resolutionFlag;
+
+        public Integer getId() {
+            return id;
+        }
+
+        public void setId(Integer id) {
+            this.id = id;
+        }
+
+        public String getDateCreated() {
+            return dateCreated;
+        }
+
+        public void setDateCreated(String dateCreated) {
+            this.dateCreated = dateCreated;
+        }
+
+        public String getCreatedBy() {
+            return createdBy;
+        }
+
+        public void setCreatedBy(String createdBy) {
+            this.createdBy = createdBy;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public void setText(String text) {
+            this.text = text;
+        }
+
+        public Boolean getDetailDescriptionFlag() {
+            return detailDescriptionFlag;
+        }
+
+        public void setDetailDescriptionFlag(Boolean detailDescriptionFlag) {
+            this.detailDescriptionFlag = detailDescriptionFlag;
+        }
+
+        public Boolean getInternalAnalysisFlag() {
+            return internalAnalysisFlag;
+        }
+
+        public void setInternalAnalysisFlag(Boolean internalAnalysisFlag) {
+            this.internalAnalysisFlag = internalAnalysisFlag;
+        }
+
+        public Boolean getResolutionFlag() {
+            return resolutionFlag;
+        }
+
+        public void setResolutionFlag(Boolean resolutionFlag) {
+            this.resolutionFlag = resolutionFlag;
+        }
+    }
+
+    /**
+     * Service priority, or the priority reference of a ticket
+     */
+    public static final class Priority {
+        private Integer id;
+        private String name;
+
+        public Integer getId() {
+            return id;
+        }
+
+        public void setId(Integer id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * Board status, or the status reference of a ticket
+     */
+    public static final class Status {
+        private Integer id;
+        private String name;
+
+        public Integer getId() {
+            return id;
+        }
+
+        public void setId(Integer id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * Member reference, e.g. the owner of a ticket
+     */
+    public static final class Member {
+        private Integer id;
+        private String identifier;
+        private String name;
+
+        public Integer getId() {
+            return id;
+        }
+
+        public void setId(Integer id) {
+            this.id = id;
+        }
+
+        public String getIdentifier() {
+            return identifier;
+        }
+
+        public void setIdentifier(String identifier) {
+            this.identifier = identifier;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * Record metadata
+     */
+    public static final class Info {
+        private String lastUpdated;
+
+        public String getLastUpdated() {
+            return lastUpdated;
+        }
+
+        public void setLastUpdated(String lastUpdated) {
+            this.lastUpdated = lastUpdated;
+        }
+    }
+}
@@ -0,0 +1,570 @@
+package com.insightsystems.symphony.tal;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.avispl.symphony.api.tal.dto.TicketSystemConfig;
+
+/**
+ * In-process metrics of the ConnectWise API calls and sync phases, per tenant.
+ * Recording only increments striped counters, so that it can stay on the request path of every sync thread.
+ * Metrics are read with {@link #snapshot()}, or over JMX once {@link #register()} was called.
+ * <p>
+ * API calls are grouped by endpoint: the HTTP method and the URL path, with numeric IDs replaced by "{id}",
+ * e.g. "GET /v4_6_release/apis/3.0/service/tickets/{id}/allNotes". Tenants are identified by their ConnectWise
+ * company ID.
+ *
+ * @since 5.8
+ */
+public final class ConnectWiseMetrics implements ConnectWiseMetricsMXBean {
+    //* ----------------------------- VARIABLES ----------------------------- *//
+
+    /**
+     * JMX name of the shared registry
+     */
+    public static final String OBJECT_NAME = "com.insightsystems.symphony.tal:type=ConnectWiseMetrics";
+
+    /**
+     * Tenant of calls made without a company ID
+     */
+    public static final String UNKNOWN_TENANT = "unknown";
+
+    /**
+     * Logger instance
+     */
+    private static final Logger logger = LoggerFactory.getLogger(ConnectWiseMetrics.class);
+
+    /**
+     * Registry shared by every client and adapter of the process
+     */
+    private static final ConnectWiseMetrics instance = new ConnectWiseMetrics();
+
+    /**
+     * Upper bounds, in milliseconds, of the latency histogram buckets. Slower calls go to an overflow bucket
+     */
+    private static final long[] BUCKET_BOUNDS_MILLIS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000};
+
+    /**
+     * API call counters by tenant and endpoint
+     */
+    private final Map<String, EndpointCounters> endpoints = new ConcurrentHashMap<>();
+
+    /**
+     * Sync phase timers by tenant and phase
+     */
+    private final Map<String, PhaseCounters> phases = new ConcurrentHashMap<>();
+
+    /**
+     * Replayed writes by tenant
+     */
+    private final Map<String, LongAdder> retries = new ConcurrentHashMap<>();
+
+    /**
+     * Phases of a ticket sync
+     */
+    public enum Phase {
+        /** Mapping between Symphony and ConnectWise tickets */
+        MAP,
+        /** Retrieval of the ConnectWise ticket */
+        GET,
+        /** Comparison of the Symphony and ConnectWise tickets */
+        DIFF,
+        /** Ticket field update */
+        PATCH,
+        /** Note updates and creations */
+        COMMENTS;
+
+        @Override
+        public String toString() {
+            return name().toLowerCase();
+        }
+    }
+
+
+    //* ----------------------------- METHODS ----------------------------- *//
+
+    /**
+     * @return registry shared by every client and adapter of the process
+     */
+    public static ConnectWiseMetrics getInstance() {
+        return instance;
+    }
+
+    /**
+     * @param config customer config. May be null
+     * @return tenant the metrics of config are recorded under
+     */
+    public static String tenantOf(TicketSystemConfig config) {
+        if (config == null || config.getTicketSourceConfig() == null)
+            return UNKNOWN_TENANT;
+        String companyId = config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.COMPANY_ID);
+        return companyId == null ? UNKNOWN_TENANT : companyId;
+    }
+
+    /**
+     * Records a ConnectWise API call
+     *
+     * @param tenant tenant of the call
+     * @param method HTTP method
+     * @param url request URL
+     * @param status HTTP status of the response. 0 if no response was received
+     * @param nanos duration of the call
+     * @param bytesSent request body size
+     * @param bytesReceived response body size
+     */
+    public void recordCall(String tenant, String method, String url, int status, long nanos, long bytesSent,
+                           long bytesReceived) {
+        String endpoint = endpointOf(method, url);
+        EndpointCounters counters = endpoints.computeIfAbsent(tenant + '\n' + endpoint,
+                k -> new EndpointCounters(tenant, endpoint));
+        counters.latency.record(nanos);
+        counters.statusCodes.computeIfAbsent(status == 0 ? "none" : Integer.toString(status), k -> new LongAdder())
+                .increment();
+        if (status < 200 || status >= 300)
+            counters.failures.increment();
+        counters.bytesSent.add(bytesSent);
+        counters.bytesReceived.add(bytesReceived);
+    }
+
+    /**
+     * Records a write sent again after a recoverable failure
+     *
+     * @param tenant tenant of the write
+     */
+    public void recordRetry(String tenant) {
+        retries.computeIfAbsent(tenant, k -> new LongAdder()).increment();
+    }
+
+    /**
+     * Records the duration of a sync phase
+     *
+     * @param tenant tenant of the synced ticket
+     * @param phase sync phase
+     * @param nanos duration of the phase
+     */
+    public void recordPhase(String tenant, Phase phase, long nanos) {
+        phases.computeIfAbsent(tenant + '\n' + phase, k -> new PhaseCounters(tenant, phase)).latency.record(nanos);
+    }
+
+    /**
+     * Wraps a planned request, so that its duration is recorded as a sync phase, and traced as a span of the phase
+     *
+     * @param config customer config of the synced ticket
+     * @param phase sync phase the request belongs to
+     * @param action sends the request
+     * @return action, timed
+     */
+    public SyncPlan.Action timed(TicketSystemConfig config, Phase phase, SyncPlan.Action action) {
+        String tenant = tenantOf(config);
+        return () -> {
+            long start = System.nanoTime();
+            try (SyncTrace.Span span = SyncTrace.startSpan(phase.toString())) {
+                try {
+                    action.run();
+                } catch (RuntimeException e) {
+                    span.setError(e);
+                    throw e;
+                }
+            } finally {
+                recordPhase(tenant, phase, System.nanoTime() - start);
+            }
+        };
+    }
+
+    /**
+     * @return current value of every metric
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(getEndpoints(), getPhases(), getRetries(), getMissingFields());
+    }
+
+    @Override
+    public List<EndpointStats> getEndpoints() {
+        List<EndpointStats> stats = new ArrayList<>(endpoints.size());
+        for (EndpointCounters counters : endpoints.values())
+            stats.add(counters.toStats());
+        stats.sort((a, b) -> a.getTenant().equals(b.getTenant()) ?
+                a.getEndpoint().compareTo(b.getEndpoint()) : a.getTenant().compareTo(b.getTenant()));
+        return stats;
+    }
+
+    @Override
+    public List<PhaseStats> getPhases() {
+        List<PhaseStats> stats = new ArrayList<>(phases.size());
+        for (PhaseCounters counters : phases.values())
+            stats.add(new PhaseStats(counters.tenant, counters.phase.toString(), counters.latency.toStats()));
+        stats.sort((a, b) -> a.getTenant().equals(b.getTenant()) ?
+                a.getPhase().compareTo(b.getPhase()) : a.getTenant().compareTo(b.getTenant()));
+        return stats;
+    }
+
+    @Override
+    public Map<String, Long> getRetries() {
+        Map<String, Long> counts = new TreeMap<>();
+        retries.forEach((tenant, count) -> counts.put(tenant, count.sum()));
+        return counts;
+    }
+
+    @Override
+    public Map<String, Long> getMissingFields() {
+        return ConnectWiseSchema.missingFieldCounts();
+    }
+
+    @Override
+    public void reset() {
+        endpoints.clear();
+        phases.clear();
+        retries.clear();
+    }
+
+    /**
+     * Registers this registry on the platform MBean server, unless already registered
+     */
+    public void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name))
+                server.registerMBean(this, name);
+        } catch (JMException e) {
+            logger.warn("register: unable to expose metrics over JMX - {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Removes this registry from the platform MBean server
+     */
+    public void unregister() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name))
+                server.unregisterMBean(name);
+        } catch (JMException e) {
+            logger.warn("unregister: unable to remove metrics from JMX - {}", e.getMessage());
+        }
+    }
+
+
+    //* ----------------------------- HELPER METHODS ----------------------------- *//
+
+    /**
+     * @return method and URL path, with numeric path segments replaced by "{id}"
+     */
+    static String endpointOf(String method, String url) {
+        if (url == null)
+            return method;
+        int start = url.indexOf("://");
+        start = start < 0 ? 0 : url.indexOf('/', start + 3);
+        if (start < 0)
+            return method + " /";
+        int end = url.indexOf('?', start);
+        if (end < 0)
+            end = url.length();
+
+        StringBuilder endpoint = new StringBuilder(method.length() + end - start + 1).append(method).append(' ');
+        int segmentStart = start;
+        while (segmentStart < end) {
+            int segmentEnd = url.indexOf('/', segmentStart + 1);
+            if (segmentEnd < 0 || segmentEnd > end)
+                segmentEnd = end;
+            if (isNumeric(url, segmentStart + 1, segmentEnd))
+                endpoint.append("/{id}");
+            else
+                endpoint.append(url, segmentStart, segmentEnd);
+            segmentStart = segmentEnd;
+        }
+        return endpoint.toString();
+    }
+
+    private static boolean isNumeric(String value, int start, int end) {
+        if (start >= end)
+            return false;
+        for (int i = start; i < end; i++) {
+            if (value.charAt(i) < '0' || value.charAt(i) > '9')
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Latency histogram with fixed buckets
+     */
+    private static final class Histogram {
+        private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS_MILLIS.length + 1];
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        private Histogram() {
+            for (int i = 0; i < buckets.length; i++)
+                buckets[i] = new LongAdder();
+        }
+
+        private void record(long nanos) {
+            long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+            int bucket = 0;
+            while (bucket < BUCKET_BOUNDS_MILLIS.length && millis > BUCKET_BOUNDS_MILLIS[bucket])
+                bucket++;
+            buckets[bucket].increment();
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        private LatencyStats toStats() {
+            long[] counts = new long[buckets.length];
+            long total = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                counts[i] = buckets[i].sum();
+                total += counts[i];
+            }
+            long maxMillis = TimeUnit.NANOSECONDS.toMillis(maxNanos.get());
+            return new LatencyStats(total, TimeUnit.NANOSECONDS.toMillis(totalNanos.sum()), maxMillis,
+                    percentile(counts, total, 0.50, maxMillis),
+                    percentile(counts, total, 0.95, maxMillis),
+                    percentile(counts, total, 0.99, maxMillis));
+        }
+
+        /**
+         * @return upper bound of the bucket the quantile falls in, capped by the slowest call
+         */
+        private static long percentile(long[] counts, long total, double quantile, long maxMillis) {
+            if (total == 0)
+                return 0;
+            long rank = (long) Math.ceil(quantile * total);
+            long seen = 0;
+            for (int i = 0; i < BUCKET_BOUNDS_MILLIS.length; i++) {
+                seen += counts[i];
+                if (seen >= rank)
+                    return Math.min(BUCKET_BOUNDS_MILLIS[i], maxMillis);
+            }
+            return maxMillis;
+        }
+    }
+
+    private static final class EndpointCounters {
+        private final String tenant;
+        private final String endpoint;
+        private final Histogram latency = new Histogram();
+        private final Map<String, LongAdder> statusCodes = new ConcurrentHashMap<>();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder bytesSent = new LongAdder();
+        private final LongAdder bytesReceived = new LongAdder();
+
+        private EndpointCounters(String tenant, String endpoint) {
+            this.tenant = tenant;
+            this.endpoint = endpoint;
+        }
+
+        private EndpointStats toStats() {
+            Map<String, Long> codes = new TreeMap<>();
+            statusCodes.forEach((code, count) -> codes.put(code, count.sum()));
+            return new EndpointStats(tenant, endpoint, codes, failures.sum(), bytesSent.sum(), bytesReceived.sum(),
+                    latency.toStats());
+        }
+    }
+
+    private static final class PhaseCounters {
+        private final String tenant;
+        private final Phase phase;
+        private final Histogram latency = new Histogram();
+
+        private PhaseCounters(String tenant, Phase phase) {
+            this.tenant = tenant;
+            this.phase = phase;
+        }
+    }
+
+    /**
+     * Latency distribution, in milliseconds. Percentiles are the upper bound of their histogram bucket
+     */
+    public static final class LatencyStats {
+        private final long count;
+        private final long totalMillis;
+        private final long maxMillis;
+        private final long p50Millis;
+        private final long p95Millis;
+        private final long p99Millis;
+
+        private LatencyStats(long count, long totalMillis, long maxMillis, long p50Millis, long p95Millis,
+                             long p99Millis) {
+            this.count = count;
+            this.totalMillis = totalMillis;
+            this.maxMillis = maxMillis;
+            this.p50Millis = p50Millis;
+            this.p95Millis = p95Millis;
+            this.p99Millis = p99Millis;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getTotalMillis() {
+            return totalMillis;
+        }
+
+        public long getMaxMillis() {
+            return maxMillis;
+        }
+
+        public long getP50Millis() {
+            return p50Millis;
+        }
+
+        public long getP95Millis() {
+            return p95Millis;
+        }
+
+        public long getP99Millis() {
+            return p99Millis;
+        }
+    }
+
+    /**
+     * API calls of a tenant to an endpoint
+     */
+    public static final class EndpointStats {
+        private final String tenant;
+        private final String endpoint;
+        private final Map<String, Long> statusCodes;
+        private final long failures;
+        private final long bytesSent;
+        private final long bytesReceived;
+        private final LatencyStats latency;
+
+        private EndpointStats(String tenant, String endpoint, Map<String, Long> statusCodes, long failures,
+                              long bytesSent, long bytesReceived, LatencyStats latency) {
+            this.tenant = tenant;
+            this.endpoint = endpoint;
+            this.statusCodes = Collections.unmodifiableMap(statusCodes);
+            this.failures = failures;
+            this.bytesSent = bytesSent;
+            this.bytesReceived = bytesReceived;
+            this.latency = latency;
+        }
+
+        public String getTenant() {
+            return tenant;
+        }
+
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        /**
+         * @return number of calls by HTTP status, "none" for calls without response
+         */
+        public Map<String, Long> getStatusCodes() {
+            return statusCodes;
+        }
+
+        /**
+         * @return number of calls without a 2xx response
+         */
+        public long getFailures() {
+            return failures;
+        }
+
+        public long getBytesSent() {
+            return bytesSent;
+        }
+
+        public long getBytesReceived() {
+            return bytesReceived;
+        }
+
+        public LatencyStats getLatency() {
+            return latency;
+        }
+    }
+
+    /**
+     * Durations of a sync phase of a tenant
+     */
+    public static final class PhaseStats {
+        private final String tenant;
+        private final String phase;
+        private final LatencyStats latency;
+
+        private PhaseStats(String tenant, String phase, LatencyStats latency) {
+            this.tenant = tenant;
+            this.phase = phase;
+            this.latency = latency;
+        }
+
+        public String getTenant() {
+            return tenant;
+        }
+
+        public String getPhase() {
+            return phase;
+        }
+
+        public LatencyStats getLatency() {
+            return latency;
+        }
+    }
+
+    /**
+     * Value of every metric at a point in time
+     */
+    public static final class Snapshot {
+        private final List<EndpointStats> endpoints;
+        private final List<PhaseStats> phases;
+        private final Map<String, Long> retries;
+        private final Map<String, Long> missingFields;
+
+        private Snapshot(List<EndpointStats> endpoints, List<PhaseStats> phases, Map<String, Long> retries,
+                         Map<String, Long> missingFields) {
+            this.endpoints = Collections.unmodifiableList(endpoints);
+            this.phases = Collections.unmodifiableList(phases);
+            this.retries = Collections.unmodifiableMap(retries);
+            this.missingFields = Collections.unmodifiableMap(missingFields);
+        }
+
+        /**
+         * @return API calls by tenant and endpoint
+         */
+        public List<EndpointStats> getEndpoints() {
+            return endpoints;
+        }
+
+        /**
+         * @return sync phase durations by tenant and phase
+         */
+        public List<PhaseStats> getPhases() {
+            return phases;
+        }
+
+        /**
+         * @return replayed writes by tenant
+         */
+        public Map<String, Long> getRetries() {
+            return retries;
+        }
+
+        /**
+         * @return number of responses each field was missing from, see {@link ConnectWiseSchema#missingFieldCounts()}
+         */
+        public Map<String, Long> getMissingFields() {
+            return missingFields;
+        }
+    }
+}
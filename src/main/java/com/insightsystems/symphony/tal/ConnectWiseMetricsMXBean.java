@@ -0,0 +1,37 @@
+package com.insightsystems.symphony.tal;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JMX view of {@link ConnectWiseMetrics}, registered as {@value ConnectWiseMetrics#OBJECT_NAME}
+ *
+ * @since 5.8
+ */
+public interface ConnectWiseMetricsMXBean {
+
+    /**
+     * @return API calls by tenant and endpoint
+     */
+    List<ConnectWiseMetrics.EndpointStats> getEndpoints();
+
+    /**
+     * @return sync phase durations by tenant and phase
+     */
+    List<ConnectWiseMetrics.PhaseStats> getPhases();
+
+    /**
+     * @return replayed writes by tenant
+     */
+    Map<String, Long> getRetries();
+
+    /**
+     * @return number of responses each ConnectWise field was missing from
+     */
+    Map<String, Long> getMissingFields();
+
+    /**
+     * Clears every API call, phase and retry metric
+     */
+    void reset();
+}
@@ -0,0 +1,189 @@
+package com.insightsystems.symphony.tal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+
+/**
+ * Serializes the bodies of ConnectWise POST requests.
+ * Bodies are written by a shared JsonFactory straight to UTF-8 bytes: they are compact, every text is escaped, and
+ * the factory's recycled buffers are reused from one request to the next. The bytes are published to the
+ * HttpClient as they are.
+ * <p>
+ * PATCH bodies are serialized by {@link PatchOperation#toJson(java.util.List)}.
+ *
+ * @since 5.8
+ */
+public final class ConnectWiseRequestCodec {
+    //* ----------------------------- VARIABLES ----------------------------- *//
+
+    /**
+     * Shared, thread-safe factory used to create JSON generators
+     */
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+
+    //* ----------------------------- METHODS ----------------------------- *//
+
+    private ConnectWiseRequestCodec() {
+    }
+
+    /**
+     * Serializes a new ticket
+     *
+     * @param request ticket to create
+     * @return UTF-8 JSON body
+     */
+    public static byte[] encode(TicketRequest request) {
+        return write(generator -> {
+            generator.writeStartObject();
+            generator.writeStringField("summary", request.summary);
+            if (request.boardId != null)
+                writeReference(generator, "board", "id", request.boardId);
+            writeReference(generator, "company", "id", request.companyId);
+            if (request.status != null)
+                writeReference(generator, "status", "name", request.status);
+            if (request.owner != null)
+                writeReference(generator, "owner", "identifier", request.owner);
+            if (request.priorityId != null)
+                writeReference(generator, "priority", "id", request.priorityId);
+            generator.writeEndObject();
+        });
+    }
+
+    /**
+     * Serializes a new note
+     *
+     * @param request note to create
+     * @return UTF-8 JSON body
+     */
+    public static byte[] encode(NoteRequest request) {
+        return write(generator -> {
+            generator.writeStartObject();
+            generator.writeStringField("text", request.text);
+            generator.writeBooleanField("detailDescriptionFlag", request.descriptionFlag);
+            generator.writeBooleanField("internalAnalysisFlag", request.internalFlag);
+            generator.writeBooleanField("resolutionFlag", request.resolutionFlag);
+            if (request.member != null)
+                writeReference(generator, "member", "identifier", request.member);
+            generator.writeEndObject();
+        });
+    }
+
+
+    //* ----------------------------- HELPER METHODS ----------------------------- *//
+
+    @FunctionalInterface
+    private interface Writer {
+        void write(JsonGenerator generator) throws IOException;
+    }
+
+    private static byte[] write(Writer writer) {
+        ByteArrayBuilder buffer = new ByteArrayBuilder(jsonFactory._getBufferRecycler());
+        try {
+            try (JsonGenerator generator = jsonFactory.createGenerator(buffer, JsonEncoding.UTF8)) {
+                writer.write(generator);
+            }
+            return buffer.toByteArray();
+        } catch (IOException e) {
+            // ByteArrayBuilder does not perform I/O
+            throw new UncheckedIOException(e);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    /**
+     * Writes a reference to another ConnectWise record, e.g. "board": {"id": 1}.
+     * IDs taken from the config are written as numbers when they are numeric, and as texts otherwise
+     */
+    private static void writeReference(JsonGenerator generator, String name, String key, String value) throws IOException {
+        generator.writeObjectFieldStart(name);
+        generator.writeFieldName(key);
+        if (key.equals("id") && isNumber(value))
+            generator.writeNumber(value);
+        else
+            generator.writeString(value);
+        generator.writeEndObject();
+    }
+
+    private static boolean isNumber(String value) {
+        if (value == null || value.isEmpty())
+            return false;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) < '0' || value.charAt(i) > '9')
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Body of a ticket creation
+     */
+    public static final class TicketRequest {
+        private final String summary;
+        private final String boardId;
+        private final String companyId;
+        private final String status;
+        private final String owner;
+        private final String priorityId;
+
+        /**
+         * @param summary ticket summary
+         * @param boardId ConnectWise board ID. Null to use the default board
+         * @param companyId ConnectWise company record ID
+         * @param status status name. May be null
+         * @param owner owner member identifier. May be null
+         * @param priorityId ConnectWise priority ID. May be null
+         */
+        public TicketRequest(String summary, String boardId, String companyId, String status, String owner,
+                             String priorityId) {
+            this.summary = summary;
+            this.boardId = boardId;
+            this.companyId = companyId;
+            this.status = status;
+            this.owner = owner;
+            this.priorityId = priorityId;
+        }
+    }
+
+    /**
+     * Body of a note creation
+     */
+    public static final class NoteRequest {
+        private final String text;
+        private final boolean descriptionFlag;
+        private final boolean internalFlag;
+        private final boolean resolutionFlag;
+        private final String member;
+
+        /**
+         * @param text note text
+         * @param descriptionFlag true if the note is a description
+         * @param internalFlag true if the note is internal
+         * @param resolutionFlag true if the note is a resolution
+         * @param member creator member identifier. May be null
+         */
+        public NoteRequest(String text, boolean descriptionFlag, boolean internalFlag, boolean resolutionFlag,
+                           String member) {
+            this.text = text;
+            this.descriptionFlag = descriptionFlag;
+            this.internalFlag = internalFlag;
+            this.resolutionFlag = resolutionFlag;
+            this.member = member;
+        }
+
+        /**
+         * @param CWComment comment to create
+         * @return the body creating the comment
+         */
+        public static NoteRequest of(ConnectWiseComment CWComment) {
+            return new NoteRequest(CWComment.getText(), CWComment.isDescriptionFlag(), CWComment.isInternalFlag(),
+                    CWComment.isResolutionFlag(), CWComment.getCreator());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.insightsystems.symphony.tal;
+
+import java.io.IOException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+
+/**
+ * Binds ConnectWise response bodies to {@link ConnectWiseDto} records.
+ * Bodies are bound straight to the records, without building generic JSON trees first. The shared mapper uses the
+ * Blackbird module, which replaces reflective setter calls with generated accessors, and every reader is built and
+ * warmed up once when the class is loaded, so that the first sync does not pay for deserializer construction.
+ *
+ * @since 5.8
+ */
+public final class ConnectWiseResponseCodec {
+    //* ----------------------------- VARIABLES ----------------------------- *//
+
+    /**
+     * Logger instance
+     */
+    private static final Logger logger = LoggerFactory.getLogger(ConnectWiseResponseCodec.class);
+
+    /**
+     * Shared, thread-safe mapper. Unknown fields are skipped, since ConnectWise records have many more fields
+     * than the adapter reads
+     */
+    private static final ObjectMapper mapper = JsonMapper.builder()
+            .addModule(new BlackbirdModule())
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    public static final ObjectReader TICKET = warmUp(mapper.readerFor(ConnectWiseDto.Ticket.class), "{}");
+    public static final ObjectReader TICKETS = warmUp(mapper.readerFor(ConnectWiseDto.Ticket[].class), "[{}]");
+    public static final ObjectReader NOTES = warmUp(mapper.readerFor(ConnectWiseDto.Note[].class), "[{}]");
+    public static final ObjectReader PRIORITIES = warmUp(mapper.readerFor(ConnectWiseDto.Priority[].class), "[{}]");
+
+
+    //* ----------------------------- METHODS ----------------------------- *//
+
+    private ConnectWiseResponseCodec() {
+    }
+
+    /**
+     * Binds a response body
+     *
+     * @param reader reader of the expected record type, e.g. {@link #TICKET}
+     * @param body response body
+     * @param url request URL, for logging
+     * @param <T> record type
+     * @return the bound record, or null if body is empty or does not match the expected type
+     */
+    public static <T> T read(ObjectReader reader, String body, String url) {
+        if (body == null || body.isEmpty())
+            return null;
+        try {
+            return reader.readValue(body);
+        } catch (IOException e) {
+            logger.error("read: error binding response of {} - {}", url, e.getMessage());
+            return null;
+        }
+    }
+
+
+    //* ----------------------------- HELPER METHODS ----------------------------- *//
+
+    /**
+     * Binds a sample body once, so that the reader's deserializers are built before the first response
+     */
+    private static ObjectReader warmUp(ObjectReader reader, String sample) {
+        try {
+            reader.readValue(sample);
+        } catch (IOException e) {
+            logger.warn("warmUp: unable to warm up reader - {}", e.getMessage());
+        }
+        return reader;
+    }
+}
@@ -0,0 +1,184 @@
+package com.insightsystems.symphony.tal;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.json.JSONObject;
+
+/**
+ * Fields read from ConnectWise ticket and note responses.
+ * Fields are read with optional access: a missing field, or a field of an unexpected type, is returned as null or
+ * as the field's default and counted, instead of throwing and logging. Decoding therefore costs the same whatever
+ * the shape of the data, and the counters tell which fields ConnectWise does not return.
+ * Fields bound to {@link ConnectWiseDto} records are counted with {@link Field#count(Object)}.
+ *
+ * @since 5.8
+ */
+public final class ConnectWiseSchema {
+    //* ----------------------------- VARIABLES ----------------------------- *//
+
+    public static final Field TICKET_ID = new Field("ticket", "id");
+    public static final Field TICKET_SUMMARY = new Field("ticket", "summary");
+    public static final Field TICKET_STATUS = new Field("ticket", "status", "name");
+    public static final Field TICKET_PRIORITY = new Field("ticket", "priority", "name");
+    public static final Field TICKET_OWNER = new Field("ticket", "owner", "identifier");
+    public static final Field TICKET_LAST_UPDATED = new Field("ticket", "_info", "lastUpdated");
+
+    public static final Field NOTE_ID = new Field("note", "id");
+    public static final Field NOTE_DATE_CREATED = new Field("note", "dateCreated");
+    public static final Field NOTE_CREATED_BY = new Field("note", "createdBy");
+    public static final Field NOTE_TEXT = new Field("note", "text");
+    public static final Field NOTE_DESCRIPTION_FLAG = new Field("note", "detailDescriptionFlag");
+    public static final Field NOTE_INTERNAL_FLAG = new Field("note", "internalAnalysisFlag");
+    public static final Field NOTE_RESOLUTION_FLAG = new Field("note", "resolutionFlag");
+
+    /**
+     * Every field, in declaration order
+     */
+    private static final List<Field> FIELDS = List.of(TICKET_ID, TICKET_SUMMARY, TICKET_STATUS, TICKET_PRIORITY,
+            TICKET_OWNER, TICKET_LAST_UPDATED, NOTE_ID, NOTE_DATE_CREATED, NOTE_CREATED_BY, NOTE_TEXT,
+            NOTE_DESCRIPTION_FLAG, NOTE_INTERNAL_FLAG, NOTE_RESOLUTION_FLAG);
+
+
+    //* ----------------------------- METHODS ----------------------------- *//
+
+    private ConnectWiseSchema() {
+    }
+
+    /**
+     * @return number of responses each field was missing from, by field name, e.g. "ticket.owner.identifier"
+     */
+    public static Map<String, Long> missingFieldCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Field field : FIELDS)
+            counts.put(field.getName(), field.getMissingCount());
+        return counts;
+    }
+
+    /**
+     * A field of a ConnectWise response, possibly nested in objects
+     */
+    public static final class Field {
+        private final String name;
+        private final String[] path;
+        private final LongAdder missing = new LongAdder();
+
+        private Field(String entity, String... path) {
+            this.name = entity + "." + String.join(".", path);
+            this.path = path;
+        }
+
+        /**
+         * Reads a text field
+         *
+         * @param object ConnectWise response
+         * @return the value, or null if missing or not a text
+         */
+        public String getString(JSONObject object) {
+            Object value = value(object);
+            if (value instanceof String)
+                return (String) value;
+            return missing();
+        }
+
+        /**
+         * Reads a numeric ID
+         *
+         * @param object ConnectWise response
+         * @return the ID as text, or null if missing or not an integer
+         */
+        public String getId(JSONObject object) {
+            Object value = value(object);
+            if (value instanceof Integer || value instanceof Long)
+                return value.toString();
+            if (value instanceof Number)
+                return Integer.toString(((Number) value).intValue());
+            if (value instanceof String && isInteger((String) value))
+                return Integer.toString(Integer.parseInt((String) value));
+            return missing();
+        }
+
+        /**
+         * Reads a flag
+         *
+         * @param object ConnectWise response
+         * @param defaultValue value if the flag is missing
+         * @return the flag
+         */
+        public boolean getBoolean(JSONObject object, boolean defaultValue) {
+            Object value = value(object);
+            if (value instanceof Boolean)
+                return (Boolean) value;
+            if ("true".equalsIgnoreCase(String.valueOf(value)))
+                return true;
+            if ("false".equalsIgnoreCase(String.valueOf(value)))
+                return false;
+            missing();
+            return defaultValue;
+        }
+
+        /**
+         * Counts a value bound to a {@link ConnectWiseDto} record
+         *
+         * @param value bound value
+         * @param <T> value type
+         * @return value, counted as missing if null
+         */
+        public <T> T count(T value) {
+            if (value == null)
+                missing.increment();
+            return value;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return number of responses this field was missing from
+         */
+        public long getMissingCount() {
+            return missing.sum();
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+
+        /**
+         * @return the value at the end of the path, or null if any part of the path is missing
+         */
+        private Object value(JSONObject object) {
+            Object value = object;
+            for (String key : path) {
+                if (!(value instanceof JSONObject))
+                    return null;
+                value = ((JSONObject) value).opt(key);
+            }
+            return value == JSONObject.NULL ? null : value;
+        }
+
+        private String missing() {
+            missing.increment();
+            return null;
+        }
+
+        private static boolean isInteger(String value) {
+            int length = value.length();
+            if (length == 0 || length > 10)
+                return false;
+            int start = value.charAt(0) == '-' ? 1 : 0;
+            if (start == length)
+                return false;
+            for (int i = start; i < length; i++) {
+                if (value.charAt(i) < '0' || value.charAt(i) > '9')
+                    return false;
+            }
+            // 10 digits may still overflow an int
+            return length < 10 || Long.parseLong(value) <= Integer.MAX_VALUE;
+        }
+    }
+}
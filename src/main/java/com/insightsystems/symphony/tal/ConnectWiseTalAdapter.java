@@ -4,13 +4,22 @@
 
 package com.insightsystems.symphony.tal;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
 
 import com.avispl.symphony.api.common.error.InvalidArgumentException;
 import com.avispl.symphony.api.tal.TalAdapter;
 import com.avispl.symphony.api.tal.dto.*;
 import com.avispl.symphony.api.tal.error.TalNotRecoverableException;
 import com.avispl.symphony.api.tal.error.TalRecoverableException;
+import com.avispl.symphony.api.tal.error.TalTicketException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -27,6 +36,38 @@ import com.avispl.symphony.api.tal.error.TalAdapterSyncException;
 public class ConnectWiseTalAdapter implements TalAdapter {
     public static final String ADAPTER_NAME = "ConnectWise";
 
+    /**
+     * Default number of tickets of a batch that are synced in parallel on platform threads
+     */
+    public static final int DEFAULT_BATCH_PARALLELISM = 8;
+
+    /**
+     * Default number of tickets of a batch that are synced in parallel on virtual threads.
+     * Only used when {@link SyncThreads#isVirtual()}, platform threads use {@link #DEFAULT_BATCH_PARALLELISM}
+     */
+    public static final int DEFAULT_VIRTUAL_BATCH_PARALLELISM = 1024;
+
+    /**
+     * System property with the port of the ConnectWise callback endpoint. Callbacks are not received if missing
+     */
+    public static final String CALLBACK_PORT_PROPERTY = "connectwise.callbackPort";
+
+    /**
+     * System property with the shared secret of the callback endpoint. A random secret is used if missing
+     */
+    public static final String CALLBACK_TOKEN_PROPERTY = "connectwise.callbackToken";
+
+    /**
+     * System property with the journal file of deferred writes. Failed writes are not deferred if missing, and fail
+     * the sync instead
+     */
+    public static final String OUTBOX_FILE_PROPERTY = "connectwise.outboxFile";
+
+    /**
+     * System property with the journal file of incomplete ticket creations. Checkpoints are only kept in memory if missing
+     */
+    public static final String CREATION_JOURNAL_FILE_PROPERTY = "connectwise.creationJournalFile";
+
     /**
      * Logger instance
      */
@@ -47,6 +88,72 @@ public class ConnectWiseTalAdapter implements TalAdapter {
      */
     private TicketServiceImpl ticketService;
 
+    /**
+     * Maximum number of tickets of a batch that are synced in parallel
+     */
+    private final int batchParallelism;
+
+    /**
+     * Executor for the tickets of a batch. Created on first use
+     */
+    private ExecutorService batchExecutor;
+
+    /**
+     * Guards batchExecutor
+     */
+    private final ReentrantLock executorLock = new ReentrantLock();
+
+    /**
+     * Serializes syncs of the same ticket
+     */
+    private final TicketLocks ticketLocks = new TicketLocks();
+
+    /**
+     * ConnectWise IDs assigned by recent syncs, for updates sent before Symphony stored them
+     */
+    private final SyncedIds syncedIds = new SyncedIds();
+
+    /**
+     * Merges rapid successive updates of the same ticket when a coalescing window is configured
+     */
+    private final CoalescingSyncQueue coalescingQueue = new CoalescingSyncQueue();
+
+    /**
+     * Pushes tickets changed in ConnectWise to Symphony through talProxy
+     */
+    private final ConnectWiseChangePoller changePoller;
+
+    /**
+     * Receives ConnectWise callbacks, which drop cached tickets. Only started if a callback port is set
+     */
+    private ConnectWiseCallbackServer callbackServer;
+
+    /**
+     * Shared secret ConnectWise callbacks are sent with
+     */
+    private String callbackToken;
+
+    /**
+     * Customers whose callback was registered, or attempted, since the callback server started
+     */
+    private final Set<String> callbackCustomers = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Writes that failed with a recoverable error, replayed in the background. Only created by {@link #init()}
+     * if an outbox journal file is set
+     */
+    private WriteOutbox writeOutbox;
+
+    /**
+     * Journal file of incomplete ticket creations. Only opened by {@link #init()} if a journal file is set
+     */
+    private CreationJournal creationJournal;
+
+    /**
+     * Registry sync phases are recorded in, exposed over JMX by {@link #init()}
+     */
+    private final ConnectWiseMetrics metrics = ConnectWiseMetrics.getInstance();
+
     /**
      * Account identifier - have to be provided to 3rd party adapter implementors by Symphony team
      */
@@ -65,9 +172,40 @@ public class ConnectWiseTalAdapter implements TalAdapter {
     public ConnectWiseTalAdapter(TalConfigService talConfigService,
         TalProxy talProxy,
         TicketServiceImpl ticketService) {
+        this(talConfigService, talProxy, ticketService,
+                SyncThreads.isVirtual() ? DEFAULT_VIRTUAL_BATCH_PARALLELISM : DEFAULT_BATCH_PARALLELISM);
+    }
+
+    /**
+     * Constructor with the parallelism of batch syncs
+     *
+     * @param talConfigService Dependency injection for a {@link TalConfigService}
+     * @param talProxy Dependency injection for a {@link TalProxy}
+     * @param batchParallelism maximum number of tickets of a batch that are synced in parallel
+     */
+    public ConnectWiseTalAdapter(TalConfigService talConfigService,
+        TalProxy talProxy,
+        TicketServiceImpl ticketService,
+        int batchParallelism) {
+        if (batchParallelism < 1)
+            throw new InvalidArgumentException("batchParallelism must be at least 1");
         this.talConfigService = talConfigService;
         this.talProxy = talProxy;
         this.ticketService = ticketService;
+        this.batchParallelism = batchParallelism;
+        this.changePoller = new ConnectWiseChangePoller(talConfigService, talProxy, ticketService, ticketLocks);
+    }
+
+    /**
+     * Called by Symphony when the adapter is ready to sync tickets
+     */
+    @Override
+    public void init() {
+        changePoller.start();
+        startWriteOutbox();
+        openCreationJournal();
+        startCallbackServer();
+        metrics.register();
     }
 
     /**
@@ -75,8 +213,31 @@ public class ConnectWiseTalAdapter implements TalAdapter {
      */
     @Override
     public void destroy() {
-        // destroy any persistent resources
-        // such as thread pools or persistent connections
+        changePoller.stop();
+        metrics.unregister();
+        if (callbackServer != null) {
+            callbackServer.stop();
+            callbackServer = null;
+            callbackCustomers.clear();
+        }
+        if (writeOutbox != null) {
+            writeOutbox.stop();
+            ticketService.setWriteOutbox(null);
+            writeOutbox = null;
+        }
+        if (creationJournal != null) {
+            creationJournal.close();
+            creationJournal = null;
+        }
+        executorLock.lock();
+        try {
+            if (batchExecutor != null) {
+                batchExecutor.shutdown();
+                batchExecutor = null;
+            }
+        } finally {
+            executorLock.unlock();
+        }
     }
 
     /**
@@ -88,109 +249,516 @@ public class ConnectWiseTalAdapter implements TalAdapter {
      */
     @Override
     public TalTicket syncTalTicket(TalTicket talTicket) throws TalAdapterSyncException {
-        try {
-            if (talTicket == null)
-                throw new InvalidArgumentException("talTicket cannot be null");
+        try (SyncTrace trace = SyncTrace.start("syncTalTicket")) {
+            TicketSystemConfig config = null;
+            try {
+                if (talTicket == null)
+                    throw new InvalidArgumentException("talTicket cannot be null");
+                trace.getRoot()
+                        .setAttribute("symphony.ticket.id", talTicket.getSymphonyId())
+                        .setAttribute("symphony.customer.id", talTicket.getCustomerId());
 
-            if (talTicket.getCustomerId() == null) {
-                throw new TalAdapterSyncException("talTicket's customer ID cannot be null");
-            }
-            TicketSystemConfig config = talConfigService.retrieveTicketSystemConfig(UUID.fromString(talTicket.getCustomerId()));
-
-            // Confirm that credentials have been set up
-            if (config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.CLIENT_ID) == null ||
-                    config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.PUBLIC_KEY) == null ||
-                    config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.PRIVATE_KEY) == null ||
-                    config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.COMPANY_ID) == null) {
-                String errorMessage = "ConnectWise API Credentials missing:";
-                if (config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.CLIENT_ID) == null)
-                    errorMessage += " clientID";
-                if (config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.PUBLIC_KEY) == null)
-                    errorMessage += " Public key";
-                if (config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.PRIVATE_KEY) == null)
-                    errorMessage += " Private key";
-                if (config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.COMPANY_ID) == null)
-                    errorMessage += " Company ID";
-                logger.error("syncTalTicket: " + errorMessage);
-                throw new TalAdapterSyncException(errorMessage);
-            }
+                config = retrieveConfig(talTicket.getCustomerId());
+                TicketSystemConfig customerConfig = config;
 
-            // Warnings
-            if (config.getTicketSourceConfig().get(TicketSourceConfigProperty.URL) == null) {
-                logger.warn("syncTalTicket: URL not setup on Config");
+                // Hold bursts of updates of the same ticket and sync only their latest state
+                long coalescingWindow = getCoalescingWindow(config);
+                if (coalescingWindow > 0 && talTicket.getSymphonyId() != null)
+                    return coalescingQueue.submit(talTicket, coalescingWindow,
+                            latest -> syncMappedTicket(latest, mapTicket(latest, customerConfig), customerConfig, null));
+
+                return syncMappedTicket(talTicket, mapTicket(talTicket, config), config, null);
+            } catch (Exception e) {
+                trace.getRoot().setError(e);
+                throw toTalTicketException(e, talTicket, config);
             }
-            if (config.getTicketSourceConfig().get(TicketSourceConfigProperty.API_PATH) == null) {
-                logger.warn("syncTalTicket: API_PATH not setup on Config");
+        }
+    }
+
+    /**
+     * Syncs several tickets at once.
+     * Tickets are grouped by customer, so that each customer's config is retrieved once and its ConnectWise
+     * tickets are retrieved with batched requests. Tickets are then synced in parallel.
+     *
+     * @param talTickets tickets that contain updated data
+     * @return one result per ticket, in the same order as talTickets. A failed sync does not affect the other tickets
+     */
+    public List<TicketSyncResult> syncTalTickets(Collection<TalTicket> talTickets) {
+        if (talTickets == null)
+            throw new InvalidArgumentException("talTickets cannot be null");
+
+        try (SyncTrace trace = SyncTrace.start("syncTalTickets")) {
+            trace.getRoot().setAttribute("ticket.count", talTickets.size());
+            return syncTracedTickets(talTickets);
+        }
+    }
+
+    /**
+     * Syncs several tickets at once, in the trace of the batch
+     *
+     * @param talTickets tickets that contain updated data
+     * @return one result per ticket, in the same order as talTickets
+     */
+    private List<TicketSyncResult> syncTracedTickets(Collection<TalTicket> talTickets) {
+        List<TalTicket> tickets = new ArrayList<>(talTickets);
+        TicketSyncResult[] results = new TicketSyncResult[tickets.size()];
+
+        // Group tickets by customer
+        Map<String, List<Integer>> indexesByCustomer = new LinkedHashMap<>();
+        for (int i = 0; i < tickets.size(); i++) {
+            TalTicket talTicket = tickets.get(i);
+            if (talTicket == null || talTicket.getCustomerId() == null) {
+                results[i] = TicketSyncResult.failure(toTalTicketException(talTicket == null ?
+                        new InvalidArgumentException("talTicket cannot be null") :
+                        new TalAdapterSyncException("talTicket's customer ID cannot be null"), talTicket, null));
+            } else {
+                indexesByCustomer.computeIfAbsent(talTicket.getCustomerId(), k -> new ArrayList<>()).add(i);
             }
-            if (config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.URL_PATTERN_TO_GET_TICKET) == null) {
-                logger.warn("syncTalTicket: URL Pattern to get Ticket not setup on Config");
+        }
+
+        Map<Integer, Future<TicketSyncResult>> futures = new LinkedHashMap<>();
+        Map<String, TicketSystemConfig> configsByCustomer = new HashMap<>();
+        for (Map.Entry<String, List<Integer>> customer : indexesByCustomer.entrySet()) {
+            TicketSystemConfig config;
+            try {
+                config = retrieveConfig(customer.getKey());
+            } catch (Exception e) {
+                for (int i : customer.getValue())
+                    results[i] = TicketSyncResult.failure(toTalTicketException(e, tickets.get(i), null));
+                continue;
             }
-            if (config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.URL_PATTERN_TO_GET_COMMENTS) == null) {
-                logger.warn("syncTalTicket: URL Pattern to get Comments not setup on Config");
+            configsByCustomer.put(customer.getKey(), config);
+
+            // Map every ticket first, so that their ConnectWise tickets can be retrieved in batches
+            Map<Integer, ConnectWiseTicket> CWTickets = new LinkedHashMap<>();
+            for (int i : customer.getValue()) {
+                try {
+                    CWTickets.put(i, mapTicket(tickets.get(i), config));
+                } catch (Exception e) {
+                    results[i] = TicketSyncResult.failure(toTalTicketException(e, tickets.get(i), config));
+                }
             }
-            if (config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.COMPANY_REC_ID) == null) {
-                logger.warn("syncTalTicket: Company recID not setup on Config");
+            Map<String, ConnectWiseTicket> prefetchedCWTickets;
+            try (SyncTrace.Span span = SyncTrace.startSpan("prefetch")) {
+                span.setAttribute("ticket.count", CWTickets.size());
+                prefetchedCWTickets = ticketService.prefetchCWTickets(config, CWTickets.values());
             }
+            // Removed once used, so that a ConnectWise ticket is never shared by two syncs
+            Map<String, ConnectWiseTicket> unusedCWTickets = prefetchedCWTickets == null ?
+                    new HashMap<>() : new HashMap<>(prefetchedCWTickets);
 
-            // Initialize components
-            ConnectWiseTicket CWTicket = null;
+            for (Map.Entry<Integer, ConnectWiseTicket> entry : CWTickets.entrySet()) {
+                TalTicket talTicket = tickets.get(entry.getKey());
+                ConnectWiseTicket CWTicket = entry.getValue();
+                ConnectWiseTicket prefetchedCWTicket = CWTicket.getId() == null ? null : unusedCWTickets.remove(CWTicket.getId());
+                futures.put(entry.getKey(), getBatchExecutor().submit(SyncTrace.wrap(() -> {
+                    try (SyncTrace.Span span = SyncTrace.startSpan("ticket")) {
+                        span.setAttribute("symphony.ticket.id", talTicket.getSymphonyId());
+                        try {
+                            return TicketSyncResult.success(syncMappedTicket(talTicket, CWTicket, config, prefetchedCWTicket));
+                        } catch (Exception e) {
+                            span.setError(e);
+                            return TicketSyncResult.failure(toTalTicketException(e, talTicket, config));
+                        }
+                    }
+                })));
+            }
+        }
 
-            // map status, priorities, users to comply with 3rd party ticketing system
+        boolean interrupted = false;
+        for (Map.Entry<Integer, Future<TicketSyncResult>> future : futures.entrySet()) {
+            TalTicket talTicket = tickets.get(future.getKey());
+            if (interrupted) {
+                future.getValue().cancel(true);
+                results[future.getKey()] = TicketSyncResult.failure(new TalRecoverableException(
+                        new TalAdapterSyncException("Batch sync interrupted"), talTicket));
+                continue;
+            }
             try {
-                CWTicket = TicketMapper.mapSymphonyToThirdParty(talTicket, config);
-            } catch (Exception e) {
-                logger.error("syncTalTicket: error mapping Ticket info to CW equivalent");
-                throw new TalAdapterSyncException(e.getMessage(), e);
+                results[future.getKey()] = future.getValue().get();
+            } catch (InterruptedException e) {
+                interrupted = true;
+                future.getValue().cancel(true);
+                results[future.getKey()] = TicketSyncResult.failure(new TalRecoverableException(
+                        new TalAdapterSyncException("Batch sync interrupted", e), talTicket));
+            } catch (ExecutionException e) {
+                results[future.getKey()] = TicketSyncResult.failure(toTalTicketException(e, talTicket,
+                        configsByCustomer.get(talTicket.getCustomerId())));
             }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
 
-            // 1. make call to ConnectWise and get live ticket data
-            ConnectWiseTicket refreshedCWTicket = ticketService.getCWTicket(config, CWTicket);
+        logger.info("syncTalTickets: synchronization of {} ticket(s) complete", tickets.size());
+        return Arrays.asList(results);
+    }
+
+
+    //* ----------------------------- HELPER METHODS ----------------------------- *//
+
+    /**
+     * Creates the outbox of deferred writes, loading the writes still pending from its journal, and starts replaying them.
+     * Without a journal that can be opened, no outbox is created and failed writes fail their sync, so that Symphony
+     * retries it
+     */
+    private void startWriteOutbox() {
+        String journal = System.getProperty(OUTBOX_FILE_PROPERTY);
+        if (journal == null || journal.isBlank())
+            return;
+        try {
+            writeOutbox = new WriteOutbox(Paths.get(journal));
+        } catch (IOException | RuntimeException e) {
+            logger.error("startWriteOutbox: unable to open outbox journal {} - failed writes are not deferred. {}",
+                    journal, e.getMessage());
+            return;
+        }
+        ticketService.setWriteOutbox(writeOutbox);
+        writeOutbox.start(this::replayWrite);
+    }
+
+    /**
+     * Opens the journal file of incomplete ticket creations, if one is set, so that creations interrupted by a
+     * restart are resumed as well. Without it, checkpoints are kept in memory
+     */
+    private void openCreationJournal() {
+        String journal = System.getProperty(CREATION_JOURNAL_FILE_PROPERTY);
+        if (journal == null || journal.isBlank())
+            return;
+        try {
+            creationJournal = new CreationJournal(Paths.get(journal));
+            ticketService.setCreationJournal(creationJournal);
+        } catch (IOException | RuntimeException e) {
+            logger.error("openCreationJournal: unable to open creation journal {} - checkpoints are kept in memory. {}",
+                    journal, e.getMessage());
+        }
+    }
+
+    /**
+     * Replays a deferred write while holding the lock of its ticket, so that it never overtakes a sync of the ticket
+     *
+     * @param entry deferred write
+     * @return true if the write is done, false if it must be replayed again later
+     * @throws Exception if the config of the customer cannot be retrieved
+     */
+    private boolean replayWrite(WriteOutbox.Entry entry) throws Exception {
+        TicketSystemConfig config = retrieveConfig(entry.getCustomerId());
+        if (entry.getSymphonyId() == null)
+            return ticketService.replayWrite(config, entry);
+
+        ticketLocks.lock(entry.getSymphonyId());
+        try {
+            return ticketService.replayWrite(config, entry);
+        } finally {
+            ticketLocks.unlock(entry.getSymphonyId());
+        }
+    }
+
+    /**
+     * Starts the callback endpoint if a port is configured. Callbacks are registered by the first sync of each
+     * customer, see {@link #registerCallback}. Failures are logged only: without callbacks, cached tickets simply expire
+     */
+    private void startCallbackServer() {
+        String port = System.getProperty(CALLBACK_PORT_PROPERTY);
+        if (port == null || port.isBlank())
+            return;
+
+        callbackToken = System.getProperty(CALLBACK_TOKEN_PROPERTY);
+        if (callbackToken == null || callbackToken.isBlank())
+            callbackToken = UUID.randomUUID().toString().replace("-", "");
+        try {
+            callbackServer = new ConnectWiseCallbackServer(Integer.parseInt(port.trim()), callbackToken,
+                    event -> ticketService.invalidateCWTicket(event.getCompanyId(), event.getTicketId()));
+            callbackServer.start();
+        } catch (Exception e) {
+            logger.error("startCallbackServer: unable to start callback endpoint - " + e.getMessage());
+            callbackServer = null;
+        }
+    }
+
+    /**
+     * Registers the ConnectWise callback of a customer, once per customer, if the callback server is started and the
+     * customer has a callback URL. Called after a successful sync, so that only customers that sync are registered,
+     * with the config their sync already retrieved. Failures are logged only and not retried
+     *
+     * @param customerId Symphony customer ID
+     * @param config the customer's config
+     */
+    private void registerCallback(String customerId, TicketSystemConfig config) {
+        if (callbackServer == null || customerId == null || !callbackCustomers.add(customerId))
+            return;
+        String callbackURL = config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.CALLBACK_URL);
+        if (callbackURL == null)
+            return;
+        try {
+            ticketService.registerCallback(config,
+                    callbackURL + (callbackURL.contains("?") ? "&" : "?") + "token=" + callbackToken,
+                    ADAPTER_NAME + " " + customerId);
+        } catch (Exception e) {
+            logger.error("registerCallback: unable to register callback of customer {} - {}", customerId, e.getMessage());
+        }
+    }
+
+    /**
+     * Retrieves and validates the config of a customer
+     *
+     * @param customerId Symphony customer ID
+     * @return the customer's config
+     * @throws TalAdapterSyncException if customerId is null or credentials are missing
+     * @throws ExecutionException if the config cannot be retrieved
+     */
+    private TicketSystemConfig retrieveConfig(String customerId) throws TalAdapterSyncException, ExecutionException {
+        if (customerId == null) {
+            throw new TalAdapterSyncException("talTicket's customer ID cannot be null");
+        }
+        TicketSystemConfig config;
+        try (SyncTrace.Span span = SyncTrace.startSpan("config")) {
+            span.setAttribute("symphony.customer.id", customerId);
+            config = talConfigService.retrieveTicketSystemConfig(UUID.fromString(customerId));
+        }
+
+        // Confirm that credentials have been set up
+        if (config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.CLIENT_ID) == null ||
+                config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.PUBLIC_KEY) == null ||
+                config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.PRIVATE_KEY) == null ||
+                config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.COMPANY_ID) == null) {
+            String errorMessage = "ConnectWise API Credentials missing:";
+            if (config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.CLIENT_ID) == null)
+                errorMessage += " clientID";
+            if (config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.PUBLIC_KEY) == null)
+                errorMessage += " Public key";
+            if (config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.PRIVATE_KEY) == null)
+                errorMessage += " Private key";
+            if (config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.COMPANY_ID) == null)
+                errorMessage += " Company ID";
+            logger.error("syncTalTicket: " + errorMessage);
+            throw new TalAdapterSyncException(errorMessage);
+        }
+
+        // Warnings
+        if (config.getTicketSourceConfig().get(TicketSourceConfigProperty.URL) == null) {
+            logger.warn("syncTalTicket: URL not setup on Config");
+        }
+        if (config.getTicketSourceConfig().get(TicketSourceConfigProperty.API_PATH) == null) {
+            logger.warn("syncTalTicket: API_PATH not setup on Config");
+        }
+        if (config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.URL_PATTERN_TO_GET_TICKET) == null) {
+            logger.warn("syncTalTicket: URL Pattern to get Ticket not setup on Config");
+        }
+        if (config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.URL_PATTERN_TO_GET_COMMENTS) == null) {
+            logger.warn("syncTalTicket: URL Pattern to get Comments not setup on Config");
+        }
+        if (config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.COMPANY_REC_ID) == null) {
+            logger.warn("syncTalTicket: Company recID not setup on Config");
+        }
+
+        return config;
+    }
+
+    /**
+     * Gets the time an update waits for newer updates of the same ticket
+     *
+     * @return configured window in milliseconds. 0 if updates are not coalesced
+     */
+    private long getCoalescingWindow(TicketSystemConfig config) {
+        String window = config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.COALESCING_WINDOW_MILLIS);
+        if (window == null)
+            return 0;
+        try {
+            return Math.max(0, Long.parseLong(window.trim()));
+        } catch (NumberFormatException e) {
+            logger.warn("getCoalescingWindow: invalid coalescing window {} - syncing updates right away", window);
+            return 0;
+        }
+    }
+
+    /**
+     * Maps status, priorities, users to comply with 3rd party ticketing system
+     *
+     * @param talTicket ticket from Symphony
+     * @return the ConnectWise equivalent of talTicket
+     * @throws TalAdapterSyncException if mapping fails
+     */
+    private ConnectWiseTicket mapTicket(TalTicket talTicket, TicketSystemConfig config) throws TalAdapterSyncException {
+        long start = System.nanoTime();
+        try (SyncTrace.Span span = SyncTrace.startSpan("map")) {
+            span.setAttribute("map.target", "connectwise");
+            return TicketMapper.mapSymphonyToThirdParty(talTicket, config);
+        } catch (Exception e) {
+            logger.error("syncTalTicket: error mapping Ticket info to CW equivalent");
+            throw new TalAdapterSyncException(e.getMessage(), e);
+        } finally {
+            metrics.recordPhase(ConnectWiseMetrics.tenantOf(config), ConnectWiseMetrics.Phase.MAP,
+                    System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Maps a synced ConnectWise ticket back to Symphony
+     *
+     * @param talTicket ticket from Symphony, updated with the ConnectWise information
+     * @param CWTicket synced ConnectWise ticket
+     */
+    private void mapTicketBack(TalTicket talTicket, ConnectWiseTicket CWTicket, TicketSystemConfig config) {
+        long start = System.nanoTime();
+        try (SyncTrace.Span span = SyncTrace.startSpan("map")) {
+            span.setAttribute("map.target", "symphony");
+            TicketMapper.mapThirdPartyToSymphony(talTicket, CWTicket, config);
+        } finally {
+            metrics.recordPhase(ConnectWiseMetrics.tenantOf(config), ConnectWiseMetrics.Phase.MAP,
+                    System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Syncs a ticket that was already mapped to its ConnectWise equivalent
+     *
+     * @param talTicket ticket from Symphony
+     * @param CWTicket talTicket mapped to ConnectWise
+     * @param prefetchedCWTicket ConnectWise ticket retrieved in a batch. If null, it is retrieved by this method
+     * @return talTicket with thirdPartyId and thirdPartyLink set
+     * @throws TalAdapterSyncException if sync failed
+     */
+    private TalTicket syncMappedTicket(TalTicket talTicket, ConnectWiseTicket CWTicket, TicketSystemConfig config,
+                                       ConnectWiseTicket prefetchedCWTicket) throws TalAdapterSyncException {
+        String symphonyId = CWTicket.getSymphonyId();
+        if (symphonyId == null)
+            return syncLockedTicket(talTicket, CWTicket, config, prefetchedCWTicket);
+
+        // Concurrent syncs of the same ticket could create it, or its notes, twice
+        ticketLocks.lock(symphonyId);
+        try {
+            return syncLockedTicket(talTicket, CWTicket, config, prefetchedCWTicket);
+        } finally {
+            ticketLocks.unlock(symphonyId);
+        }
+    }
+
+    /**
+     * Syncs a mapped ticket while holding its lock
+     *
+     * @param talTicket ticket from Symphony
+     * @param CWTicket talTicket mapped to ConnectWise
+     * @param prefetchedCWTicket ConnectWise ticket retrieved in a batch. If null, it is retrieved by this method
+     * @return talTicket with thirdPartyId and thirdPartyLink set
+     * @throws TalAdapterSyncException if sync failed
+     */
+    private TalTicket syncLockedTicket(TalTicket talTicket, ConnectWiseTicket CWTicket, TicketSystemConfig config,
+                                       ConnectWiseTicket prefetchedCWTicket) throws TalAdapterSyncException {
+        // Reuse the IDs of a previous sync that Symphony did not send back yet
+        syncedIds.apply(CWTicket);
+
+        // Skip tickets that have not changed since their last successful sync
+        boolean unchanged = prefetchedCWTicket == null ?
+                ticketService.isUnchanged(config, CWTicket) :
+                ticketService.isUnchanged(config, CWTicket, prefetchedCWTicket);
+        if (unchanged) {
+            logger.info("syncTalTicket: ticket unchanged since last sync - skipping");
+            return talTicket;
+        }
+
+        // 1. make call to ConnectWise and get live ticket data
+        long getStart = System.nanoTime();
+        ConnectWiseTicket refreshedCWTicket;
+        try (SyncTrace.Span span = SyncTrace.startSpan("get")) {
+            span.setAttribute("ticket.prefetched", prefetchedCWTicket != null);
+            refreshedCWTicket = prefetchedCWTicket == null ?
+                    ticketService.getCWTicket(config, CWTicket) :
+                    ticketService.getCWTicket(config, CWTicket, prefetchedCWTicket);
+        } finally {
+            metrics.recordPhase(ConnectWiseMetrics.tenantOf(config), ConnectWiseMetrics.Phase.GET,
+                    System.nanoTime() - getStart);
+        }
 
-            // If CWTicket exists in CW
+        // Only report the requests this sync would send. Planning updates both tickets, so copies are planned against
+        if (Boolean.parseBoolean(config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.DRY_RUN))) {
             if (refreshedCWTicket != null) {
-                // Update it with the newest information
-                ticketService.updateTicket(config, CWTicket, refreshedCWTicket);
-                // Map ConnectWise ticket back to Symphony
-                TicketMapper.mapThirdPartyToSymphony(talTicket, CWTicket, config);
+                SyncPlan plan = ticketService.planUpdate(config, CWTicket.copy(), refreshedCWTicket.copy());
+                logger.info("syncTalTicket: dry run - {} planned request(s) for ticket {}: {}",
+                        plan.size(), CWTicket.getSymphonyId(), plan.describe());
             } else {
-                // Otherwise, create new ticket
-                ticketService.createTicket(config, CWTicket);
-                logger.info("syncTalTicket: remapping ticket to Symphony");
-                TicketMapper.mapThirdPartyToSymphony(talTicket, CWTicket, config);
+                logger.info("syncTalTicket: dry run - ticket {} would be created with its description and {} comment(s)",
+                        CWTicket.getSymphonyId(), CWTicket.getComments() == null ? 0 : CWTicket.getComments().size());
             }
-
-            logger.info("syncTalTicket: synchronization complete");
             return talTicket;
-
         }
-        catch (TalAdapterSyncException r) {
-            logger.error("Failed to sync ticket from TAL to InMemory Ticket System {}", talTicket);
-            /*
-            Recoverable exceptions:
-                - TalAdapterSyncException:
-                    - HTTP Status 408 - Time out
-                    - HTTP Status 429 - Too many requests
-                    - HTTP Status 502 - Bad gateway
-                    - HTTP Status 503 - Service unavailable
-             */
-            List<Integer> RecoverableHttpStatus = new ArrayList<>();
-            RecoverableHttpStatus.add(408);
-            RecoverableHttpStatus.add(429);
-            RecoverableHttpStatus.add(502);
-            RecoverableHttpStatus.add(503);
-
-            if (r.getHttpStatus() != null && RecoverableHttpStatus.contains(r.getHttpStatus().value())) {
-                throw new TalRecoverableException(r, talTicket);
+
+        // If CWTicket exists in CW
+        if (refreshedCWTicket != null) {
+            // Update it with the newest information
+            boolean written = ticketService.updateTicket(config, CWTicket, refreshedCWTicket);
+            ticketService.commitSyncState(config, CWTicket, refreshedCWTicket, written);
+            syncedIds.record(CWTicket);
+            // Map ConnectWise ticket back to Symphony
+            mapTicketBack(talTicket, CWTicket, config);
+            changePoller.track(talTicket, config);
+            registerCallback(talTicket.getCustomerId(), config);
+        } else {
+            // Otherwise, create new ticket
+            try (SyncTrace.Span span = SyncTrace.startSpan("create")) {
+                span.setAttribute("comment.count", CWTicket.getComments() == null ? 0 : CWTicket.getComments().size());
+                ticketService.createTicket(config, CWTicket);
             }
+            ticketService.commitSyncState(config, CWTicket, null, true);
+            syncedIds.record(CWTicket);
+            logger.info("syncTalTicket: remapping ticket to Symphony");
+            mapTicketBack(talTicket, CWTicket, config);
+            changePoller.track(talTicket, config);
+            registerCallback(talTicket.getCustomerId(), config);
+        }
 
-            throw new TalNotRecoverableException(r, talTicket);
+        logger.info("syncTalTicket: synchronization complete");
+        return talTicket;
+    }
+
+    /**
+     * Converts an error that made a sync fail into the exception reported to Symphony
+     *
+     * @param e error that made the sync fail
+     * @param talTicket ticket that failed to sync
+     * @param config config the ticket was synced with. Null if it could not be retrieved
+     * @return a TalRecoverableException if the error could be fixed by trying again, or a TalNotRecoverableException
+     */
+    private TalTicketException toTalTicketException(Throwable e, TalTicket talTicket, TicketSystemConfig config) {
+        if (e instanceof ExecutionException && e.getCause() != null)
+            e = e.getCause();
+        if (e instanceof TalTicketException)
+            return (TalTicketException) e;
+
+        logger.error("Failed to sync ticket from TAL to InMemory Ticket System {}", talTicket);
+        /*
+        Recoverable exceptions:
+            - TalAdapterSyncException with a status of the customer's RecoverableStatusPolicy, by default:
+                - HTTP Status 408 - Time out
+                - HTTP Status 429 - Too many requests
+                - HTTP Status 502 - Bad gateway
+                - HTTP Status 503 - Service unavailable
+         */
+        if (e instanceof TalAdapterSyncException) {
+            TalAdapterSyncException r = (TalAdapterSyncException) e;
+            if (r.getHttpStatus() != null && RecoverableStatusPolicy.forConfig(config).isRecoverable(r)) {
+                return new TalRecoverableException(r, talTicket);
+            }
         }
-        catch (Exception e) {
-            // Otherwise the method will change the error to a TalAdapterSyncException and add the information to the
-            //error description
-            logger.error("Failed to sync ticket from TAL to InMemory Ticket System {}", talTicket);
 
-            throw new TalNotRecoverableException(e,talTicket);
+        // Otherwise the error is not recoverable
+        return new TalNotRecoverableException(e, talTicket);
+    }
+
+    /**
+     * Gets the executor for the tickets of a batch, creating it on first use.
+     * With virtual threads, the pool only bounds the number of syncs in flight, since idle threads cost nothing
+     *
+     * @return the executor
+     */
+    private ExecutorService getBatchExecutor() {
+        executorLock.lock();
+        try {
+            if (batchExecutor == null)
+                batchExecutor = Executors.newFixedThreadPool(batchParallelism,
+                        SyncThreads.newThreadFactory("connectwise-batch-sync-"));
+            return batchExecutor;
+        } finally {
+            executorLock.unlock();
         }
     }
 }
@@ -3,15 +3,10 @@ package com.insightsystems.symphony.tal;
 import com.avispl.symphony.api.common.error.InvalidArgumentException;
 import com.avispl.symphony.api.tal.dto.*;
 import org.json.JSONArray;
-import org.json.JSONException;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.time.LocalDateTime;
-import java.time.ZoneId;
-import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 
 
@@ -100,15 +95,58 @@ public class ConnectWiseTicket {
      */
     private Set<Attachment> Attachments;
 
+    /**
+     * Date and time of the last change to this ticket in ConnectWise, as reported by ConnectWise
+     */
+    private String lastUpdated;
+
     /**
      * extra parameters, dictionary of additional parameters in key-value form
      */
     private Map<String, String> extraParams;
 
     /**
-     * List of recoverable HTTP statuses
+     * ConnectWise ticket this ticket was created from, until every field is decoded. Null afterwards
+     */
+    private ConnectWiseDto.Ticket source;
+
+    /**
+     * Pool shared by the values decoded from source
+     */
+    private StringPool sourcePool;
+
+    /**
+     * Fields of source not decoded yet
+     */
+    private int pendingFields;
+
+    /**
+     * Notes not decoded yet, in the format of a ConnectWise API GET call. Null if there are none
+     */
+    private JSONArray pendingNotes;
+
+    /**
+     * Bound notes not converted yet. Null if there are none
      */
-    private final List<Integer> RecoverableHttpStatus;
+    private ConnectWiseDto.Note[] pendingNoteRecords;
+
+    /**
+     * Pool shared by the values decoded from pendingNotes or pendingNoteRecords
+     */
+    private StringPool pendingNotesPool;
+
+    /**
+     * true if the description is the oldest description note, picked when the description is first accessed
+     */
+    private boolean descriptionFromNotes;
+
+    private static final int ID = 1;
+    private static final int SUMMARY = 1 << 1;
+    private static final int STATUS = 1 << 2;
+    private static final int PRIORITY = 1 << 3;
+    private static final int ASSIGNEE = 1 << 4;
+    private static final int LAST_UPDATED = 1 << 5;
+    private static final int ALL_FIELDS = ID | SUMMARY | STATUS | PRIORITY | ASSIGNEE | LAST_UPDATED;
 
 
     //* ----------------------------- METHODS ----------------------------- *//
@@ -120,7 +158,6 @@ public class ConnectWiseTicket {
         setAttachments(new HashSet<>());
         setComments(new HashSet<>());
         setExtraParams(new HashMap<>());
-        RecoverableHttpStatus = new ArrayList<>();
     }
 
     /**
@@ -140,11 +177,6 @@ public class ConnectWiseTicket {
         setExtraParams(extraParams);
         setComments(new HashSet<>());
 
-        RecoverableHttpStatus = new ArrayList<Integer>();
-        RecoverableHttpStatus.add(408);
-        RecoverableHttpStatus.add(429);
-        RecoverableHttpStatus.add(502);
-        RecoverableHttpStatus.add(503);
     }
 
     /**
@@ -153,44 +185,26 @@ public class ConnectWiseTicket {
      * @param jsonObject ConnectWise JSON ticket
      */
     public ConnectWiseTicket(JSONObject jsonObject) {
+        this(jsonObject, StringPool.NONE);
+    }
+
+    /**
+     * ConnectWiseTicket constructor using a ConnectWise response
+     *
+     * @param jsonObject ConnectWise JSON ticket
+     * @param pool pool of the customer's company, sharing status, priority and owner values between tickets
+     */
+    public ConnectWiseTicket(JSONObject jsonObject, StringPool pool) {
         if (jsonObject == null)
             throw new InvalidArgumentException("ConnectWiseTicket cannot be instantiated with null jsonObject");
 
-        // id
-        try {
-            setId(jsonObject.getInt("id") + "");
-
-        } catch (JSONException e) {
-            logger.info("id not found on jsonObject");
-        }
-
-        // summary
-        try {
-            setSummary(jsonObject.getString("summary"));
-        } catch (JSONException e) {
-            logger.info("summary not found on jsonObject");
-        }
-
-        // status
-        try {
-            setStatus(jsonObject.getJSONObject("status").getString("name"));
-        } catch (JSONException e) {
-            logger.info("status/name not found on jsonObject");
-        }
-
-        // priority
-        try {
-            setPriority(jsonObject.getJSONObject("priority").getString("name"));
-        } catch (JSONException e) {
-            logger.info("priority/name not found on jsonObject");
-        }
-
-        // assignee
-        try {
-            setAssignedTo(jsonObject.getJSONObject("owner").getString("identifier"));
-        } catch (JSONException e) {
-            logger.info("owner/identifier not found on jsonObject");
-        }
+        // Missing fields are counted by the schema and leave the field unset
+        setId(ConnectWiseSchema.TICKET_ID.getId(jsonObject));
+        setSummary(ConnectWiseSchema.TICKET_SUMMARY.getString(jsonObject));
+        setStatus(pool.canonicalize(ConnectWiseSchema.TICKET_STATUS.getString(jsonObject)));
+        setPriority(pool.canonicalize(ConnectWiseSchema.TICKET_PRIORITY.getString(jsonObject)));
+        setAssignedTo(pool.canonicalize(ConnectWiseSchema.TICKET_OWNER.getString(jsonObject)));
+        setLastUpdated(ConnectWiseSchema.TICKET_LAST_UPDATED.getString(jsonObject));
 
         // TODO: requester from ConnectWise
         /*try {
@@ -204,17 +218,177 @@ public class ConnectWiseTicket {
         setComments(new HashSet<>());
         setAttachments(new HashSet<>());
         setExtraParams(new HashMap<>());
-        RecoverableHttpStatus = new ArrayList<Integer>();
-        RecoverableHttpStatus.add(408);
-        RecoverableHttpStatus.add(429);
-        RecoverableHttpStatus.add(502);
-        RecoverableHttpStatus.add(503);
+    }
+
+
+    /**
+     * ConnectWiseTicket constructor using a ticket bound from a ConnectWise response.
+     * The bound ticket is kept as is: each field is only decoded the first time it is accessed or set
+     *
+     * @param ticket ConnectWise ticket
+     * @param pool pool of the customer's company, sharing status, priority and owner values between tickets
+     */
+    public ConnectWiseTicket(ConnectWiseDto.Ticket ticket, StringPool pool) {
+        if (ticket == null)
+            throw new InvalidArgumentException("ConnectWiseTicket cannot be instantiated with null ticket");
+
+        // Fields are only decoded when accessed, see hydrate
+        source = ticket;
+        sourcePool = pool;
+        pendingFields = ALL_FIELDS;
+
+        setComments(new HashSet<>());
+        setAttachments(new HashSet<>());
+        setExtraParams(new HashMap<>());
+    }
+
+
+    /**
+     * Copies this ticket with its comments and extra parameters, so that changes to the copy leave this ticket
+     * unchanged. Attachments are shared
+     *
+     * @return the copy, with every field decoded
+     */
+    public ConnectWiseTicket copy() {
+        ConnectWiseTicket copy = new ConnectWiseTicket(getSymphonyId(), getSymphonyLink(), getId(), getUrl(),
+                getExtraParams() == null ? null : new HashMap<>(getExtraParams()));
+        copy.setCustomerId(getCustomerId());
+        copy.summary = getSummary();
+        copy.status = getStatus();
+        copy.priority = getPriority();
+        copy.assignee = getAssignee();
+        copy.requester = getRequester();
+        copy.lastUpdated = getLastUpdated();
+        copy.setAttachments(getAttachments());
+
+        // The description is usually one of the comments, and stays so in the copy
+        Map<ConnectWiseComment, ConnectWiseComment> commentCopies = new IdentityHashMap<>();
+        ConnectWiseComment description = getDescription();
+        if (getComments() == null) {
+            copy.setComments((Set<ConnectWiseComment>) null);
+        } else {
+            Set<ConnectWiseComment> comments = new HashSet<>();
+            for (ConnectWiseComment comment : getComments())
+                comments.add(commentCopies.computeIfAbsent(comment, ConnectWiseComment::copy));
+            copy.setComments(comments);
+        }
+        copy.setDescription(description == null ? null : commentCopies.computeIfAbsent(description, ConnectWiseComment::copy));
+        return copy;
     }
 
 
     //* ----------------------------- HELPER METHODS ----------------------------- *//
 
+    /**
+     * Decodes a field from the bound ConnectWise ticket, unless it was already decoded or set
+     *
+     * @param field field to decode
+     */
+    private void hydrate(int field) {
+        if ((pendingFields & field) == 0)
+            return;
+        pendingFields &= ~field;
+
+        // Missing fields are counted by the schema and leave the field unset
+        switch (field) {
+            case ID:
+                Integer ticketId = ConnectWiseSchema.TICKET_ID.count(source.getId());
+                setId(ticketId == null ? null : ticketId.toString());
+                break;
+            case SUMMARY:
+                setSummary(ConnectWiseSchema.TICKET_SUMMARY.count(source.getSummary()));
+                break;
+            case STATUS:
+                setStatus(sourcePool.canonicalize(ConnectWiseSchema.TICKET_STATUS.count(
+                        source.getStatus() == null ? null : source.getStatus().getName())));
+                break;
+            case PRIORITY:
+                setPriority(sourcePool.canonicalize(ConnectWiseSchema.TICKET_PRIORITY.count(
+                        source.getPriority() == null ? null : source.getPriority().getName())));
+                break;
+            case ASSIGNEE:
+                setAssignedTo(sourcePool.canonicalize(ConnectWiseSchema.TICKET_OWNER.count(
+                        source.getOwner() == null ? null : source.getOwner().getIdentifier())));
+                break;
+            case LAST_UPDATED:
+                setLastUpdated(ConnectWiseSchema.TICKET_LAST_UPDATED.count(
+                        source.getInfo() == null ? null : source.getInfo().getLastUpdated()));
+                break;
+            default:
+                break;
+        }
+
+        // Every field is decoded: the bound ticket is no longer needed
+        if (pendingFields == 0) {
+            source = null;
+            sourcePool = null;
+        }
+    }
+
+    /**
+     * Decodes the notes not decoded yet and adds them to the comments
+     */
+    private void hydrateNotes() {
+        JSONArray jsonArray = pendingNotes;
+        ConnectWiseDto.Note[] records = pendingNoteRecords;
+        if (jsonArray == null && records == null)
+            return;
+        StringPool pool = pendingNotesPool;
+        pendingNotes = null;
+        pendingNoteRecords = null;
+        pendingNotesPool = null;
+
+        if (records != null) {
+            for (ConnectWiseDto.Note note : records) {
+                // Notes without ID cannot be matched or updated
+                if (note != null && ConnectWiseSchema.NOTE_ID.count(note.getId()) != null)
+                    Comments.add(new ConnectWiseComment(note, pool));
+            }
+            return;
+        }
 
+        // for each ConnectWise comment:
+        for (int i = 0; i < jsonArray.length(); i++) {
+            JSONObject JSONComment = jsonArray.optJSONObject(i);
+            if (JSONComment == null)
+                continue;
+
+            ConnectWiseComment CWComment = decodeNote(JSONComment, pool,
+                    ConnectWiseSchema.NOTE_DESCRIPTION_FLAG.getBoolean(JSONComment, false));
+            // Notes without ID cannot be matched or updated
+            if (CWComment != null)
+                Comments.add(CWComment);
+        }
+    }
+
+    /**
+     * Decodes a ConnectWise note
+     *
+     * @param JSONComment ConnectWise JSON note
+     * @param pool pool of the customer's company, sharing creator values between comments
+     * @param descriptionFlag true if the note is a description
+     * @return the comment, or null if the note has no ID
+     */
+    private static ConnectWiseComment decodeNote(JSONObject JSONComment, StringPool pool, boolean descriptionFlag) {
+        String noteId = ConnectWiseSchema.NOTE_ID.getId(JSONComment);
+        if (noteId == null)
+            return null;
+
+        // Parse date
+        String dateCreated = ConnectWiseSchema.NOTE_DATE_CREATED.getString(JSONComment);
+        long lastModified = dateCreated == null ? 0L : ConnectWiseDateParser.parseEpochMillis(dateCreated);
+
+        return new ConnectWiseComment(
+                null,
+                noteId,
+                pool.canonicalize(ConnectWiseSchema.NOTE_CREATED_BY.getString(JSONComment)),
+                ConnectWiseSchema.NOTE_TEXT.getString(JSONComment),
+                lastModified,
+                descriptionFlag,
+                ConnectWiseSchema.NOTE_INTERNAL_FLAG.getBoolean(JSONComment, false),
+                ConnectWiseSchema.NOTE_RESOLUTION_FLAG.getBoolean(JSONComment, false)
+        );
+    }
 
     //* ----------------------------- GETTERS / SETTERS ----------------------------- *//
 
@@ -235,10 +409,12 @@ public class ConnectWiseTicket {
     }
 
     public String getId() {
+        hydrate(ID);
         return id;
     }
 
     public void setId(String id) {
+        hydrate(ID);
         this.id = id;
     }
 
@@ -262,10 +438,12 @@ public class ConnectWiseTicket {
     }
 
     public String getSummary() {
+        hydrate(SUMMARY);
         return summary;
     }
 
     public boolean setSummary(String summary) {
+        hydrate(SUMMARY);
         if (summary == null)
             return false;
         int minIndex = Math.min(summary.length(), 100); // Cap summary size to 100
@@ -274,14 +452,30 @@ public class ConnectWiseTicket {
     }
 
     public String getStatus() {
+        hydrate(STATUS);
         return status;
     }
 
     public ConnectWiseComment getDescription() {
+        if (descriptionFromNotes) {
+            descriptionFromNotes = false;
+            // The description is the oldest description note
+            Optional<ConnectWiseComment> oldestDescriptionComment = getComments()
+                    .stream()
+                    .filter(ConnectWiseComment::isDescriptionFlag)
+                    .min(Comparator.comparing(ConnectWiseComment::getLastModified));
+            if (oldestDescriptionComment.isPresent()) {
+                logger.info("getDescription: ticket description found");
+                description = oldestDescriptionComment.get();
+            } else {
+                logger.info("getDescription: ticket description not found");
+            }
+        }
         return description;
     }
 
     public void setDescription(ConnectWiseComment description) {
+        descriptionFromNotes = false;
         this.description = description;
     }
 
@@ -291,17 +485,25 @@ public class ConnectWiseTicket {
      * @param newDescription a JSON of a ConnectWise comment
      */
     public void AddJSONDescription(JSONObject newDescription) {
+        AddJSONDescription(newDescription, StringPool.NONE);
+    }
+
+    /**
+     * Add a {@link ConnectWiseComment} description to this ticket using a ConnectWise comment in JSONObject format
+     *
+     * @param newDescription a JSON of a ConnectWise comment
+     * @param pool pool of the customer's company, sharing creator values between comments
+     */
+    public void AddJSONDescription(JSONObject newDescription, StringPool pool) {
         ConnectWiseComment newCWDescription = null;
         try {
-            DateTimeFormatter ConnectWiseDateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'H:m:sX");
-            LocalDateTime commentDate = LocalDateTime.parse(newDescription.getString("dateCreated"),
-                    ConnectWiseDateTimeFormatter);
-            ZonedDateTime zdt = ZonedDateTime.of(commentDate, ZoneId.systemDefault());
-            long lastModified = zdt.toInstant().toEpochMilli();
-
-            newCWDescription = new ConnectWiseComment(null, newDescription.getInt("id") + "",
-                    newDescription.getString("createdBy"), newDescription.getString("text"), lastModified,
-                    true, false, false);
+            newCWDescription = decodeNote(newDescription, pool, true);
+            if (newCWDescription == null) {
+                logger.error("AddJSONDescription: CW Comment has no ID");
+            } else {
+                newCWDescription.setInternalFlag(false);
+                newCWDescription.setResolutionFlag(false);
+            }
         } catch (Exception e) {
             logger.error("AddJSONDescription: Error in parsing JSON information on CW Comment - {}", e.getMessage());
         }
@@ -309,6 +511,7 @@ public class ConnectWiseTicket {
     }
 
     public boolean setStatus(String status) {
+        hydrate(STATUS);
         if (status == null)
             return false;
         this.status = status;
@@ -316,10 +519,12 @@ public class ConnectWiseTicket {
     }
 
     public String getPriority() {
+        hydrate(PRIORITY);
         return priority;
     }
 
     public boolean setPriority(String priority) {
+        hydrate(PRIORITY);
         if (priority == null)
             return false;
         this.priority = priority;
@@ -327,10 +532,12 @@ public class ConnectWiseTicket {
     }
 
     public String getAssignee() {
+        hydrate(ASSIGNEE);
         return assignee;
     }
 
     public boolean setAssignedTo(String assignee) {
+        hydrate(ASSIGNEE);
         if (assignee == null)
             return false;
         this.assignee = assignee;
@@ -349,6 +556,7 @@ public class ConnectWiseTicket {
     }
 
     public Set<ConnectWiseComment> getComments() {
+        hydrateNotes();
         return Comments;
     }
 
@@ -358,39 +566,58 @@ public class ConnectWiseTicket {
      * @param jsonArray array in the format of a ConnectWise API GET call
      */
     public void setComments(JSONArray jsonArray) {
-        DateTimeFormatter ConnectWiseDateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'H:m:sX");
+        setComments(jsonArray, StringPool.NONE);
+    }
 
-        // for each ConnectWise comment:
-        for (int i = 0; i < jsonArray.length(); i++) {
-            JSONObject JSONComment = jsonArray.getJSONObject(i);
-
-            // Parse date
-            LocalDateTime commentDate = LocalDateTime.parse(JSONComment.getString("dateCreated"),
-                    ConnectWiseDateTimeFormatter);
-            ZonedDateTime zdt = ZonedDateTime.of(commentDate, ZoneId.systemDefault());
-            long lastModified = zdt.toInstant().toEpochMilli();
-
-            ConnectWiseComment CWComment = new ConnectWiseComment(
-                    null,
-                    JSONComment.getInt("id") + "",
-                    JSONComment.getString("createdBy"),
-                    JSONComment.getString("text"),
-                    lastModified,
-                    JSONComment.getBoolean("detailDescriptionFlag"),
-                    JSONComment.getBoolean("internalAnalysisFlag"),
-                    JSONComment.getBoolean("resolutionFlag")
-            );
-
-            addComment(CWComment);
-        }
+    /**
+     * Adds comments in a JSON array of ConnectWise comments to this ticket
+     *
+     * @param jsonArray array in the format of a ConnectWise API GET call
+     * @param pool pool of the customer's company, sharing creator values between comments
+     */
+    public void setComments(JSONArray jsonArray, StringPool pool) {
+        // Notes added earlier are decoded first, so that the latest array is the only pending one
+        hydrateNotes();
+        pendingNotes = jsonArray;
+        pendingNotesPool = pool;
+    }
+
+    /**
+     * Adds the notes of this ticket, and makes the oldest description note the description of this ticket.
+     * Notes are only decoded when the comments or the description are first accessed
+     *
+     * @param jsonArray array in the format of a ConnectWise API GET call
+     * @param pool pool of the customer's company, sharing creator values between comments
+     */
+    public void setNotes(JSONArray jsonArray, StringPool pool) {
+        setComments(jsonArray, pool);
+        descriptionFromNotes = true;
+    }
+
+    /**
+     * Adds the notes of this ticket, and makes the oldest description note the description of this ticket.
+     * Notes are only converted when the comments or the description are first accessed
+     *
+     * @param notes notes bound from a ConnectWise response
+     * @param pool pool of the customer's company, sharing creator values between comments
+     */
+    public void setNotes(ConnectWiseDto.Note[] notes, StringPool pool) {
+        // Notes added earlier are converted first, so that these notes are the only pending ones
+        hydrateNotes();
+        pendingNoteRecords = notes;
+        pendingNotesPool = pool;
+        descriptionFromNotes = true;
     }
 
     public void setComments(Set<ConnectWiseComment> comments) {
+        pendingNotes = null;
+        pendingNoteRecords = null;
+        pendingNotesPool = null;
         Comments = comments;
     }
 
     public void addComment(ConnectWiseComment CWComment) {
-        Comments.add(CWComment);
+        getComments().add(CWComment);
     }
 
     public Set<Attachment> getAttachments() {
@@ -404,6 +631,16 @@ public class ConnectWiseTicket {
     public void addAttachment(Attachment CWAttachment) { Attachments.add(CWAttachment); }
 
 
+    public String getLastUpdated() {
+        hydrate(LAST_UPDATED);
+        return lastUpdated;
+    }
+
+    public void setLastUpdated(String lastUpdated) {
+        hydrate(LAST_UPDATED);
+        this.lastUpdated = lastUpdated;
+    }
+
     public Map<String, String> getExtraParams() {
         return extraParams;
     }
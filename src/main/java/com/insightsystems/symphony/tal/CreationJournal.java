@@ -0,0 +1,332 @@
+package com.insightsystems.symphony.tal;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Checkpoints of ticket creations that have not completed yet.
+ * Creating a ticket takes several requests: the ticket, its description and its comments. Each completed step is
+ * recorded here, so that a sync retried after a failed step resumes at the first incomplete step and reuses the
+ * ticket already created in ConnectWise instead of creating a duplicate.
+ * <p>
+ * Checkpoints are kept locally because Symphony does not store the extra parameters of a ticket whose sync failed.
+ * With a journal file, checkpoints also survive restarts.
+ *
+ * @since 5.8
+ */
+public class CreationJournal {
+    //* ----------------------------- VARIABLES ----------------------------- *//
+
+    /**
+     * Logger instance
+     */
+    private static final Logger logger = LoggerFactory.getLogger(CreationJournal.class);
+
+    /**
+     * The journal is rewritten with incomplete creations only once this many creations completed
+     */
+    private static final int COMPACTION_THRESHOLD = 1000;
+
+    /**
+     * Checkpoints of incomplete creations by Symphony ID
+     */
+    private final Map<String, Checkpoint> checkpoints = new LinkedHashMap<>();
+
+    /**
+     * Guards checkpoints and the journal
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Journal file. Null if checkpoints are only kept in memory
+     */
+    private final JournalFile journal;
+
+    private int completedCreations;
+
+
+    //* ----------------------------- METHODS ----------------------------- *//
+
+    /**
+     * Creates a journal that keeps checkpoints in memory only
+     */
+    public CreationJournal() {
+        this.journal = null;
+    }
+
+    /**
+     * Creates a journal backed by a file, loading the checkpoints of creations that did not complete
+     *
+     * @param journal journal file. Created if missing
+     * @throws IOException if the journal cannot be read or opened
+     */
+    public CreationJournal(Path journal) throws IOException {
+        this.journal = new JournalFile(journal);
+        for (JSONObject record : this.journal.read())
+            apply(record);
+        this.journal.rewrite(checkpointRecords());
+        if (!checkpoints.isEmpty())
+            logger.info("CreationJournal: {} incomplete creation(s) loaded from {}", checkpoints.size(), journal);
+    }
+
+    /**
+     * Gets the checkpoint of an incomplete creation
+     *
+     * @param symphonyId Symphony ID of the ticket
+     * @return a copy of the checkpoint, or null if no creation of the ticket is in progress
+     */
+    public Checkpoint get(String symphonyId) {
+        if (symphonyId == null)
+            return null;
+        lock.lock();
+        try {
+            Checkpoint checkpoint = checkpoints.get(symphonyId);
+            return checkpoint == null ? null : new Checkpoint(checkpoint);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records that the ticket was created in ConnectWise
+     *
+     * @param symphonyId Symphony ID of the ticket
+     * @param ticketId ConnectWise ID of the new ticket
+     * @param url ConnectWise URL of the new ticket
+     */
+    public void ticketCreated(String symphonyId, String ticketId, String url) {
+        JSONObject record = record(symphonyId, "ticket");
+        record.put("id", ticketId);
+        record.put("url", url);
+        write(symphonyId, record);
+    }
+
+    /**
+     * Records that the description note was created
+     *
+     * @param symphonyId Symphony ID of the ticket
+     * @param noteId ConnectWise ID of the description note
+     */
+    public void descriptionPosted(String symphonyId, String noteId) {
+        JSONObject record = record(symphonyId, "description");
+        record.put("id", noteId);
+        write(symphonyId, record);
+    }
+
+    /**
+     * Records that a comment was created
+     *
+     * @param symphonyId Symphony ID of the ticket
+     * @param commentKey key of the comment, see {@link #commentKey(ConnectWiseComment)}
+     * @param noteId ConnectWise ID of the comment
+     */
+    public void commentPosted(String symphonyId, String commentKey, String noteId) {
+        JSONObject record = record(symphonyId, "comment");
+        record.put("key", commentKey);
+        record.put("id", noteId);
+        write(symphonyId, record);
+    }
+
+    /**
+     * Forgets the creation of a ticket, either because it completed or because it cannot be resumed
+     *
+     * @param symphonyId Symphony ID of the ticket
+     */
+    public void completed(String symphonyId) {
+        if (symphonyId == null)
+            return;
+        lock.lock();
+        try {
+            if (!checkpoints.containsKey(symphonyId))
+                return;
+            JSONObject record = record(symphonyId, "completed");
+            append(record);
+            apply(record);
+            if (++completedCreations >= COMPACTION_THRESHOLD)
+                compact();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return number of incomplete creations
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return checkpoints.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes the journal file. Checkpoints recorded afterwards are kept in memory only
+     */
+    public void close() {
+        lock.lock();
+        try {
+            if (journal != null)
+                journal.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the key a comment is checkpointed with: its Symphony ID, or its text for comments added by the adapter
+     *
+     * @param comment comment of the created ticket
+     * @return the comment key
+     */
+    public static String commentKey(ConnectWiseComment comment) {
+        return comment.getSymphonyId() != null ? comment.getSymphonyId() : "text:" + comment.getText();
+    }
+
+
+    //* ----------------------------- HELPER METHODS ----------------------------- *//
+
+    private static JSONObject record(String symphonyId, String step) {
+        JSONObject record = new JSONObject();
+        record.put("symphonyId", symphonyId);
+        record.put("step", step);
+        return record;
+    }
+
+    /**
+     * Appends a checkpoint record to the journal, then applies it in memory
+     */
+    private void write(String symphonyId, JSONObject record) {
+        if (symphonyId == null)
+            return;
+        lock.lock();
+        try {
+            append(record);
+            apply(record);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void append(JSONObject record) {
+        if (journal != null)
+            journal.append(record);
+    }
+
+    /**
+     * Applies a checkpoint record to the checkpoints in memory. Called with the lock held or while loading
+     */
+    private void apply(JSONObject record) {
+        String symphonyId = record.getString("symphonyId");
+        String step = record.getString("step");
+        if (step.equals("completed")) {
+            checkpoints.remove(symphonyId);
+            return;
+        }
+        Checkpoint checkpoint = checkpoints.computeIfAbsent(symphonyId, k -> new Checkpoint());
+        switch (step) {
+            case "ticket":
+                checkpoint.ticketId = record.getString("id");
+                checkpoint.url = record.getString("url");
+                break;
+            case "description":
+                checkpoint.descriptionId = record.getString("id");
+                break;
+            case "comment":
+                checkpoint.commentIds.put(record.getString("key"), record.getString("id"));
+                break;
+            default:
+                logger.warn("apply: ignoring unknown creation step {}", step);
+        }
+    }
+
+    /**
+     * Rewrites the journal with the checkpoints of incomplete creations only
+     */
+    private void compact() {
+        if (journal == null)
+            return;
+        try {
+            journal.rewrite(checkpointRecords());
+            completedCreations = 0;
+        } catch (IOException e) {
+            logger.error("compact: unable to rewrite creation journal - " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return journal records rebuilding the current checkpoints
+     */
+    private List<JSONObject> checkpointRecords() {
+        List<JSONObject> records = new ArrayList<>();
+        for (Map.Entry<String, Checkpoint> entry : checkpoints.entrySet()) {
+            String symphonyId = entry.getKey();
+            Checkpoint checkpoint = entry.getValue();
+            if (checkpoint.ticketId != null)
+                records.add(record(symphonyId, "ticket").put("id", checkpoint.ticketId).put("url", checkpoint.url));
+            if (checkpoint.descriptionId != null)
+                records.add(record(symphonyId, "description").put("id", checkpoint.descriptionId));
+            for (Map.Entry<String, String> comment : checkpoint.commentIds.entrySet())
+                records.add(record(symphonyId, "comment").put("key", comment.getKey()).put("id", comment.getValue()));
+        }
+        return records;
+    }
+
+    /**
+     * Steps of a ticket creation that already completed
+     */
+    public static final class Checkpoint {
+        private String ticketId;
+        private String url;
+        private String descriptionId;
+        private final Map<String, String> commentIds;
+
+        private Checkpoint() {
+            this.commentIds = new HashMap<>();
+        }
+
+        private Checkpoint(Checkpoint checkpoint) {
+            this.ticketId = checkpoint.ticketId;
+            this.url = checkpoint.url;
+            this.descriptionId = checkpoint.descriptionId;
+            this.commentIds = new HashMap<>(checkpoint.commentIds);
+        }
+
+        /**
+         * @return ConnectWise ID of the created ticket, or null if the ticket was not created yet
+         */
+        public String getTicketId() {
+            return ticketId;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        /**
+         * @return ConnectWise ID of the description note, or null if it was not created yet
+         */
+        public String getDescriptionId() {
+            return descriptionId;
+        }
+
+        /**
+         * @return ConnectWise IDs of the created comments by comment key
+         */
+        public Map<String, String> getCommentIds() {
+            return Collections.unmodifiableMap(commentIds);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.insightsystems.symphony.tal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only file of JSON records, one per line, used by local journals that must survive restarts.
+ * Every record is forced to disk before {@link #append} returns. A record cut short by a crash is ignored when
+ * the file is read back. Not thread-safe: callers guard it with their own lock.
+ *
+ * @since 5.8
+ */
+class JournalFile {
+    //* ----------------------------- VARIABLES ----------------------------- *//
+
+    /**
+     * Logger instance
+     */
+    private static final Logger logger = LoggerFactory.getLogger(JournalFile.class);
+
+    private final Path path;
+    private FileChannel channel;
+
+
+    //* ----------------------------- METHODS ----------------------------- *//
+
+    /**
+     * JournalFile constructor. The file is only opened by the first {@link #rewrite}
+     *
+     * @param path journal file
+     */
+    JournalFile(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Reads every complete record of the file
+     *
+     * @return records in the order they were appended. Empty if the file does not exist
+     * @throws IOException if the file cannot be read
+     */
+    List<JSONObject> read() throws IOException {
+        List<JSONObject> records = new ArrayList<>();
+        if (!Files.exists(path))
+            return records;
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            if (line.isBlank())
+                continue;
+            try {
+                records.add(new JSONObject(line));
+            } catch (JSONException e) {
+                logger.warn("read: ignoring incomplete record of {}", path);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Appends a record and waits until it is on disk. Errors are logged only, the record is then kept in memory only
+     *
+     * @param record record to append
+     */
+    void append(JSONObject record) {
+        if (channel == null)
+            return;
+        try {
+            write(channel, record.toString() + '\n');
+            channel.force(false);
+        } catch (IOException e) {
+            logger.error("append: unable to write journal {} - {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Replaces the content of the file atomically, then reopens it for appending
+     *
+     * @param records records the file holds from now on
+     * @throws IOException if the file cannot be rewritten
+     */
+    void rewrite(Collection<JSONObject> records) throws IOException {
+        Path rewritten = path.resolveSibling(path.getFileName() + ".tmp");
+        StringBuilder content = new StringBuilder();
+        for (JSONObject record : records)
+            content.append(record).append('\n');
+        try (FileChannel out = FileChannel.open(rewritten, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            write(out, content.toString());
+            out.force(true);
+        }
+        close();
+        Files.move(rewritten, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Closes the file. Records appended afterwards are not written
+     */
+    void close() {
+        if (channel == null)
+            return;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.warn("close: unable to close journal {} - {}", path, e.getMessage());
+        }
+        channel = null;
+    }
+
+    /**
+     * @return the journal file
+     */
+    Path getPath() {
+        return path;
+    }
+
+
+    //* ----------------------------- HELPER METHODS ----------------------------- *//
+
+    private static void write(FileChannel channel, String content) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+    }
+}
@@ -0,0 +1,127 @@
+package com.insightsystems.symphony.tal;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Objects;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Single RFC 6902 JSON Patch operation sent to ConnectWise in a PATCH request body.
+ *
+ * @since 5.8
+ */
+public class PatchOperation {
+    //* ----------------------------- VARIABLES ----------------------------- *//
+
+    /**
+     * Shared, thread-safe factory used to create JSON generators
+     */
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    /**
+     * Patch operation (i.e. "add" or "replace")
+     */
+    private final String op;
+
+    /**
+     * ConnectWise field path (i.e. "status/name")
+     */
+    private final String path;
+
+    /**
+     * New value of the field
+     */
+    private final String value;
+
+
+    //* ----------------------------- METHODS ----------------------------- *//
+
+    /**
+     * PatchOperation constructor
+     *
+     * @param op patch operation (i.e. "replace")
+     * @param path ConnectWise field path
+     * @param value new value of the field
+     */
+    public PatchOperation(String op, String path, String value) {
+        this.op = Objects.requireNonNull(op, "op cannot be null");
+        this.path = Objects.requireNonNull(path, "path cannot be null");
+        this.value = value;
+    }
+
+    /**
+     * Creates a "replace" operation
+     *
+     * @param path ConnectWise field path
+     * @param value new value of the field
+     * @return the patch operation
+     */
+    public static PatchOperation replace(String path, String value) {
+        return new PatchOperation("replace", path, value);
+    }
+
+    /**
+     * Creates an "add" operation if the field has no current value, or a "replace" operation otherwise
+     *
+     * @param path ConnectWise field path
+     * @param currentValue value currently in ConnectWise
+     * @param value new value of the field
+     * @return the patch operation
+     */
+    public static PatchOperation addOrReplace(String path, String currentValue, String value) {
+        return new PatchOperation(currentValue == null ? "add" : "replace", path, value);
+    }
+
+    /**
+     * Serializes a list of operations into a compact, correctly escaped JSON Patch document
+     *
+     * @param operations operations to serialize
+     * @return JSON array with every operation
+     */
+    public static String toJson(List<PatchOperation> operations) {
+        StringWriter writer = new StringWriter(64 * Math.max(1, operations.size()));
+        try (JsonGenerator generator = jsonFactory.createGenerator(writer)) {
+            generator.writeStartArray();
+            for (PatchOperation operation : operations) {
+                generator.writeStartObject();
+                generator.writeStringField("op", operation.getOp());
+                generator.writeStringField("path", operation.getPath());
+                generator.writeStringField("value", operation.getValue());
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        } catch (IOException e) {
+            // StringWriter does not perform I/O
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
+
+
+    //* ----------------------------- GETTERS / SETTERS ----------------------------- *//
+
+    public String getOp() {
+        return op;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return "PatchOperation{" +
+                "op='" + getOp() + "', " +
+                "path='" + getPath() + "', " +
+                "value='" + getValue() + "'" +
+                "}";
+    }
+}
@@ -0,0 +1,154 @@
+package com.insightsystems.symphony.tal;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+
+import com.avispl.symphony.api.tal.dto.TicketSystemConfig;
+import com.avispl.symphony.api.tal.error.TalAdapterSyncException;
+
+/**
+ * Decides which HTTP statuses make a failed ConnectWise request recoverable, i.e. worth sending again later.
+ * Instances are immutable and shared: the default policy by every customer, and each override by every customer
+ * configured with it. Checking a status is a constant-time bit lookup.
+ * <p>
+ * Customers can override the default with the {@link TicketSourceConfigPropertyCW#RECOVERABLE_HTTP_STATUSES}
+ * config property.
+ *
+ * @since 5.8
+ */
+public final class RecoverableStatusPolicy {
+    //* ----------------------------- VARIABLES ----------------------------- *//
+
+    /**
+     * Logger instance
+     */
+    private static final Logger logger = LoggerFactory.getLogger(RecoverableStatusPolicy.class);
+
+    /**
+     * Default policy: 408 - Time out, 429 - Too many requests, 502 - Bad gateway, 503 - Service unavailable
+     */
+    public static final RecoverableStatusPolicy DEFAULT = of(List.of(408, 429, 502, 503));
+
+    /**
+     * Policies by config property value. Customers sharing the same value share the same policy
+     */
+    private static final Map<String, RecoverableStatusPolicy> overrides = new ConcurrentHashMap<>();
+
+    /**
+     * Recoverable statuses. Never modified after construction
+     */
+    private final BitSet statuses;
+
+
+    //* ----------------------------- METHODS ----------------------------- *//
+
+    private RecoverableStatusPolicy(BitSet statuses) {
+        this.statuses = statuses;
+    }
+
+    /**
+     * Creates a policy
+     *
+     * @param statuses recoverable HTTP statuses
+     * @return the policy
+     */
+    public static RecoverableStatusPolicy of(Collection<Integer> statuses) {
+        BitSet bits = new BitSet(600);
+        for (Integer status : statuses) {
+            if (status != null && status >= 0)
+                bits.set(status);
+        }
+        return new RecoverableStatusPolicy(bits);
+    }
+
+    /**
+     * Gets the policy of a customer
+     *
+     * @param config customer config
+     * @return the policy set by the recoverable HTTP statuses config property, or {@link #DEFAULT}
+     */
+    public static RecoverableStatusPolicy forConfig(TicketSystemConfig config) {
+        if (config == null || config.getTicketSourceConfig() == null)
+            return DEFAULT;
+        String override = config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.RECOVERABLE_HTTP_STATUSES);
+        if (override == null || override.isBlank())
+            return DEFAULT;
+        return overrides.computeIfAbsent(override.trim(), RecoverableStatusPolicy::parse);
+    }
+
+    /**
+     * Parses a policy. Either a list of statuses replacing the defaults, e.g. "408,503", or changes to the
+     * defaults, e.g. "+500,-429". Invalid entries, and statuses outside 100-599, are ignored
+     *
+     * @param value comma-separated statuses
+     * @return the policy
+     */
+    public static RecoverableStatusPolicy parse(String value) {
+        BitSet bits = null;
+        for (String entry : value.split(",")) {
+            String status = entry.trim();
+            if (status.isEmpty())
+                continue;
+            boolean add = !status.startsWith("-");
+            boolean relative = status.startsWith("+") || status.startsWith("-");
+            if (bits == null)
+                bits = relative ? (BitSet) DEFAULT.statuses.clone() : new BitSet(600);
+            try {
+                int code = Integer.parseInt(relative ? status.substring(1).trim() : status);
+                if (code < 100 || code > 599)
+                    throw new NumberFormatException("status out of range");
+                bits.set(code, add);
+            } catch (NumberFormatException e) {
+                logger.warn("parse: ignoring invalid recoverable HTTP status {}", status);
+            }
+        }
+        return bits == null ? DEFAULT : new RecoverableStatusPolicy(bits);
+    }
+
+    /**
+     * @param status HTTP status code
+     * @return true if a request failing with status is worth sending again
+     */
+    public boolean isRecoverable(int status) {
+        return status >= 0 && statuses.get(status);
+    }
+
+    /**
+     * @param status HTTP status. May be null
+     * @return true if a request failing with status is worth sending again
+     */
+    public boolean isRecoverable(HttpStatus status) {
+        return status != null && statuses.get(status.value());
+    }
+
+    /**
+     * @param e error of a failed request
+     * @return true if the request is worth sending again. Errors without HTTP status are not recoverable,
+     * since there is no way to tell whether ConnectWise received the request
+     */
+    public boolean isRecoverable(TalAdapterSyncException e) {
+        return e != null && isRecoverable(e.getHttpStatus());
+    }
+
+    /**
+     * @return recoverable statuses in ascending order
+     */
+    public List<Integer> toList() {
+        List<Integer> list = new ArrayList<>(statuses.cardinality());
+        statuses.stream().forEach(list::add);
+        return list;
+    }
+
+    @Override
+    public String toString() {
+        return "RecoverableStatusPolicy" + toList();
+    }
+}
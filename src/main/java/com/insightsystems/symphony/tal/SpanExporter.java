@@ -0,0 +1,27 @@
+package com.insightsystems.symphony.tal;
+
+import java.util.List;
+
+/**
+ * Receives the spans of every completed {@link SyncTrace}.
+ * Span IDs, timestamps and attributes follow the OpenTelemetry data model, so that an exporter can forward them to
+ * an OpenTelemetry collector without conversion beyond copying fields.
+ * <p>
+ * Exporters are called on the sync thread once the sync completed: they should hand the spans off rather than
+ * send them inline. Exceptions thrown by an exporter are logged and never fail the sync.
+ *
+ * @since 5.8
+ */
+@FunctionalInterface
+public interface SpanExporter {
+
+    /**
+     * Exporter that drops every span
+     */
+    SpanExporter NONE = spans -> { };
+
+    /**
+     * @param spans spans of a completed trace, root span last
+     */
+    void export(List<SyncTrace.Span> spans);
+}
@@ -0,0 +1,98 @@
+package com.insightsystems.symphony.tal;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.avispl.symphony.api.tal.dto.TicketSystemConfig;
+
+/**
+ * Canonical instances of the enumerated values decoded from ConnectWise responses, such as status names, priority
+ * names and member identifiers. A ConnectWise company only uses a few dozen of them, so tickets and comments decoded
+ * with the same pool share one String per value instead of holding their own copy.
+ * <p>
+ * Pools are kept per ConnectWise company, so that values of one customer never outlive or leak into another
+ * customer's pool. A pool stops growing once full: further values are returned as they are.
+ *
+ * @since 5.8
+ */
+public final class StringPool {
+    //* ----------------------------- VARIABLES ----------------------------- *//
+
+    /**
+     * Pool that returns every value as it is, for decoding without a customer config
+     */
+    public static final StringPool NONE = new StringPool(0);
+
+    /**
+     * Maximum number of values of a company pool. Well above the number of statuses, priorities and members
+     * of a company, so that only unexpected high-cardinality values are left out
+     */
+    private static final int DEFAULT_MAX_SIZE = 4096;
+
+    /**
+     * Pools by ConnectWise instance and company
+     */
+    private static final Map<String, StringPool> tenantPools = new ConcurrentHashMap<>();
+
+    /**
+     * Canonical instance of each value
+     */
+    private final Map<String, String> values = new ConcurrentHashMap<>();
+
+    private final int maxSize;
+
+
+    //* ----------------------------- METHODS ----------------------------- *//
+
+    /**
+     * Creates a pool
+     *
+     * @param maxSize maximum number of values kept in the pool
+     */
+    public StringPool(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Gets the pool of the ConnectWise company of a customer, creating it on first use
+     *
+     * @param config customer config
+     * @return the company pool, or {@link #NONE} if config does not identify a company
+     */
+    public static StringPool forConfig(TicketSystemConfig config) {
+        if (config == null || config.getTicketSourceConfig() == null)
+            return NONE;
+        Map<String, String> properties = config.getTicketSourceConfig();
+        String companyId = properties.get(TicketSourceConfigPropertyCW.COMPANY_ID);
+        if (companyId == null)
+            return NONE;
+        String tenantKey = properties.get(TicketSourceConfigPropertyCW.URL) + "|" + companyId;
+        return tenantPools.computeIfAbsent(tenantKey, k -> new StringPool(DEFAULT_MAX_SIZE));
+    }
+
+    /**
+     * Gets the canonical instance of a value
+     *
+     * @param value decoded value. May be null
+     * @return the pooled instance equal to value, or value itself if it is new or the pool is full
+     */
+    public String canonicalize(String value) {
+        if (value == null || maxSize == 0)
+            return value;
+        String pooled = values.get(value);
+        if (pooled != null)
+            return pooled;
+        // The bound is approximate under contention, which is enough to keep the pool small
+        if (values.size() >= maxSize)
+            return value;
+        pooled = values.putIfAbsent(value, value);
+        return pooled != null ? pooled : value;
+    }
+
+    /**
+     * @return number of pooled values
+     */
+    public int size() {
+        return values.size();
+    }
+}
@@ -0,0 +1,198 @@
+package com.insightsystems.symphony.tal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.avispl.symphony.api.tal.error.TalAdapterSyncException;
+
+/**
+ * ConnectWise requests needed to bring a ticket up to date, decided before any of them is sent.
+ * Operations only wait for the operations they depend on, so independent requests, such as the ticket PATCH,
+ * the description PATCH and the note PATCHes, are sent concurrently. A plan can also be described without being
+ * executed, to report the requests a sync would send.
+ * <p>
+ * Each operation applies its own error policy: it throws only if its failure must fail the sync.
+ *
+ * @since 5.8
+ */
+public class SyncPlan {
+    //* ----------------------------- VARIABLES ----------------------------- *//
+
+    /**
+     * Logger instance
+     */
+    private static final Logger logger = LoggerFactory.getLogger(SyncPlan.class);
+
+    /**
+     * Operations in the order they were planned
+     */
+    private final List<Operation> operations = new ArrayList<>();
+
+
+    //* ----------------------------- METHODS ----------------------------- *//
+
+    /**
+     * Request sent by an operation
+     */
+    @FunctionalInterface
+    public interface Action {
+        /**
+         * @throws TalAdapterSyncException if the request failed and the sync must fail
+         */
+        void run() throws TalAdapterSyncException;
+    }
+
+    /**
+     * Adds an operation to the plan
+     *
+     * @param method HTTP method of the request
+     * @param url request URL
+     * @param summary short description of what the request changes
+     * @param action sends the request
+     * @param dependencies operations that must complete before this one starts. Null entries are ignored
+     * @return the new operation, to be used as a dependency of later operations
+     */
+    public Operation add(String method, String url, String summary, Action action, Operation... dependencies) {
+        List<Operation> required = new ArrayList<>(dependencies.length);
+        for (Operation dependency : dependencies) {
+            if (dependency != null)
+                required.add(dependency);
+        }
+        Operation operation = new Operation(method, url, summary, action, required);
+        operations.add(operation);
+        return operation;
+    }
+
+    /**
+     * Sends every planned request. Operations start as soon as their dependencies completed, on executor.
+     * An operation whose dependency failed is not sent
+     *
+     * @param executor executor for operations that run concurrently. Null to send the requests one at a time,
+     *                 in plan order, on the calling thread
+     * @throws TalAdapterSyncException the failure of the first planned operation that failed
+     */
+    public void execute(Executor executor) throws TalAdapterSyncException {
+        if (operations.isEmpty())
+            return;
+        if (executor == null || operations.size() == 1) {
+            for (Operation operation : operations)
+                operation.action.run();
+            return;
+        }
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>(operations.size());
+        for (Operation operation : operations) {
+            CompletableFuture<?>[] dependencies = operation.dependencies.stream()
+                    .map(dependency -> futures.get(operations.indexOf(dependency)))
+                    .toArray(CompletableFuture[]::new);
+            // Operations run in the trace of the sync that executes the plan
+            futures.add(CompletableFuture.allOf(dependencies).thenRunAsync(SyncTrace.wrap(() -> {
+                try {
+                    operation.action.run();
+                } catch (TalAdapterSyncException e) {
+                    throw new CompletionException(e);
+                }
+            }), executor));
+        }
+
+        try {
+            CompletableFuture.allOf(futures.toArray(CompletableFuture<?>[]::new)).join();
+        } catch (CompletionException e) {
+            // Report the failure of the first failed operation, in plan order
+            for (int i = 0; i < futures.size(); i++) {
+                if (!futures.get(i).isCompletedExceptionally())
+                    continue;
+                Throwable cause = futures.get(i).handle((ignored, error) -> error).join();
+                while (cause instanceof CompletionException && cause.getCause() != null)
+                    cause = cause.getCause();
+                logger.error("execute: {} failed - {}", operations.get(i), cause.getMessage());
+                if (cause instanceof TalAdapterSyncException)
+                    throw (TalAdapterSyncException) cause;
+                if (cause instanceof RuntimeException)
+                    throw (RuntimeException) cause;
+                throw new TalAdapterSyncException(cause.getMessage(), cause);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Describes the planned requests, e.g. to report them in dry-run mode
+     *
+     * @return one line per planned request
+     */
+    public List<String> describe() {
+        List<String> lines = new ArrayList<>(operations.size());
+        for (Operation operation : operations)
+            lines.add(operation.toString());
+        return lines;
+    }
+
+    /**
+     * @return planned operations, in the order they were planned
+     */
+    public List<Operation> getOperations() {
+        return Collections.unmodifiableList(operations);
+    }
+
+    public boolean isEmpty() {
+        return operations.isEmpty();
+    }
+
+    public int size() {
+        return operations.size();
+    }
+
+    /**
+     * A planned request
+     */
+    public static final class Operation {
+        private final String method;
+        private final String url;
+        private final String summary;
+        private final Action action;
+        private final List<Operation> dependencies;
+
+        private Operation(String method, String url, String summary, Action action, List<Operation> dependencies) {
+            this.method = method;
+            this.url = url;
+            this.summary = summary;
+            this.action = action;
+            this.dependencies = dependencies;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public String getSummary() {
+            return summary;
+        }
+
+        /**
+         * @return operations that must complete before this one starts
+         */
+        public List<Operation> getDependencies() {
+            return Collections.unmodifiableList(dependencies);
+        }
+
+        @Override
+        public String toString() {
+            return method + " " + url + (summary != null ? " - " + summary : "") +
+                    (dependencies.isEmpty() ? "" : " (after " + Arrays.toString(
+                            dependencies.stream().map(d -> d.method + " " + d.url).toArray()) + ")");
+        }
+    }
+}
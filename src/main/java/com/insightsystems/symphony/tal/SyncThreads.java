@@ -0,0 +1,120 @@
+package com.insightsystems.symphony.tal;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates the threads that run syncs and their parallel HTTP requests.
+ * When the {@value #VIRTUAL_THREADS_PROPERTY} system property is true and the JVM supports them (Java 21+),
+ * virtual threads are used, so that thousands of syncs can wait on ConnectWise without a platform thread each.
+ * Otherwise daemon platform threads are used, and {@link #isVirtual()} is false.
+ * <p>
+ * Code running on these threads must not block inside synchronized sections, which pin virtual threads
+ * to their carrier thread. Use {@link java.util.concurrent.locks.ReentrantLock} instead.
+ *
+ * @since 5.8
+ */
+public class SyncThreads {
+    //* ----------------------------- VARIABLES ----------------------------- *//
+
+    /**
+     * Logger instance
+     */
+    private static final Logger logger = LoggerFactory.getLogger(SyncThreads.class);
+
+    /**
+     * System property that enables virtual threads
+     */
+    public static final String VIRTUAL_THREADS_PROPERTY = "connectwise.virtualThreads";
+
+    /**
+     * Thread.ofVirtual(), or null if virtual threads are disabled or cannot be created.
+     * Looked up by reflection so that the adapter still compiles and runs on Java 11
+     */
+    private static final Method ofVirtual = findOfVirtual();
+
+
+    //* ----------------------------- METHODS ----------------------------- *//
+
+    private SyncThreads() {
+    }
+
+    /**
+     * @return true if new threads are virtual threads. Sizes meant for virtual threads must not be used otherwise
+     */
+    public static boolean isVirtual() {
+        return ofVirtual != null;
+    }
+
+    /**
+     * Creates a thread factory for one kind of task
+     *
+     * @param namePrefix prefix of thread names, followed by a sequence number (i.e. "connectwise-note-post-")
+     * @return factory of virtual threads if enabled, of daemon platform threads otherwise
+     */
+    public static ThreadFactory newThreadFactory(String namePrefix) {
+        if (ofVirtual != null) {
+            try {
+                return newVirtualThreadFactory(ofVirtual, namePrefix);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                logger.warn("newThreadFactory: unable to create virtual threads - using platform threads", e);
+            }
+        }
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+
+    //* ----------------------------- HELPER METHODS ----------------------------- *//
+
+    /**
+     * Looks up Thread.ofVirtual(), and checks that a virtual thread factory can be created with it
+     *
+     * @return Thread.ofVirtual(), or null if virtual threads are disabled or cannot be created
+     */
+    private static Method findOfVirtual() {
+        if (!Boolean.getBoolean(VIRTUAL_THREADS_PROPERTY))
+            return null;
+        Method method;
+        try {
+            method = Thread.class.getMethod("ofVirtual");
+        } catch (NoSuchMethodException e) {
+            logger.warn("findOfVirtual: virtual threads require Java 21 or later - using platform threads");
+            return null;
+        }
+        try {
+            newVirtualThreadFactory(method, "connectwise-probe-");
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.warn("findOfVirtual: unable to create virtual threads - using platform threads", e);
+            return null;
+        }
+        logger.info("findOfVirtual: syncs run on virtual threads");
+        return method;
+    }
+
+    /**
+     * Creates a virtual thread factory by reflection
+     *
+     * @param ofVirtual Thread.ofVirtual()
+     * @param namePrefix prefix of thread names, followed by a sequence number
+     * @return factory of virtual threads
+     * @throws ReflectiveOperationException if the builder methods cannot be called
+     */
+    private static ThreadFactory newVirtualThreadFactory(Method ofVirtual, String namePrefix)
+            throws ReflectiveOperationException {
+        // Builder implementations are not public, so methods are looked up on the public interface
+        Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+        Object builder = ofVirtual.invoke(null);
+        builder = builderType.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 1L);
+        return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+    }
+}
@@ -0,0 +1,361 @@
+package com.insightsystems.symphony.tal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Timing breakdown of one sync.
+ * A trace is started when a sync enters the adapter and is current on the sync thread until it is closed. Code on the
+ * sync path opens spans with {@link #startSpan(String)}: each span is a child of the span current on its thread,
+ * and is a no-op when no trace is current, e.g. for background replays. Tasks handed to executors are wrapped with
+ * {@link #wrap(Callable)}, so that their spans stay in the trace of the sync that submitted them.
+ * <p>
+ * When the trace is closed, a one-line summary of the time spent per span name is logged, and the spans are handed
+ * to the {@link SpanExporter} set with {@link #setExporter(SpanExporter)}.
+ *
+ * @since 5.8
+ */
+public final class SyncTrace implements AutoCloseable {
+    //* ----------------------------- VARIABLES ----------------------------- *//
+
+    /**
+     * Logger instance
+     */
+    private static final Logger logger = LoggerFactory.getLogger(SyncTrace.class);
+
+    /**
+     * Span current on each thread. Null if no trace is current
+     */
+    private static final ThreadLocal<Span> currentSpan = new ThreadLocal<>();
+
+    /**
+     * Exporter of completed traces
+     */
+    private static volatile SpanExporter exporter = SpanExporter.NONE;
+
+    private final String traceId;
+    private final long startEpochNanos;
+    private final long startNanos;
+    private final Span root;
+
+    /**
+     * Span current on the thread before this trace was started, restored on close
+     */
+    private final Span previous;
+
+    /**
+     * Ended spans, root span excluded. Spans may end on any thread of the sync
+     */
+    private final Queue<Span> ended = new ConcurrentLinkedQueue<>();
+
+
+    //* ----------------------------- METHODS ----------------------------- *//
+
+    private SyncTrace(String name) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        this.traceId = hex(random.nextLong() | 1) + hex(random.nextLong());
+        this.startEpochNanos = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+        this.startNanos = System.nanoTime();
+        this.previous = currentSpan.get();
+        this.root = new Span(this, null, name);
+        currentSpan.set(root);
+    }
+
+    /**
+     * Starts a trace and makes it current on the calling thread
+     *
+     * @param name name of the root span, e.g. "syncTalTicket"
+     * @return the trace, to be closed once the sync completed
+     */
+    public static SyncTrace start(String name) {
+        return new SyncTrace(name);
+    }
+
+    /**
+     * Starts a span in the trace current on the calling thread, and makes it current until it is closed
+     *
+     * @param name span name, e.g. "get" or the HTTP method of a request
+     * @return the span, or a no-op span if no trace is current
+     */
+    public static Span startSpan(String name) {
+        Span parent = currentSpan.get();
+        if (parent == null || parent.trace == null)
+            return Span.NOOP;
+        Span span = new Span(parent.trace, parent, name);
+        currentSpan.set(span);
+        return span;
+    }
+
+    /**
+     * Wraps a task, so that it runs in the trace and under the span current on the calling thread
+     *
+     * @param task task to be run on another thread
+     * @param <T> task result type
+     * @return task, run in the current trace
+     */
+    public static <T> Callable<T> wrap(Callable<T> task) {
+        Span parent = currentSpan.get();
+        if (parent == null)
+            return task;
+        return () -> {
+            Span previousSpan = currentSpan.get();
+            currentSpan.set(parent);
+            try {
+                return task.call();
+            } finally {
+                restore(previousSpan);
+            }
+        };
+    }
+
+    /**
+     * Wraps a task, so that it runs in the trace and under the span current on the calling thread
+     *
+     * @param task task to be run on another thread
+     * @return task, run in the current trace
+     */
+    public static Runnable wrap(Runnable task) {
+        Span parent = currentSpan.get();
+        if (parent == null)
+            return task;
+        return () -> {
+            Span previousSpan = currentSpan.get();
+            currentSpan.set(parent);
+            try {
+                task.run();
+            } finally {
+                restore(previousSpan);
+            }
+        };
+    }
+
+    /**
+     * @return the span current on the calling thread, or a no-op span if no trace is current
+     */
+    public static Span currentSpan() {
+        Span span = currentSpan.get();
+        return span == null ? Span.NOOP : span;
+    }
+
+    public static SpanExporter getExporter() {
+        return exporter;
+    }
+
+    /**
+     * @param exporter exporter of completed traces. Null to drop the spans
+     */
+    public static void setExporter(SpanExporter exporter) {
+        SyncTrace.exporter = exporter == null ? SpanExporter.NONE : exporter;
+    }
+
+    /**
+     * @return root span, e.g. to set attributes of the sync
+     */
+    public Span getRoot() {
+        return root;
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    /**
+     * Ends the trace, restores the span current before it started, logs its summary and exports its spans.
+     * Spans still open are not exported
+     */
+    @Override
+    public void close() {
+        root.end();
+        restore(previous);
+
+        List<Span> spans = new ArrayList<>(ended);
+        spans.sort((a, b) -> Long.compare(a.startNanos, b.startNanos));
+        logger.info("{}: {}", root.name, summary(spans));
+
+        spans.add(root);
+        SpanExporter spanExporter = exporter;
+        if (spanExporter == SpanExporter.NONE)
+            return;
+        try {
+            spanExporter.export(Collections.unmodifiableList(spans));
+        } catch (RuntimeException e) {
+            logger.warn("close: span exporter failed - {}", e.getMessage());
+        }
+    }
+
+
+    //* ----------------------------- HELPER METHODS ----------------------------- *//
+
+    /**
+     * Summarizes the time spent per span name, in the order the names first occurred,
+     * e.g. "trace 4bf9... 8012 ms - config 5 ms, get 3100 ms, GET 2x 3050 ms"
+     */
+    private String summary(List<Span> spans) {
+        Map<String, long[]> totals = new LinkedHashMap<>();
+        for (Span span : spans) {
+            long[] total = totals.computeIfAbsent(span.name, k -> new long[2]);
+            total[0]++;
+            total[1] += span.getDurationNanos();
+        }
+        StringBuilder summary = new StringBuilder("trace ").append(traceId).append(' ')
+                .append(TimeUnit.NANOSECONDS.toMillis(root.getDurationNanos())).append(" ms");
+        String separator = " - ";
+        for (Map.Entry<String, long[]> total : totals.entrySet()) {
+            summary.append(separator).append(total.getKey()).append(' ');
+            if (total.getValue()[0] > 1)
+                summary.append(total.getValue()[0]).append("x ");
+            summary.append(TimeUnit.NANOSECONDS.toMillis(total.getValue()[1])).append(" ms");
+            separator = ", ";
+        }
+        return summary.toString();
+    }
+
+    private static void restore(Span span) {
+        if (span == null)
+            currentSpan.remove();
+        else
+            currentSpan.set(span);
+    }
+
+    private static String hex(long value) {
+        String hex = Long.toHexString(value);
+        return "0000000000000000".substring(hex.length()) + hex;
+    }
+
+    /**
+     * Timed operation of a sync
+     */
+    public static final class Span implements AutoCloseable {
+        /**
+         * Span returned when no trace is current. Ignores every call
+         */
+        static final Span NOOP = new Span(null, null, "noop");
+
+        private final SyncTrace trace;
+        private final Span parent;
+        private final String name;
+        private final String spanId;
+        private final long startNanos;
+        private volatile long endNanos;
+        private volatile String error;
+
+        /**
+         * Attributes are set by the thread that owns the span, and read once it ended
+         */
+        private final Map<String, String> attributes = new LinkedHashMap<>();
+
+        private Span(SyncTrace trace, Span parent, String name) {
+            this.trace = trace;
+            this.parent = parent;
+            this.name = name;
+            this.spanId = trace == null ? null : hex(ThreadLocalRandom.current().nextLong() | 1);
+            this.startNanos = System.nanoTime();
+        }
+
+        /**
+         * Sets an attribute, e.g. "http.status_code"
+         *
+         * @param key attribute name
+         * @param value attribute value. Ignored if null
+         * @return this span
+         */
+        public Span setAttribute(String key, Object value) {
+            if (trace != null && value != null)
+                attributes.put(key, value.toString());
+            return this;
+        }
+
+        /**
+         * Marks the span as failed
+         *
+         * @param error failure of the operation
+         * @return this span
+         */
+        public Span setError(Throwable error) {
+            if (trace != null && error != null)
+                this.error = error.getClass().getSimpleName() + ": " + error.getMessage();
+            return this;
+        }
+
+        /**
+         * Ends the span and makes its parent current again
+         */
+        @Override
+        public void close() {
+            if (trace == null || endNanos != 0)
+                return;
+            end();
+            if (currentSpan.get() == this)
+                restore(parent);
+            trace.ended.add(this);
+        }
+
+        private void end() {
+            endNanos = System.nanoTime();
+        }
+
+        public String getTraceId() {
+            return trace == null ? null : trace.traceId;
+        }
+
+        /**
+         * @return 16 hex digit span ID
+         */
+        public String getSpanId() {
+            return spanId;
+        }
+
+        /**
+         * @return ID of the parent span, or null for the root span of a trace
+         */
+        public String getParentSpanId() {
+            return parent == null ? null : parent.spanId;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getStartEpochNanos() {
+            return trace == null ? 0 : trace.startEpochNanos + (startNanos - trace.startNanos);
+        }
+
+        public long getEndEpochNanos() {
+            return endNanos == 0 ? 0 : getStartEpochNanos() + getDurationNanos();
+        }
+
+        /**
+         * @return duration of the span, or 0 if it did not end
+         */
+        public long getDurationNanos() {
+            return endNanos == 0 ? 0 : endNanos - startNanos;
+        }
+
+        public Map<String, String> getAttributes() {
+            return Collections.unmodifiableMap(attributes);
+        }
+
+        /**
+         * @return description of the failure, or null if the span succeeded
+         */
+        public String getError() {
+            return error;
+        }
+
+        @Override
+        public String toString() {
+            return name + " " + TimeUnit.NANOSECONDS.toMillis(getDurationNanos()) + " ms";
+        }
+    }
+}
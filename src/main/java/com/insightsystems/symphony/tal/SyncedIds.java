@@ -0,0 +1,128 @@
+package com.insightsystems.symphony.tal;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Remembers the ConnectWise IDs assigned by the most recent syncs.
+ * Symphony may send an update of a ticket before it has stored the IDs of the previous sync. Applying the
+ * remembered IDs to that update makes its sync patch the ticket and notes created by the previous sync, instead
+ * of creating them again.
+ *
+ * @since 5.8
+ */
+public class SyncedIds {
+    //* ----------------------------- VARIABLES ----------------------------- *//
+
+    /**
+     * Default number of tickets remembered
+     */
+    public static final int DEFAULT_CAPACITY = 10000;
+
+    /**
+     * IDs by Symphony ticket ID, least recently synced first
+     */
+    private final LinkedHashMap<String, TicketIds> ticketIds;
+
+    /**
+     * Guards ticketIds
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+
+    //* ----------------------------- METHODS ----------------------------- *//
+
+    public SyncedIds() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * SyncedIds constructor
+     *
+     * @param capacity maximum number of tickets remembered
+     */
+    public SyncedIds(int capacity) {
+        this.ticketIds = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TicketIds> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Remembers the ConnectWise IDs of a successfully synced ticket and of its comments
+     *
+     * @param CWTicket ticket after a successful sync
+     */
+    public void record(ConnectWiseTicket CWTicket) {
+        if (CWTicket.getSymphonyId() == null || CWTicket.getId() == null)
+            return;
+
+        Map<String, String> commentIds = new HashMap<>();
+        if (CWTicket.getComments() != null) {
+            for (ConnectWiseComment comment : CWTicket.getComments()) {
+                if (comment.getSymphonyId() != null && comment.getThirdPartyId() != null)
+                    commentIds.put(comment.getSymphonyId(), comment.getThirdPartyId());
+            }
+        }
+
+        lock.lock();
+        try {
+            ticketIds.put(CWTicket.getSymphonyId(), new TicketIds(CWTicket.getId(), CWTicket.getUrl(), commentIds));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sets the remembered ConnectWise IDs on a ticket and comments that do not have one yet
+     *
+     * @param CWTicket ticket mapped from Symphony
+     */
+    public void apply(ConnectWiseTicket CWTicket) {
+        if (CWTicket.getSymphonyId() == null)
+            return;
+
+        TicketIds ids;
+        lock.lock();
+        try {
+            ids = ticketIds.get(CWTicket.getSymphonyId());
+        } finally {
+            lock.unlock();
+        }
+        if (ids == null)
+            return;
+
+        if (CWTicket.getId() == null) {
+            CWTicket.setId(ids.id);
+            CWTicket.setUrl(ids.url);
+        }
+        if (CWTicket.getComments() != null) {
+            for (ConnectWiseComment comment : CWTicket.getComments()) {
+                if (comment.getThirdPartyId() == null && comment.getSymphonyId() != null)
+                    comment.setThirdPartyId(ids.commentIds.get(comment.getSymphonyId()));
+            }
+        }
+    }
+
+
+    //* ----------------------------- HELPER METHODS ----------------------------- *//
+
+    /**
+     * ConnectWise IDs of a ticket and of its comments by Symphony comment ID
+     */
+    private static final class TicketIds {
+        private final String id;
+        private final String url;
+        private final Map<String, String> commentIds;
+
+        private TicketIds(String id, String url, Map<String, String> commentIds) {
+            this.id = id;
+            this.url = url;
+            this.commentIds = commentIds;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.insightsystems.symphony.tal;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Stable content hash of the synced fields of a {@link ConnectWiseTicket}.
+ * Used to recognize tickets that Symphony sends again without any change since their last successful sync.
+ *
+ * @since 5.8
+ */
+public class TicketContentHash {
+
+    /**
+     * Orders comments independently of the order of the comment set
+     */
+    private static final Comparator<ConnectWiseComment> commentOrder = Comparator
+            .comparing(ConnectWiseComment::getSymphonyId, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(ConnectWiseComment::getThirdPartyId, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(ConnectWiseComment::getText, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private TicketContentHash() {
+    }
+
+    /**
+     * Computes the hash of the summary, status, priority, assignee, description and comments of a ticket.
+     * The result does not depend on the order of the comments.
+     *
+     * @param CWTicket ticket to hash
+     * @return URL-safe Base64 SHA-256 hash
+     */
+    public static String of(ConnectWiseTicket CWTicket) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+
+        update(digest, CWTicket.getSummary());
+        update(digest, CWTicket.getStatus());
+        update(digest, CWTicket.getPriority());
+        update(digest, CWTicket.getAssignee());
+        update(digest, CWTicket.getDescription() == null ? null : CWTicket.getDescription().getText());
+
+        List<ConnectWiseComment> comments = CWTicket.getComments() == null ?
+                new ArrayList<>() : new ArrayList<>(CWTicket.getComments());
+        comments.sort(commentOrder);
+        update(digest, Integer.toString(comments.size()));
+        for (ConnectWiseComment comment : comments) {
+            update(digest, comment.getSymphonyId());
+            update(digest, comment.getThirdPartyId());
+            update(digest, comment.getTextBytes());
+        }
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest());
+    }
+
+    /**
+     * Adds a length-prefixed value to the digest, so that field boundaries cannot be shifted between fields
+     *
+     * @param digest digest to update
+     * @param value value to add. null is hashed differently from an empty String
+     */
+    private static void update(MessageDigest digest, String value) {
+        update(digest, value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Adds a length-prefixed UTF-8 value to the digest
+     *
+     * @param digest digest to update
+     * @param bytes value to add. null is hashed differently from an empty value
+     */
+    private static void update(MessageDigest digest, byte[] bytes) {
+        if (bytes == null) {
+            digest.update((byte) 0);
+            return;
+        }
+        digest.update((byte) 1);
+        digest.update((byte) (bytes.length >>> 24));
+        digest.update((byte) (bytes.length >>> 16));
+        digest.update((byte) (bytes.length >>> 8));
+        digest.update((byte) bytes.length);
+        digest.update(bytes);
+    }
+}
@@ -0,0 +1,72 @@
+package com.insightsystems.symphony.tal;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Per-ticket locks keyed by Symphony ID.
+ * Syncs of the same ticket are serialized, while syncs of different tickets never wait for each other.
+ * A lock only exists while a sync holds or waits for it, so memory does not grow with the number of tickets.
+ *
+ * @since 5.8
+ */
+public class TicketLocks {
+    //* ----------------------------- VARIABLES ----------------------------- *//
+
+    /**
+     * Locks in use by Symphony ID
+     */
+    private final ConcurrentHashMap<String, TicketLock> locks = new ConcurrentHashMap<>();
+
+
+    //* ----------------------------- METHODS ----------------------------- *//
+
+    /**
+     * Waits until no other sync holds the ticket's lock, then acquires it.
+     * Every call must be followed by {@link #unlock(String)} in a finally block.
+     *
+     * @param symphonyId Symphony ID of the ticket
+     */
+    public void lock(String symphonyId) {
+        // Registering as a holder inside compute guarantees the lock is not removed before it is acquired
+        TicketLock ticketLock = locks.compute(symphonyId, (id, existing) -> {
+            TicketLock lock = existing == null ? new TicketLock() : existing;
+            lock.holders++;
+            return lock;
+        });
+        ticketLock.lock.lock();
+    }
+
+    /**
+     * Releases the ticket's lock acquired by {@link #lock(String)}
+     *
+     * @param symphonyId Symphony ID of the ticket
+     */
+    public void unlock(String symphonyId) {
+        TicketLock ticketLock = locks.get(symphonyId);
+        if (ticketLock == null || !ticketLock.lock.isHeldByCurrentThread())
+            throw new IllegalMonitorStateException("Ticket " + symphonyId + " is not locked by the current thread");
+
+        ticketLock.lock.unlock();
+        locks.computeIfPresent(symphonyId, (id, lock) -> --lock.holders == 0 ? null : lock);
+    }
+
+    /**
+     * @return number of tickets currently locked or waited for
+     */
+    public int size() {
+        return locks.size();
+    }
+
+
+    //* ----------------------------- HELPER METHODS ----------------------------- *//
+
+    /**
+     * Lock of a single ticket with the number of syncs holding or waiting for it.
+     * holders is only accessed inside {@link ConcurrentHashMap#compute} calls, which serialize it
+     */
+    private static final class TicketLock {
+        private final ReentrantLock lock = new ReentrantLock();
+        private int holders;
+    }
+}
@@ -41,6 +41,7 @@ public class TicketMapper {
                 ticket.getThirdPartyLink(), ticket.getExtraParams()
         );
 
+        CWTicket.setCustomerId(ticket.getCustomerId());
         CWTicket.setSummary(ticket.getSubject());
         mapTicketDescription(ticket, CWTicket, config);
         mapTicketStatus(ticket, CWTicket, config);
@@ -79,6 +80,8 @@ public class TicketMapper {
         remapCommentCreator(ticket, CWTicket, config);
         remapAttachmentCreator(ticket, CWTicket, config);
         ticket.setExtraParams(CWTicket.getExtraParams());
+        if (ticket.getExtraParams() != null && ticket.getComments() != null)
+            CommentWatermarks.advanceToSymphony(ticket.getExtraParams(), ticket.getComments());
 
         return ticket;
     }
@@ -179,14 +182,28 @@ public class TicketMapper {
      * @param config adapter configuration
      */
     private static void mapCommentCreator(TalTicket ticket, ConnectWiseTicket CWTicket, TicketSystemConfig config) {
+        // Comments synced before the watermark are not posted again, so their creator does not need mapping
+        long watermark = CommentWatermarks.toConnectWise(ticket.getExtraParams(), config);
         Optional.ofNullable(ticket.getComments())
                 .orElse(Collections.emptySet())
                 .stream()
                 .forEach(c -> CWTicket.addComment(new ConnectWiseComment(c.getSymphonyId(), c.getThirdPartyId(),
-                        mapUser(c.getCreator(), config), c.getText(), c.getLastModified())));
+                        isSynced(c, watermark) ? null : mapUser(c.getCreator(), config),
+                        c.getText(), c.getLastModified())));
 
     }
 
+    /**
+     * Checks if a comment exists in the third party system and has not been modified since the watermark
+     * @param comment Symphony comment
+     * @param watermark latest lastModified of the comments synced by the last successful sync
+     * @return true if the comment was not modified since it was synced
+     */
+    private static boolean isSynced(Comment comment, long watermark) {
+        return comment.getThirdPartyId() != null &&
+                (comment.getLastModified() == null ? 0L : comment.getLastModified()) <= watermark;
+    }
+
     /**
      * Maps attachment requestors from Symphony to 3rd party ticketing system
      * @param ticket ticket instance that needs to be mapped
@@ -239,10 +256,26 @@ public class TicketMapper {
         if (userId == null)
             return null;
 
-        if (config == null || config.getUserMappingForSymphony() == null)
+        if (config == null)
             throw new InvalidArgumentException("User mapping for Symphony cannot be null");
 
-        String thirdPartyUserId = config.getUserMappingForSymphony().get(userId);
+        return remapUser(userId, config.getUserMappingForSymphony());
+    }
+
+    /**
+     * Maps user ID from ConnectWise to Symphony using a user mapping that was already retrieved from the config
+     * @param userId user identifier to map
+     * @param userMappingForSymphony user mapping for Symphony
+     * @return mapped identifier eligible for Symphony
+     */
+    private static String remapUser(String userId, Map<String, String> userMappingForSymphony) {
+        if (userId == null)
+            return null;
+
+        if (userMappingForSymphony == null)
+            throw new InvalidArgumentException("User mapping for Symphony cannot be null");
+
+        String thirdPartyUserId = userMappingForSymphony.get(userId);
 
         if (thirdPartyUserId == null)
             return userId;
@@ -333,30 +366,49 @@ public class TicketMapper {
      * @param config adapter configuration
      */
     private static void remapCommentCreator(TalTicket ticket, ConnectWiseTicket CWTicket, TicketSystemConfig config) {
-        Set<Comment> symphonyComments = new HashSet<>();
-
         if (CWTicket.getComments() == null) // if there are no comments, there is nothing to map
             return;
 
+        Set<Comment> symphonyComments = new HashSet<>(CWTicket.getComments().size() * 2);
+        Map<String, String> userMappingForSymphony = config.getUserMappingForSymphony();
+        // Comments mapped back before the watermark are returned to Symphony as they are
+        long watermark = CommentWatermarks.toSymphony(CWTicket.getExtraParams(), config);
+
+        // Index Symphony comments by Symphony ID and ConnectWise ID once for the whole ticket
+        Map<String, Comment> commentsBySymphonyId = new HashMap<>();
+        Map<String, Comment> commentsByThirdPartyId = new HashMap<>();
+        if (ticket.getComments() != null) {
+            for (Comment SymphonyComment : ticket.getComments()) {
+                if (SymphonyComment.getSymphonyId() != null)
+                    commentsBySymphonyId.putIfAbsent(SymphonyComment.getSymphonyId(), SymphonyComment);
+                if (SymphonyComment.getThirdPartyId() != null)
+                    commentsByThirdPartyId.putIfAbsent(SymphonyComment.getThirdPartyId(), SymphonyComment);
+            }
+        }
+
         for (ConnectWiseComment CWComment:
                 CWTicket.getComments()) {
+            Comment SymphonyComment = CWComment.getSymphonyId() != null ?
+                    commentsBySymphonyId.get(CWComment.getSymphonyId()) : null;
+            if (SymphonyComment == null && CWComment.getThirdPartyId() != null)
+                SymphonyComment = commentsByThirdPartyId.get(CWComment.getThirdPartyId());
+
+            // Unchanged comments are kept
+            if (SymphonyComment != null && isSynced(SymphonyComment, watermark) &&
+                    Objects.equals(SymphonyComment.getThirdPartyId(), CWComment.getThirdPartyId()) &&
+                    CWComment.hasText(SymphonyComment.getText())) {
+                symphonyComments.add(SymphonyComment);
+                continue;
+            }
+
             // Find creator
             String mappedCreator = null;
             // If CWComment has creator, map the creator back
             if (CWComment.getCreator() != null) {
-                mappedCreator = remapUser(CWComment.getCreator(), config);
-            } else {
-                // If CWComment does not have a creator, find the matching Symphony comment
-                for (Comment SymphonyComment : ticket.getComments()) {
-                    if ((SymphonyComment.getSymphonyId() != null &&
-                            Objects.equals(SymphonyComment.getSymphonyId(), CWComment.getSymphonyId())) ||
-                            (SymphonyComment.getThirdPartyId() != null &&
-                            Objects.equals(SymphonyComment.getThirdPartyId(), CWComment.getThirdPartyId()))) {
-                        // Set creator to matching Symphony creator
-                        mappedCreator = SymphonyComment.getCreator();
-                        break;
-                    }
-                }
+                mappedCreator = remapUser(CWComment.getCreator(), userMappingForSymphony);
+            } else if (SymphonyComment != null) {
+                // If CWComment does not have a creator, use the creator of the matching Symphony comment
+                mappedCreator = SymphonyComment.getCreator();
             }
             symphonyComments.add(
                     new Comment(
@@ -0,0 +1,176 @@
+package com.insightsystems.symphony.tal;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snapshot cache of ConnectWise ticket and note responses.
+ * Responses are kept as raw bodies, so that every read builds new, independent ConnectWiseTicket instances.
+ * Entries of a ticket are dropped when the adapter writes to it or when ConnectWise calls back with a change,
+ * see {@link ConnectWiseCallbackServer}. Expired entries are swept from time to time, so that responses of tickets
+ * that are never read again do not stay in memory.
+ *
+ * @since 5.8
+ */
+public class TicketResponseCache {
+    //* ----------------------------- VARIABLES ----------------------------- *//
+
+    /**
+     * Minimum time between two sweeps of expired responses
+     */
+    static final long SWEEP_INTERVAL_MILLIS = 60_000;
+
+    /**
+     * Cached response bodies by ticket key, then by request URL
+     */
+    private final Map<String, Map<String, CachedResponse>> responses = new ConcurrentHashMap<>();
+
+    /**
+     * Number of invalidations so far. A response requested before an invalidation may be stale, so it is not cached
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Time of the latest sweep of expired responses
+     */
+    private final AtomicLong lastSweep = new AtomicLong(System.currentTimeMillis());
+
+
+    //* ----------------------------- METHODS ----------------------------- *//
+
+    /**
+     * Creates the key of a ticket, shared by the adapter and by ConnectWise callbacks
+     *
+     * @param companyId ConnectWise login company ID
+     * @param ticketId ConnectWise ticket ID
+     * @return the ticket key
+     */
+    public static String ticketKey(String companyId, String ticketId) {
+        return (companyId == null ? "" : companyId.toLowerCase()) + "|" + ticketId;
+    }
+
+    /**
+     * Gets a cached response body
+     *
+     * @param ticketKey key of the ticket the request reads
+     * @param url request URL
+     * @return the body, or null if it is not cached or has expired
+     */
+    public String get(String ticketKey, String url) {
+        Map<String, CachedResponse> ticketResponses = responses.get(ticketKey);
+        CachedResponse response = ticketResponses == null ? null : ticketResponses.get(url);
+        if (response == null)
+            return null;
+        if (response.expiresAt <= System.currentTimeMillis()) {
+            ticketResponses.remove(url, response);
+            removeIfEmpty(ticketKey);
+            return null;
+        }
+        return response.body;
+    }
+
+    /**
+     * Gets the version of the cache to pass to {@link #put}, read before sending the request
+     *
+     * @return current version
+     */
+    public long version() {
+        return invalidations.get();
+    }
+
+    /**
+     * Caches a response body, unless an invalidation happened while it was requested
+     *
+     * @param ticketKey key of the ticket the request reads
+     * @param url request URL
+     * @param body response body
+     * @param ttlMillis time the body stays valid without any callback
+     * @param version value of {@link #version()} before the request was sent
+     */
+    public void put(String ticketKey, String url, String body, long ttlMillis, long version) {
+        if (invalidations.get() != version)
+            return;
+        sweepIfDue();
+        Map<String, CachedResponse> ticketResponses = responses.computeIfAbsent(ticketKey, k -> new ConcurrentHashMap<>());
+        CachedResponse response = new CachedResponse(body, System.currentTimeMillis() + ttlMillis);
+        ticketResponses.put(url, response);
+        // An invalidation may have run between the check and the put
+        if (invalidations.get() != version)
+            ticketResponses.remove(url, response);
+    }
+
+    /**
+     * Drops every cached response of a ticket
+     *
+     * @param ticketKey key of the changed ticket
+     */
+    public void invalidate(String ticketKey) {
+        invalidations.incrementAndGet();
+        responses.remove(ticketKey);
+    }
+
+    /**
+     * Drops every cached response
+     */
+    public void clear() {
+        invalidations.incrementAndGet();
+        responses.clear();
+    }
+
+    /**
+     * Drops every expired response, and tickets left without any response
+     *
+     * @param now current time
+     */
+    void sweep(long now) {
+        for (String ticketKey : responses.keySet()) {
+            Map<String, CachedResponse> ticketResponses = responses.get(ticketKey);
+            if (ticketResponses == null)
+                continue;
+            ticketResponses.values().removeIf(response -> response.expiresAt <= now);
+            removeIfEmpty(ticketKey);
+        }
+    }
+
+    /**
+     * @return number of tickets with cached responses
+     */
+    int size() {
+        return responses.size();
+    }
+
+
+    //* ----------------------------- HELPER METHODS ----------------------------- *//
+
+    /**
+     * Sweeps expired responses if the latest sweep is older than {@link #SWEEP_INTERVAL_MILLIS}.
+     * Only one of the threads calling at the same time sweeps
+     */
+    private void sweepIfDue() {
+        long now = System.currentTimeMillis();
+        long last = lastSweep.get();
+        if (now - last >= SWEEP_INTERVAL_MILLIS && lastSweep.compareAndSet(last, now))
+            sweep(now);
+    }
+
+    /**
+     * Drops the response map of a ticket if it is empty.
+     * A put racing with the removal only loses its entry, which costs one more request
+     *
+     * @param ticketKey key of the ticket
+     */
+    private void removeIfEmpty(String ticketKey) {
+        responses.computeIfPresent(ticketKey, (k, ticketResponses) -> ticketResponses.isEmpty() ? null : ticketResponses);
+    }
+
+    private static final class CachedResponse {
+        private final String body;
+        private final long expiresAt;
+
+        private CachedResponse(String body, long expiresAt) {
+            this.body = body;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
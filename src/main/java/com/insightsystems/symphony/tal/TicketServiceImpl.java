@@ -29,6 +29,11 @@ public class TicketServiceImpl {
     */
     private ConnectWiseClient CWClient;
 
+    /**
+     * Registry sync phases are recorded in
+     */
+    private final ConnectWiseMetrics metrics = ConnectWiseMetrics.getInstance();
+
 
     //* ----------------------------- METHODS ----------------------------- *//
 
@@ -36,6 +41,209 @@ public class TicketServiceImpl {
         this.CWClient = CWClient;
     }
 
+    /**
+     * Checks if CWTicket has not changed since its last successful sync, using the content hash stored in its extra
+     * parameters. Depending on the unchanged sync mode, ConnectWise is also probed for changes made on its side.
+     *
+     * @param CWTicket ticket mapped from Symphony
+     * @return true if the sync can be skipped. False if a full sync is needed
+     */
+    public boolean isUnchanged(TicketSystemConfig config, ConnectWiseTicket CWTicket) {
+        return isUnchanged(config, CWTicket, null);
+    }
+
+    /**
+     * Checks if CWTicket has not changed since its last successful sync.
+     * If the ticket was already retrieved from ConnectWise, its last update date is used instead of probing ConnectWise.
+     *
+     * @param CWTicket ticket mapped from Symphony
+     * @param prefetchedCWTicket ticket retrieved by {@link #prefetchCWTickets(TicketSystemConfig, Collection)}. Can be null
+     * @return true if the sync can be skipped. False if a full sync is needed
+     */
+    public boolean isUnchanged(TicketSystemConfig config, ConnectWiseTicket CWTicket, ConnectWiseTicket prefetchedCWTicket) {
+        String mode = config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.UNCHANGED_SYNC_MODE);
+        if (Objects.equals(mode, "off"))
+            return false;
+
+        Map<String, String> extraParams = CWTicket.getExtraParams();
+        if (extraParams == null || CWTicket.getUrl() == null ||
+                !Objects.equals(extraParams.get("synced"), "true") ||
+                !Objects.equals(extraParams.get("connectionFailed"), "false") ||
+                extraParams.get("syncHash") == null)
+            return false;
+
+        if (!Objects.equals(extraParams.get("syncHash"), TicketContentHash.of(CWTicket)))
+            return false;
+
+        if (Objects.equals(mode, "skip")) {
+            logger.info("isUnchanged: ticket has not changed since last sync");
+            return true;
+        }
+
+        // Probe ConnectWise for changes made on its side
+        String lastUpdated = extraParams.get("cwLastUpdated");
+        if (lastUpdated == null)
+            return false;
+        if (prefetchedCWTicket != null) {
+            if (Objects.equals(lastUpdated, prefetchedCWTicket.getLastUpdated())) {
+                logger.info("isUnchanged: ticket has not changed since last sync on Symphony or ConnectWise");
+                return true;
+            }
+            return false;
+        }
+        try {
+            if (Objects.equals(lastUpdated, CWClient.getLastUpdated(config, CWTicket.getUrl()))) {
+                logger.info("isUnchanged: ticket has not changed since last sync on Symphony or ConnectWise");
+                return true;
+            }
+        } catch (TalAdapterSyncException e) {
+            logger.warn("isUnchanged: unable to probe ConnectWise for changes - running full sync");
+        }
+        return false;
+    }
+
+    /**
+     * Stores the content hash of a successfully synced ticket, along with ConnectWise's last update date and the
+     * comment watermark, in the ticket's extra parameters
+     *
+     * @param CWTicket ticket after a successful sync
+     * @param refreshedCWTicket ticket retrieved from ConnectWise during the sync. Null if the ticket was created
+     * @param written true if the sync sent requests that changed the ConnectWise ticket
+     */
+    public void commitSyncState(TicketSystemConfig config, ConnectWiseTicket CWTicket, ConnectWiseTicket refreshedCWTicket,
+                                boolean written) {
+        if (CWTicket.getExtraParams() == null)
+            CWTicket.setExtraParams(new HashMap<>());
+
+        // New tickets always post every comment
+        boolean fullReconcile = refreshedCWTicket == null ||
+                CommentWatermarks.isFullReconcileDue(CWTicket.getExtraParams(), config);
+        CommentWatermarks.advanceToConnectWise(CWTicket.getExtraParams(), CWTicket.getComments(), fullReconcile);
+
+        CWTicket.getExtraParams().put("syncHash", TicketContentHash.of(CWTicket));
+        // Writes made during the sync change ConnectWise's last update date: it is read again after them,
+        // so that the next sync does not mistake the adapter's own writes for changes made on ConnectWise
+        String lastUpdated = written ? getLastUpdatedAfterWrites(config, CWTicket) :
+                refreshedCWTicket == null ? null : refreshedCWTicket.getLastUpdated();
+        if (lastUpdated != null)
+            CWTicket.getExtraParams().put("cwLastUpdated", lastUpdated);
+        else
+            CWTicket.getExtraParams().remove("cwLastUpdated");
+    }
+
+    /**
+     * Retrieves several tickets from ConnectWise with batched requests, before they are synced one by one.
+     * Only tickets that already have a ConnectWise ID are retrieved. Comments are retrieved later by
+     * {@link #getCWTicket(TicketSystemConfig, ConnectWiseTicket, ConnectWiseTicket)}.
+     *
+     * @param CWTickets tickets mapped from Symphony
+     * @return tickets retrieved from ConnectWise by ConnectWise ID. Empty if the batched requests failed
+     */
+    public Map<String, ConnectWiseTicket> prefetchCWTickets(TicketSystemConfig config, Collection<ConnectWiseTicket> CWTickets) {
+        List<String> ids = new ArrayList<>(CWTickets.size());
+        for (ConnectWiseTicket CWTicket : CWTickets) {
+            if (CWTicket.getId() != null)
+                ids.add(CWTicket.getId());
+        }
+        if (ids.isEmpty())
+            return Collections.emptyMap();
+
+        try {
+            return CWClient.getTickets(config, ids);
+        } catch (TalAdapterSyncException e) {
+            // Each ticket is retrieved on its own during its sync instead
+            logger.warn("prefetchCWTickets: unable to retrieve tickets in batch - " + e.getMessage());
+            return Collections.emptyMap();
+        }
+    }
+
+    /**
+     * Retrieves every ConnectWise ticket changed at or after a given date, without their comments
+     *
+     * @param since ConnectWise date of the last change already known
+     * @return changed tickets, oldest change first
+     * @throws TalAdapterSyncException if ConnectWise cannot be queried
+     */
+    public List<ConnectWiseTicket> getChangedCWTickets(TicketSystemConfig config, String since) throws TalAdapterSyncException {
+        return CWClient.getTicketsUpdatedSince(config, since);
+    }
+
+    /**
+     * Sets the outbox that recoverable write failures are deferred to
+     *
+     * @param writeOutbox outbox, or null to fail syncs on write failures
+     */
+    public void setWriteOutbox(WriteOutbox writeOutbox) {
+        CWClient.setWriteOutbox(writeOutbox);
+    }
+
+    /**
+     * Sets the journal where the steps of ticket creations are checkpointed
+     *
+     * @param creationJournal creation journal
+     */
+    public void setCreationJournal(CreationJournal creationJournal) {
+        CWClient.setCreationJournal(creationJournal);
+    }
+
+    /**
+     * Sends a deferred write again
+     *
+     * @param entry deferred write
+     * @return true if the write is done, false if it must be replayed again later
+     */
+    public boolean replayWrite(TicketSystemConfig config, WriteOutbox.Entry entry) {
+        return CWClient.replay(config, entry);
+    }
+
+    /**
+     * Drops cached copies of a ticket after ConnectWise reported a change
+     *
+     * @param companyId ConnectWise login company ID
+     * @param ticketId ConnectWise ticket ID
+     */
+    public void invalidateCWTicket(String companyId, String ticketId) {
+        CWClient.invalidateTicket(companyId, ticketId);
+    }
+
+    /**
+     * Registers a ConnectWise callback so that changes of the customer's tickets are reported to callbackURL
+     *
+     * @param callbackURL URL ConnectWise calls back, including its token
+     * @param description description identifying the callback
+     * @throws TalAdapterSyncException if the callback cannot be registered
+     */
+    public void registerCallback(TicketSystemConfig config, String callbackURL, String description) throws TalAdapterSyncException {
+        CWClient.registerCallback(config, callbackURL, description);
+    }
+
+    /**
+     * Retrieves the latest information on ConnectWise, reusing a ticket that was already retrieved in a batch
+     *
+     * @param CWTicket Ticket to be retrieved
+     * @param prefetchedCWTicket ticket retrieved by {@link #prefetchCWTickets(TicketSystemConfig, Collection)}.
+     *                           If null, the ticket is retrieved as in {@link #getCWTicket(TicketSystemConfig, ConnectWiseTicket)}
+     * @return a new instance of ConnectWiseTicket with the latest information. Null if the connection fails
+     * @throws TalAdapterSyncException if connection fails and has failed before for the same ticket
+     */
+    public ConnectWiseTicket getCWTicket(TicketSystemConfig config, ConnectWiseTicket CWTicket,
+                                         ConnectWiseTicket prefetchedCWTicket) throws TalAdapterSyncException {
+        if (prefetchedCWTicket == null)
+            return getCWTicket(config, CWTicket);
+
+        // Make sure ticket has extra params map
+        if (CWTicket.getExtraParams() == null) {
+            CWTicket.setExtraParams(new HashMap<>());
+        }
+        if (CWTicket.getUrl() == null)
+            CWTicket.setUrl(prefetchedCWTicket.getUrl());
+
+        // Batched requests do not include comments
+        CWClient.loadComments(config, prefetchedCWTicket);
+        markRetrieved(CWTicket, prefetchedCWTicket);
+        return prefetchedCWTicket;
+    }
+
     /**
      * Retrieves the latest information on ConnectWise
      * @param CWTicket Ticket to be retrieved
@@ -99,19 +307,7 @@ public class TicketServiceImpl {
 
 
         } else {
-            // Set refreshedCWTicket's Symphony variables
-            refreshedCWTicket.setSymphonyId(CWTicket.getSymphonyId());
-            refreshedCWTicket.setSymphonyLink(CWTicket.getSymphonyLink());
-
-            // Else the connection was successful
-            if (CWTicket.getExtraParams().putIfAbsent("connectionFailed", "false") != null) {
-                // "putIfAbsent" returns null if "put" worked, and returns the value found otherwise
-                CWTicket.getExtraParams().replace("connectionFailed", "false");
-            }
-            // Ensure that ticket knows it has been synced properly
-            if (CWTicket.getExtraParams().putIfAbsent("synced", "true") != null) {
-                CWTicket.getExtraParams().replace("synced", "true");
-            }
+            markRetrieved(CWTicket, refreshedCWTicket);
         }
 
         return refreshedCWTicket;
@@ -171,140 +367,202 @@ public class TicketServiceImpl {
     }
 
     /**
-     * Updates CW with the information in CWTicket
+     * Updates CW with the information in CWTicket.
+     * The requests are planned first, then independent requests are sent concurrently
+     *
      * @param CWTicket Ticket with the latest information from Symphony
      * @param refreshedTicket Ticket to be updated
+     * @return true if requests were sent to ConnectWise, false if it was already up to date
      * @throws TalAdapterSyncException if patch call(s) fail
      */
-    public void updateTicket(TicketSystemConfig config, ConnectWiseTicket CWTicket, ConnectWiseTicket refreshedTicket) throws TalAdapterSyncException {
+    public boolean updateTicket(TicketSystemConfig config, ConnectWiseTicket CWTicket, ConnectWiseTicket refreshedTicket) throws TalAdapterSyncException {
+        SyncPlan plan = planUpdate(config, CWTicket, refreshedTicket);
+        if (plan.isEmpty()) {
+            logger.info("updateTicket: No updates needed");
+            return false;
+        }
+        logger.info("updateTicket: Sending {} planned request(s)", plan.size());
+        plan.execute(CWClient.getWriteExecutor());
+        return true;
+    }
+
+    /**
+     * Plans the requests that bring ConnectWise up to date with CWTicket, without sending them.
+     * Planning is not free of side effects: both tickets are updated as if the requests succeeded, values only known
+     * by ConnectWise are copied to CWTicket, a priority change adds its comment to CWTicket, and the priority ID is
+     * looked up in ConnectWise. Plan against {@link ConnectWiseTicket#copy()} to leave the tickets unchanged.
+     *
+     * @param CWTicket Ticket with the latest information from Symphony
+     * @param refreshedTicket Ticket retrieved from CW
+     * @return the planned requests. Empty if ConnectWise is up to date
+     */
+    public SyncPlan planUpdate(TicketSystemConfig config, ConnectWiseTicket CWTicket, ConnectWiseTicket refreshedTicket) {
+        SyncPlan plan = new SyncPlan();
+
         // HTTP PATCH
-        String patchRequest = "";
+        long diffStart = System.nanoTime();
+        List<PatchOperation> patchOperations;
+        try (SyncTrace.Span span = SyncTrace.startSpan("diff")) {
+            patchOperations = diffTicket(config, CWTicket, refreshedTicket);
+            span.setAttribute("patch.operation.count", patchOperations.size());
+        }
+        metrics.recordPhase(ConnectWiseMetrics.tenantOf(config), ConnectWiseMetrics.Phase.DIFF,
+                System.nanoTime() - diffStart);
+        SyncPlan.Operation ticketPatch = null;
+        if (!patchOperations.isEmpty()) {
+            String body = PatchOperation.toJson(patchOperations);
+            ticketPatch = plan.add("PATCH", CWTicket.getUrl(), patchOperations.size() + " field(s)",
+                    metrics.timed(config, ConnectWiseMetrics.Phase.PATCH, () -> {
+                logger.info("updateTicket: Making PATCH request with {} operation(s)", patchOperations.size());
+                try {
+                    CWClient.patch(config, CWTicket.getUrl(), body);
+                } catch (TalAdapterSyncException e) {
+                    logger.error("updateTicket: PATCH request failed");
+                    // A recoverable failure is replayed on its own instead of failing the whole sync
+                    if (!CWClient.deferWrite(config, CWTicket, "PATCH", CWTicket.getUrl(), body, e))
+                        throw e;
+                    logger.info("updateTicket: PATCH request deferred to outbox");
+                }
+            }));
+        }
+
+        // Notes are only created once the ticket PATCH succeeded or was deferred: a failed sync does not return the IDs
+        // of the notes it created, so its retry would create them again.
+        // New comments are also posted after a new description, so that the description stays the oldest note
+        SyncPlan.Operation descriptionPost = planDescription(config, CWTicket, refreshedTicket, plan, ticketPatch);
+
+        // Only comments modified since the last successful sync need to be compared
+        long commentWatermark = CommentWatermarks.toConnectWise(CWTicket.getExtraParams(), config);
+        CWClient.planComments(config, CWTicket, refreshedTicket, commentWatermark, plan, ticketPatch, descriptionPost);
+        return plan;
+    }
+
+    /**
+     * Compares every synced field of the Symphony ticket with the ticket retrieved from ConnectWise.
+     * Symphony values win over ConnectWise values. When Symphony has no value, the ConnectWise value is kept
+     * and copied back to the Symphony ticket.
+     *
+     * @param CWTicket Symphony ticket with the latest information
+     * @param refreshedTicket Ticket retrieved from CW
+     * @return patch operations needed to bring ConnectWise up to date. Empty if nothing changed
+     */
+    public List<PatchOperation> diffTicket(TicketSystemConfig config, ConnectWiseTicket CWTicket, ConnectWiseTicket refreshedTicket) {
+        List<PatchOperation> patchOperations = new ArrayList<>(4);
         // summary
-        patchRequest += UpdateSummary(CWTicket, refreshedTicket, patchRequest);
+        UpdateSummary(CWTicket, refreshedTicket, patchOperations);
         // status
-        patchRequest += UpdateStatus(CWTicket, refreshedTicket, patchRequest);
+        UpdateStatus(CWTicket, refreshedTicket, patchOperations);
         // priority
-        patchRequest += UpdatePriority(config, CWTicket, refreshedTicket, patchRequest);
+        UpdatePriority(config, CWTicket, refreshedTicket, patchOperations);
         // assignee
-        patchRequest += UpdateAssignee(CWTicket, refreshedTicket, patchRequest);
+        UpdateAssignee(CWTicket, refreshedTicket, patchOperations);
         // requester
-        // TODO: patchRequest += UpdateRequester(CWTicket, patchRequest);
+        // TODO: UpdateRequester(CWTicket, refreshedTicket, patchOperations);
+        return patchOperations;
+    }
 
-        if (!patchRequest.isEmpty()) {
-            patchRequest = "[" + patchRequest + "]"; // Final request formatting
-            logger.info("updateTicket: Making PATCH request");
-            try {
-                CWClient.patch(config, CWTicket.getUrl(), patchRequest);
-            } catch (Exception e) {
-                logger.error("updateTicket: PATCH request failed");
-                throw e;
-            }
-        } else {
-            logger.info("updateTicket: No updates needed");
-        }
 
-        patchDescription(config, CWTicket, refreshedTicket);
+    //* ----------------------------- HELPER METHODS ----------------------------- *//
 
-        CWClient.patchComments(config, CWTicket, refreshedTicket);
+    /**
+     * Reads the last update date of a ticket after the sync wrote to it
+     *
+     * @param CWTicket ticket after a successful sync
+     * @return date and time of the ticket's last change. Null if it could not be read, so that the next sync runs fully
+     */
+    private String getLastUpdatedAfterWrites(TicketSystemConfig config, ConnectWiseTicket CWTicket) {
+        if (CWTicket.getUrl() == null)
+            return null;
+        try {
+            return CWClient.getLastUpdated(config, CWTicket.getUrl());
+        } catch (TalAdapterSyncException e) {
+            logger.warn("commitSyncState: unable to read last update date after writes - next sync will run fully");
+            return null;
+        }
     }
 
+    /**
+     * Records in CWTicket's extra parameters that its ConnectWise ticket was successfully retrieved
+     *
+     * @param CWTicket ticket mapped from Symphony
+     * @param refreshedCWTicket ticket retrieved from ConnectWise
+     */
+    private void markRetrieved(ConnectWiseTicket CWTicket, ConnectWiseTicket refreshedCWTicket) {
+        // Set refreshedCWTicket's Symphony variables
+        refreshedCWTicket.setSymphonyId(CWTicket.getSymphonyId());
+        refreshedCWTicket.setSymphonyLink(CWTicket.getSymphonyLink());
 
-    //* ----------------------------- HELPER METHODS ----------------------------- *//
+        // The connection was successful
+        if (CWTicket.getExtraParams().putIfAbsent("connectionFailed", "false") != null) {
+            // "putIfAbsent" returns null if "put" worked, and returns the value found otherwise
+            CWTicket.getExtraParams().replace("connectionFailed", "false");
+        }
+        // Ensure that ticket knows it has been synced properly
+        if (CWTicket.getExtraParams().putIfAbsent("synced", "true") != null) {
+            CWTicket.getExtraParams().replace("synced", "true");
+        }
+    }
 
     /**
-     * Creates patch string to Update ConnectWise value.
+     * Adds the patch operation to Update ConnectWise value.
      * Updates Symphony if necessary.
      *
      * @param CWTicket Symphony ticket with the latest information
      * @param refreshedTicket Ticket retrieved from CW
-     * @param patchRequest
-     * @return PATCH string
+     * @param patchOperations list the operation is added to
      */
-    private String UpdateSummary(ConnectWiseTicket CWTicket, ConnectWiseTicket refreshedTicket, String patchRequest) {
-        String returnVal = "";
-
+    private void UpdateSummary(ConnectWiseTicket CWTicket, ConnectWiseTicket refreshedTicket, List<PatchOperation> patchOperations) {
         // If summaries are not the same
         if (!Objects.equals( CWTicket.getSummary(), refreshedTicket.getSummary())) {
             if (refreshedTicket.setSummary( CWTicket.getSummary() )) {
                 logger.info("updateSummary: updating CW summary");
-                returnVal = " {\n" +
-                        "        \"op\": \"replace\",\n" +
-                        "        \"path\": \"summary\",\n" +
-                        "        \"value\": \"" + CWTicket.getSummary() + "\"\n" +
-                        "    }\n";
+                patchOperations.add(PatchOperation.replace("summary", CWTicket.getSummary()));
 
             } else if (CWTicket.getDescription() != null) { // if Symphony value is null
                 logger.info("updateSummary: updating CW summary to symphony description");
                 refreshedTicket.setSummary( CWTicket.getDescription().getText() ); // set summary to description
-                returnVal = " {\n" +
-                        "        \"op\": \"replace\",\n" +
-                        "        \"path\": \"summary\",\n" +
-                        "        \"value\": \"" + refreshedTicket.getSummary() + "\"\n" +
-                        "    }\n";
+                patchOperations.add(PatchOperation.replace("summary", refreshedTicket.getSummary()));
 
             } else if ( refreshedTicket.getSummary() != null ) { // if Symphony has null values but CW doesn't - update Symphony
                 logger.info("updateSummary: updating Symphony summary");
                 CWTicket.setSummary( refreshedTicket.getSummary() );
             }
         }
-
-        // Add , before if pathRequest had something
-        if (!returnVal.isEmpty() && !patchRequest.isEmpty())
-            returnVal = ",\n" + returnVal;
-
-        return returnVal;
     }
 
     /**
-     * Creates patch string to Update ConnectWise value.
+     * Adds the patch operation to Update ConnectWise value.
      * Updates Symphony if necessary.
      *
      * @param CWTicket Symphony ticket with the latest information
      * @param refreshedTicket Ticket retrieved from CW
-     * @param patchRequest
-     * @return PATCH string
+     * @param patchOperations list the operation is added to
      */
-    private String UpdateStatus(ConnectWiseTicket CWTicket, ConnectWiseTicket refreshedTicket, String patchRequest) {
-        String returnVal = "";
-
+    private void UpdateStatus(ConnectWiseTicket CWTicket, ConnectWiseTicket refreshedTicket, List<PatchOperation> patchOperations) {
         if (!Objects.equals( refreshedTicket.getStatus(), CWTicket.getStatus() )) {
-            String op = (refreshedTicket.getStatus() == null ? "add" : "replace");
             String previousStatus = refreshedTicket.getStatus();
 
             if ( refreshedTicket.setStatus(CWTicket.getStatus()) ) {
                 logger.info("updateStatus: updating status from {} to {}", previousStatus, CWTicket.getStatus());
-                returnVal = " {\n" +
-                        "        \"op\": \"" + op + "\",\n" +
-                        "        \"path\": \"status/name\",\n" +
-                        "        \"value\": \"" + CWTicket.getStatus() + "\"\n" +
-                        "    }\n";
+                patchOperations.add(PatchOperation.addOrReplace("status/name", previousStatus, CWTicket.getStatus()));
             } else {
                 logger.info("updateStatus: updating Symphony status from {} to {}", CWTicket.getStatus(), refreshedTicket.getStatus());
                 CWTicket.setStatus( refreshedTicket.getStatus() );
             }
         }
-
-        // Add , before if pathRequest had something
-        if (!returnVal.isEmpty() && !patchRequest.isEmpty())
-            returnVal = ",\n" + returnVal;
-
-        return returnVal;
     }
 
     /**
-     * Creates patch string to Update ConnectWise value.
+     * Adds the patch operation to Update ConnectWise value.
      * Updates Symphony if necessary.
      *
      * @param CWTicket Symphony ticket with the latest information
      * @param refreshedTicket Ticket retrieved from CW
-     * @param patchRequest
-     * @return PATCH string
+     * @param patchOperations list the operation is added to
      */
-    private String UpdatePriority(TicketSystemConfig config, ConnectWiseTicket CWTicket, ConnectWiseTicket refreshedTicket, String patchRequest) {
-        String returnVal = "";
-
+    private void UpdatePriority(TicketSystemConfig config, ConnectWiseTicket CWTicket, ConnectWiseTicket refreshedTicket, List<PatchOperation> patchOperations) {
         if (!Objects.equals( refreshedTicket.getPriority(), CWTicket.getPriority() )) {
-            String op = (refreshedTicket.getPriority() == null ? "add" : "replace");
+            String previousPriority = refreshedTicket.getPriority();
             String CWPriority = config.getPriorityMappingForSymphony().get(refreshedTicket.getPriority());
 
             if ( refreshedTicket.setPriority(CWTicket.getPriority()) ) {
@@ -319,11 +577,8 @@ public class TicketServiceImpl {
                     logger.error("UpdatePriority: Unable to find priority ID in ConnectWise with matching name.");
                 }
                 if (priorityID != null) { // If priority ID was found, set values
-                    returnVal = " {\n" + // FIXME: Priority patches need to be done by ID even when it is mapped to the name
-                            "        \"op\": \"" + op + "\",\n" +
-                            "        \"path\": \"priority/id\",\n" +
-                            "        \"value\": \"" + priorityID + "\"\n" +
-                            "    }\n";
+                    // FIXME: Priority patches need to be done by ID even when it is mapped to the name
+                    patchOperations.add(PatchOperation.addOrReplace("priority/id", previousPriority, priorityID));
 
                     // Add comment for change in priority
                     String priorityChangeText = "Priority updated: " + CWPriority + " -> " +
@@ -342,57 +597,41 @@ public class TicketServiceImpl {
                 CWTicket.setPriority( refreshedTicket.getPriority() );
             }
         }
-
-        // Add , before if pathRequest had something
-        if (!returnVal.isEmpty() && !patchRequest.isEmpty())
-            returnVal = ",\n" + returnVal;
-
-        return returnVal;
     }
 
     /**
-     * Creates patch string to Update ConnectWise value.
+     * Adds the patch operation to Update ConnectWise value.
      * Updates Symphony if necessary.
      *
      * @param CWTicket Symphony ticket with the latest information
      * @param refreshedTicket Ticket retrieved from CW
-     * @param patchRequest
-     * @return PATCH string
+     * @param patchOperations list the operation is added to
      */
-    private String UpdateAssignee(ConnectWiseTicket CWTicket, ConnectWiseTicket refreshedTicket, String patchRequest) {
-        String returnVal = "";
-
+    private void UpdateAssignee(ConnectWiseTicket CWTicket, ConnectWiseTicket refreshedTicket, List<PatchOperation> patchOperations) {
         if (!Objects.equals( refreshedTicket.getAssignee(), CWTicket.getAssignee() )) {
-
-            String op = (refreshedTicket.getAssignee() == null ? "add" : "replace");
+            String previousAssignee = refreshedTicket.getAssignee();
 
             if ( refreshedTicket.setAssignedTo(CWTicket.getAssignee()) ) {
                 logger.info("updateAssignee: updating CW assignee");
-                returnVal = " {\n" +
-                        "        \"op\": \"" + op + "\",\n" +
-                        "        \"path\": \"owner/identifier\",\n" +
-                        "        \"value\": \"" + CWTicket.getAssignee() + "\"\n" +
-                        "    }\n";
+                patchOperations.add(PatchOperation.addOrReplace("owner/identifier", previousAssignee, CWTicket.getAssignee()));
             } else {
                 logger.info("updateAssignee: updating Symphony assignee");
                 CWTicket.setAssignedTo( refreshedTicket.getAssignee() );
             }
         }
-
-        // Add , before if pathRequest had something
-        if (!returnVal.isEmpty() && !patchRequest.isEmpty())
-            returnVal = ",\n" + returnVal;
-
-        return returnVal;
     }
 
     /**
-     * Updates ConnectWise's description with Symphony's description using a PATCH request.
+     * Plans the request that updates ConnectWise's description with Symphony's description.
      *
      * @param CWTicket Symphony ticket with the latest information
      * @param refreshedTicket Ticket retrieved from CW
+     * @param plan plan the request is added to
+     * @param ticketPatch operation that must succeed before a new description is posted. Null if there is none
+     * @return the operation posting a new description, or null if the description already exists
      */
-    private void patchDescription(TicketSystemConfig config, ConnectWiseTicket CWTicket, ConnectWiseTicket refreshedTicket) throws TalAdapterSyncException {
+    private SyncPlan.Operation planDescription(TicketSystemConfig config, ConnectWiseTicket CWTicket, ConnectWiseTicket refreshedTicket,
+                                               SyncPlan plan, SyncPlan.Operation ticketPatch) {
         // null-check
         String commentUrlPattern = config.getTicketSourceConfig().get(TicketSourceConfigPropertyCW.URL_PATTERN_TO_GET_COMMENTS);
         if (commentUrlPattern == null) {
@@ -402,34 +641,37 @@ public class TicketServiceImpl {
         // Check if CW Comment exists
         if (refreshedTicket.getDescription() == null) {
             // If CW does not have a description comment, create one
-            logger.info("updateDescription: ConnectWise description comment not found. Creating new comment");
-            CWClient.postDescription(config, CWTicket);
-        }
-        else {
-            // Compare texts
-            if (CWTicket.getDescription() != null &&
-                    !Objects.equals(refreshedTicket.getDescription().getText(), CWTicket.getDescription().getText())) {
-                // If not equal: Update text
-                String body = "[ {\n" +
-                        "        \"op\": \"replace\",\n" +
-                        "        \"path\": \"text\",\n" +
-                        "        \"value\": \"" + CWTicket.getDescription().getText() + "\"\n" +
-                        "    }]";
+            return plan.add("POST", CWTicket.getUrl() + commentUrlPattern, "description",
+                    metrics.timed(config, ConnectWiseMetrics.Phase.COMMENTS, () -> {
+                        logger.info("updateDescription: ConnectWise description comment not found. Creating new comment");
+                        CWClient.postDescription(config, CWTicket);
+                    }), ticketPatch);
+        }
+
+        // Compare texts
+        if (CWTicket.getDescription() != null &&
+                !refreshedTicket.getDescription().hasSameText(CWTicket.getDescription())) {
+            // If not equal: Update text
+            String body = PatchOperation.toJson(
+                    Collections.singletonList(PatchOperation.replace("text", CWTicket.getDescription().getText())));
+            String descriptionURL = CWTicket.getUrl() + commentUrlPattern + "/" +
+                    refreshedTicket.getDescription().getThirdPartyId();
+            plan.add("PATCH", descriptionURL, "description text",
+                    metrics.timed(config, ConnectWiseMetrics.Phase.COMMENTS, () -> {
                 logger.info("updateDescription: Attempting PATCH request");
                 try {
-                    CWClient.patch(config, CWTicket.getUrl() + commentUrlPattern
-                                           + "/" +
-                                           refreshedTicket.getDescription().getThirdPartyId(),
-                            body);
+                    CWClient.patch(config, descriptionURL, body);
                 } catch (TalAdapterSyncException e) {
                     logger.error("patchDescription: CW API Call error - unable to sync description. Http error code: {}",
                             e.getHttpStatus() != null ? e.getHttpStatus() : "not specified");
+                    CWClient.deferWrite(config, CWTicket, "PATCH", descriptionURL, body, e);
                 }
-            } else if (CWTicket.getDescription() == null) {
-                // If they are equal or symphony doesn't exist:
-                CWTicket.setDescription(refreshedTicket.getDescription() );
-            }
+            }));
+        } else if (CWTicket.getDescription() == null) {
+            // If they are equal or symphony doesn't exist:
+            CWTicket.setDescription(refreshedTicket.getDescription() );
         }
+        return null;
     }
 
     /**
@@ -45,4 +45,50 @@ public interface TicketSourceConfigPropertyCW extends TicketSourceConfigProperty
      * PUBLIC - ID of the ConnectWise board to post ticket to
      */
     String BOARD_ID = "boardId";
+    /**
+     * PUBLIC - What to do when Symphony sends a ticket that has not changed since its last successful sync.
+     * "probe" (default) only checks the ticket's last update date in ConnectWise, "skip" skips the sync entirely
+     * and "off" always runs a full sync
+     */
+    String UNCHANGED_SYNC_MODE = "unchangedSyncMode";
+    /**
+     * PUBLIC - Maximum number of new comments posted to ConnectWise at the same time for a single ticket.
+     * Defaults to 1, which keeps the ConnectWise note order identical to the Symphony comment order
+     */
+    String NOTE_POST_PARALLELISM = "notePostParallelism";
+    /**
+     * PUBLIC - Number of syncs of a ticket between two full comment reconciles. Syncs in between only consider
+     * comments modified since the last successful sync. Defaults to 20, 1 reconciles every comment on every sync
+     */
+    String FULL_COMMENT_RECONCILE_INTERVAL = "fullCommentReconcileInterval";
+    /**
+     * PUBLIC - Milliseconds an update waits for newer updates of the same ticket before they are synced together.
+     * Defaults to 0, which syncs every update right away
+     */
+    String COALESCING_WINDOW_MILLIS = "coalescingWindowMillis";
+    /**
+     * PUBLIC - Seconds between two queries for tickets changed in ConnectWise, which are then pushed to Symphony.
+     * Defaults to 0, which disables polling
+     */
+    String CHANGE_POLL_INTERVAL_SECONDS = "changePollIntervalSeconds";
+    /**
+     * PUBLIC - Seconds a ticket and its notes retrieved from ConnectWise are reused without a new request.
+     * Writes by the adapter and ConnectWise callbacks drop the cached ticket earlier. Defaults to 0, which disables caching
+     */
+    String TICKET_CACHE_SECONDS = "ticketCacheSeconds";
+    /**
+     * PUBLIC - Public URL of the callback endpoint, registered in ConnectWise so that ticket changes invalidate
+     * cached tickets right away. Callbacks are not registered if missing
+     */
+    String CALLBACK_URL = "callbackUrl";
+    /**
+     * PUBLIC - "true" to only report the ConnectWise requests each sync would send, without sending any write.
+     * Symphony tickets are returned unchanged. Defaults to false
+     */
+    String DRY_RUN = "dryRun";
+    /**
+     * PUBLIC - Comma-separated HTTP statuses after which failed ConnectWise requests are retried, e.g. "408,503".
+     * Entries prefixed with + or -, e.g. "+500,-429", change the defaults instead. Defaults to 408, 429, 502 and 503
+     */
+    String RECOVERABLE_HTTP_STATUSES = "recoverableHttpStatuses";
 }
@@ -0,0 +1,86 @@
+package com.insightsystems.symphony.tal;
+
+import com.avispl.symphony.api.tal.dto.TalTicket;
+import com.avispl.symphony.api.tal.error.TalRecoverableException;
+import com.avispl.symphony.api.tal.error.TalTicketException;
+
+/**
+ * Outcome of the sync of one ticket of a batch started with {@link ConnectWiseTalAdapter#syncTalTickets}.
+ *
+ * @since 5.8
+ */
+public class TicketSyncResult {
+    //* ----------------------------- VARIABLES ----------------------------- *//
+
+    /**
+     * Ticket with thirdPartyId and thirdPartyLink set. Null if the sync failed
+     */
+    private final TalTicket talTicket;
+
+    /**
+     * Error that made the sync fail. Null if the sync was successful
+     */
+    private final TalTicketException error;
+
+
+    //* ----------------------------- METHODS ----------------------------- *//
+
+    private TicketSyncResult(TalTicket talTicket, TalTicketException error) {
+        this.talTicket = talTicket;
+        this.error = error;
+    }
+
+    /**
+     * Creates the result of a successful sync
+     *
+     * @param talTicket synced ticket
+     * @return the result
+     */
+    public static TicketSyncResult success(TalTicket talTicket) {
+        return new TicketSyncResult(talTicket, null);
+    }
+
+    /**
+     * Creates the result of a failed sync
+     *
+     * @param error {@link TalRecoverableException} if the sync can be tried again, or
+     *              {@link com.avispl.symphony.api.tal.error.TalNotRecoverableException} otherwise
+     * @return the result
+     */
+    public static TicketSyncResult failure(TalTicketException error) {
+        return new TicketSyncResult(null, error);
+    }
+
+    /**
+     * @return true if the ticket was synced
+     */
+    public boolean isSuccessful() {
+        return error == null;
+    }
+
+    /**
+     * @return true if the sync failed with an error that could be fixed by trying again
+     */
+    public boolean isRecoverable() {
+        return error instanceof TalRecoverableException;
+    }
+
+
+    //* ----------------------------- GETTERS / SETTERS ----------------------------- *//
+
+    public TalTicket getTalTicket() {
+        return talTicket;
+    }
+
+    public TalTicketException getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return "TicketSyncResult{" +
+                "talTicket=" + getTalTicket() + ", " +
+                "error=" + getError() +
+                "}";
+    }
+}
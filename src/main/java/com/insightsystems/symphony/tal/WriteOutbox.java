@@ -0,0 +1,464 @@
+package com.insightsystems.symphony.tal;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pending ConnectWise writes that failed with a recoverable error.
+ * Instead of failing the whole sync, a failed PATCH is recorded here and replayed in the background with
+ * exponential backoff, so that only the failed request is sent again.
+ * <p>
+ * Every change is appended to a journal file before it is applied in memory, and the journal is replayed when the
+ * outbox is created again, so pending writes survive restarts. Without a journal file, pending writes are only kept
+ * in memory: such an outbox is not used to defer the writes of a sync, see {@link #isDurable()}.
+ * <p>
+ * Only the latest value of each field is kept: a new PATCH of the same URL replaces the pending operations on the
+ * same paths, and a successful write during a sync drops the pending operations it made obsolete.
+ *
+ * @since 5.8
+ */
+public class WriteOutbox {
+    //* ----------------------------- VARIABLES ----------------------------- *//
+
+    /**
+     * Logger instance
+     */
+    private static final Logger logger = LoggerFactory.getLogger(WriteOutbox.class);
+
+    /**
+     * Delay before the first replay of a failed write, in milliseconds. Doubled after every failed replay
+     */
+    private static final long INITIAL_BACKOFF = 5_000L;
+
+    /**
+     * Maximum delay between replays of a failed write, in milliseconds
+     */
+    private static final long MAX_BACKOFF = 10 * 60 * 1000L;
+
+    /**
+     * Interval between checks for writes due for a replay, in milliseconds
+     */
+    private static final long DRAIN_INTERVAL = 1_000L;
+
+    /**
+     * The journal is rewritten with pending writes only once it holds this many completed records
+     */
+    private static final int COMPACTION_THRESHOLD = 1000;
+
+    /**
+     * Pending writes by ID, in the order they were added
+     */
+    private final Map<Long, Entry> pending = new LinkedHashMap<>();
+
+    /**
+     * Guards pending, the journal and nextId
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Journal file. Null if pending writes are only kept in memory
+     */
+    private final JournalFile journal;
+
+    private long nextId = 1;
+    private int completedRecords;
+    private ScheduledExecutorService drainer;
+
+
+    //* ----------------------------- METHODS ----------------------------- *//
+
+    /**
+     * Replays a pending write
+     */
+    @FunctionalInterface
+    public interface Replayer {
+        /**
+         * @param entry write to replay
+         * @return true if the write is done, either because it succeeded or because it can never succeed.
+         * False to replay it again later
+         * @throws Exception if the write failed. It is replayed again later
+         */
+        boolean replay(Entry entry) throws Exception;
+    }
+
+    /**
+     * Creates an outbox that keeps pending writes in memory only
+     */
+    public WriteOutbox() {
+        this.journal = null;
+    }
+
+    /**
+     * @return true if pending writes are kept in a journal file, and survive restarts
+     */
+    public boolean isDurable() {
+        return journal != null;
+    }
+
+    /**
+     * Creates an outbox backed by a journal file, loading the writes still pending in it
+     *
+     * @param journal journal file. Created if missing
+     * @throws IOException if the journal cannot be read or opened
+     */
+    public WriteOutbox(Path journal) throws IOException {
+        this.journal = new JournalFile(journal);
+        load();
+        this.journal.rewrite(pendingRecords());
+        if (!pending.isEmpty())
+            logger.info("WriteOutbox: {} pending write(s) loaded from {}", pending.size(), journal);
+    }
+
+    /**
+     * Adds a failed write. Pending operations of the same request on the same paths are replaced
+     *
+     * @param customerId Symphony customer ID, used to retrieve the config on replay
+     * @param symphonyId Symphony ID of the written ticket
+     * @param method HTTP method
+     * @param url request URL
+     * @param body JSON request body
+     */
+    public void add(String customerId, String symphonyId, String method, String url, String body) {
+        lock.lock();
+        try {
+            for (Iterator<Entry> it = pending.values().iterator(); it.hasNext(); ) {
+                Entry older = it.next();
+                if (!older.method.equals(method) || !older.url.equals(url))
+                    continue;
+                // Keep the older operations on other paths, in a single request with the new ones
+                String remaining = withoutPaths(older.body, body);
+                if (remaining != null)
+                    body = merge(remaining, body);
+                appendCompletion(older.id);
+                it.remove();
+            }
+            Entry entry = new Entry(nextId++, customerId, symphonyId, method, url, body);
+            append(entry.toJSON());
+            pending.put(entry.id, entry);
+            logger.info("add: {} {} deferred - {} write(s) pending", method, url, pending.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drops the pending operations made obsolete by a successful PATCH during a sync
+     *
+     * @param url written URL
+     * @param body JSON patch operations that were written
+     */
+    public void written(String url, String body) {
+        lock.lock();
+        try {
+            if (pending.isEmpty())
+                return;
+            List<Entry> remainders = new ArrayList<>(1);
+            for (Iterator<Entry> it = pending.values().iterator(); it.hasNext(); ) {
+                Entry older = it.next();
+                if (!older.method.equals("PATCH") || !older.url.equals(url))
+                    continue;
+                String remaining = withoutPaths(older.body, body);
+                if (Objects.equals(remaining, older.body))
+                    continue;
+                appendCompletion(older.id);
+                it.remove();
+                if (remaining != null) {
+                    Entry entry = new Entry(nextId++, older.customerId, older.symphonyId, older.method, older.url, remaining);
+                    entry.attempts = older.attempts;
+                    entry.nextAttemptAt = older.nextAttemptAt;
+                    remainders.add(entry);
+                }
+            }
+            for (Entry entry : remainders) {
+                append(entry.toJSON());
+                pending.put(entry.id, entry);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Replays every write that is due, oldest first
+     *
+     * @param replayer replays a single write
+     * @return number of writes that are done
+     */
+    public int drain(Replayer replayer) {
+        List<Entry> due = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        lock.lock();
+        try {
+            for (Entry entry : pending.values()) {
+                if (entry.nextAttemptAt <= now)
+                    due.add(entry);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        int done = 0;
+        for (Entry entry : due) {
+            boolean completed;
+            try {
+                completed = replayer.replay(entry);
+            } catch (Exception e) {
+                logger.warn("drain: replay of {} {} failed - {}", entry.method, entry.url, e.getMessage());
+                completed = false;
+            }
+
+            lock.lock();
+            try {
+                // The entry may have been replaced by a newer write meanwhile
+                if (pending.get(entry.id) != entry)
+                    continue;
+                if (completed) {
+                    appendCompletion(entry.id);
+                    pending.remove(entry.id);
+                    done++;
+                } else {
+                    entry.attempts++;
+                    entry.nextAttemptAt = System.currentTimeMillis() +
+                            Math.min(MAX_BACKOFF, INITIAL_BACKOFF << Math.min(entry.attempts - 1, 20));
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        if (completedRecords >= COMPACTION_THRESHOLD)
+            compact();
+        return done;
+    }
+
+    /**
+     * Starts replaying pending writes in the background
+     *
+     * @param replayer replays a single write
+     */
+    public void start(Replayer replayer) {
+        lock.lock();
+        try {
+            if (drainer != null)
+                return;
+            drainer = Executors.newSingleThreadScheduledExecutor(SyncThreads.newThreadFactory("connectwise-outbox-"));
+            drainer.scheduleWithFixedDelay(() -> drain(replayer), DRAIN_INTERVAL, DRAIN_INTERVAL, TimeUnit.MILLISECONDS);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops replaying pending writes and closes the journal. Pending writes stay in the journal
+     */
+    public void stop() {
+        lock.lock();
+        try {
+            if (drainer != null) {
+                drainer.shutdownNow();
+                drainer = null;
+            }
+            if (journal != null)
+                journal.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return number of pending writes
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    //* ----------------------------- HELPER METHODS ----------------------------- *//
+
+    /**
+     * Rebuilds the pending writes from the journal. A record cut short by a crash is ignored
+     */
+    private void load() throws IOException {
+        for (JSONObject record : journal.read()) {
+            long id = record.getLong("id");
+            nextId = Math.max(nextId, id + 1);
+            if (record.optBoolean("done"))
+                pending.remove(id);
+            else
+                pending.put(id, new Entry(id, record.optString("customerId", null), record.optString("symphonyId", null),
+                        record.getString("method"), record.getString("url"), record.getString("body")));
+        }
+    }
+
+    /**
+     * Rewrites the journal with the pending writes only
+     */
+    private void compact() {
+        if (journal == null)
+            return;
+        lock.lock();
+        try {
+            journal.rewrite(pendingRecords());
+            completedRecords = 0;
+        } catch (IOException e) {
+            logger.error("compact: unable to rewrite outbox journal - " + e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return journal records of the pending writes
+     */
+    private List<JSONObject> pendingRecords() {
+        List<JSONObject> records = new ArrayList<>(pending.size());
+        for (Entry entry : pending.values())
+            records.add(entry.toJSON());
+        return records;
+    }
+
+    /**
+     * Records that a write is no longer pending
+     */
+    private void appendCompletion(long id) {
+        JSONObject record = new JSONObject();
+        record.put("id", id);
+        record.put("done", true);
+        append(record);
+        completedRecords++;
+    }
+
+    /**
+     * Appends a record to the journal. Called with the lock held
+     */
+    private void append(JSONObject record) {
+        if (journal != null)
+            journal.append(record);
+    }
+
+    /**
+     * Removes from a JSON patch the operations on paths also written by another patch
+     *
+     * @return remaining operations, the unchanged patch if none was removed, or null if no operation remains
+     */
+    private static String withoutPaths(String patch, String newerPatch) {
+        JSONArray operations;
+        JSONArray newerOperations;
+        try {
+            operations = new JSONArray(patch);
+            newerOperations = new JSONArray(newerPatch);
+        } catch (JSONException e) {
+            // Not a JSON patch: the newer request replaces the whole older one
+            return null;
+        }
+        JSONArray remaining = new JSONArray();
+        for (int i = 0; i < operations.length(); i++) {
+            String path = operations.getJSONObject(i).optString("path");
+            boolean replaced = false;
+            for (int j = 0; j < newerOperations.length() && !replaced; j++)
+                replaced = path.equals(newerOperations.getJSONObject(j).optString("path"));
+            if (!replaced)
+                remaining.put(operations.getJSONObject(i));
+        }
+        if (remaining.length() == operations.length())
+            return patch;
+        return remaining.isEmpty() ? null : remaining.toString();
+    }
+
+    /**
+     * Concatenates the operations of two JSON patches
+     */
+    private static String merge(String olderPatch, String newerPatch) {
+        JSONArray merged = new JSONArray(olderPatch);
+        JSONArray newerOperations = new JSONArray(newerPatch);
+        for (int i = 0; i < newerOperations.length(); i++)
+            merged.put(newerOperations.get(i));
+        return merged.toString();
+    }
+
+    /**
+     * A pending write
+     */
+    public static final class Entry {
+        private final long id;
+        private final String customerId;
+        private final String symphonyId;
+        private final String method;
+        private final String url;
+        private final String body;
+        private int attempts;
+        private long nextAttemptAt;
+
+        private Entry(long id, String customerId, String symphonyId, String method, String url, String body) {
+            this.id = id;
+            this.customerId = customerId;
+            this.symphonyId = symphonyId;
+            this.method = method;
+            this.url = url;
+            this.body = body;
+        }
+
+        private JSONObject toJSON() {
+            JSONObject record = new JSONObject();
+            record.put("id", id);
+            record.put("customerId", customerId);
+            record.put("symphonyId", symphonyId);
+            record.put("method", method);
+            record.put("url", url);
+            record.put("body", body);
+            return record;
+        }
+
+        public String getCustomerId() {
+            return customerId;
+        }
+
+        public String getSymphonyId() {
+            return symphonyId;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public String getBody() {
+            return body;
+        }
+
+        /**
+         * @return number of failed replays so far
+         */
+        public int getAttempts() {
+            return attempts;
+        }
+
+        @Override
+        public String toString() {
+            return "Entry{id=" + id + ", method=" + method + ", url=" + url + ", attempts=" + attempts + "}";
+        }
+    }
+}
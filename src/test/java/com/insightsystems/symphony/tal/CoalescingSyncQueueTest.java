@@ -0,0 +1,109 @@
+package com.insightsystems.symphony.tal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.avispl.symphony.api.tal.dto.TalTicket;
+import com.avispl.symphony.api.tal.error.TalAdapterSyncException;
+
+/**
+ * Tester class for CoalescingSyncQueue.
+ *
+ * @since 5.8
+ */
+public class CoalescingSyncQueueTest {
+
+    private CoalescingSyncQueue queue;
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void init() {
+        queue = new CoalescingSyncQueue();
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void submit_withBurstOfUpdates_shouldSyncLatestStateOnce() throws Exception {
+        AtomicInteger syncs = new AtomicInteger();
+        AtomicReference<TalTicket> syncedTicket = new AtomicReference<>();
+
+        List<Future<TalTicket>> results = new ArrayList<>();
+        for (long lastModified = 1; lastModified <= 5; lastModified++) {
+            TalTicket update = makeTicket("symphonyId", lastModified);
+            results.add(executor.submit(() -> queue.submit(update, 300, latest -> {
+                syncs.incrementAndGet();
+                syncedTicket.set(latest);
+                return latest;
+            })));
+            Thread.sleep(20);
+        }
+
+        for (Future<TalTicket> result : results) {
+            TalTicket returnedTicket = result.get(5, TimeUnit.SECONDS);
+            Assertions.assertSame(syncedTicket.get(), returnedTicket);
+        }
+        Assertions.assertEquals(1, syncs.get());
+        Assertions.assertEquals(5L, syncedTicket.get().getLastModified());
+        Assertions.assertEquals(0, queue.size());
+    }
+
+    @Test
+    void submit_withDifferentTickets_shouldSyncEachTicket() throws Exception {
+        AtomicInteger syncs = new AtomicInteger();
+
+        Future<TalTicket> first = executor.submit(() -> queue.submit(makeTicket("first", 1L), 50, latest -> {
+            syncs.incrementAndGet();
+            return latest;
+        }));
+        Future<TalTicket> second = executor.submit(() -> queue.submit(makeTicket("second", 1L), 50, latest -> {
+            syncs.incrementAndGet();
+            return latest;
+        }));
+
+        Assertions.assertEquals("first", first.get(5, TimeUnit.SECONDS).getSymphonyId());
+        Assertions.assertEquals("second", second.get(5, TimeUnit.SECONDS).getSymphonyId());
+        Assertions.assertEquals(2, syncs.get());
+    }
+
+    @Test
+    void submit_whenSyncFails_shouldThrowSameErrorForEveryUpdate() throws Exception {
+        TalAdapterSyncException error = new TalAdapterSyncException("Sync failed");
+
+        List<Future<TalTicket>> results = new ArrayList<>();
+        for (long lastModified = 1; lastModified <= 3; lastModified++) {
+            TalTicket update = makeTicket("symphonyId", lastModified);
+            results.add(executor.submit(() -> queue.submit(update, 200, latest -> {
+                throw error;
+            })));
+            Thread.sleep(20);
+        }
+
+        for (Future<TalTicket> result : results) {
+            Exception e = Assertions.assertThrows(Exception.class, () -> result.get(5, TimeUnit.SECONDS));
+            Assertions.assertSame(error, e.getCause());
+        }
+    }
+
+    private static TalTicket makeTicket(String symphonyId, Long lastModified) {
+        TalTicket talTicket = new TalTicket();
+        talTicket.setSymphonyId(symphonyId);
+        talTicket.setLastModified(lastModified);
+        return talTicket;
+    }
+}
@@ -0,0 +1,76 @@
+package com.insightsystems.symphony.tal;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tester class for ConnectWiseCallbackServer.
+ *
+ * @since 5.8
+ */
+public class ConnectWiseCallbackServerTest {
+
+    private final List<ConnectWiseCallbackServer.Event> events = new CopyOnWriteArrayList<>();
+    private final HttpClient client = HttpClient.newHttpClient();
+    private ConnectWiseCallbackServer server;
+
+    @BeforeEach
+    public void init() throws Exception {
+        server = new ConnectWiseCallbackServer(0, "secret", events::add);
+        server.start();
+    }
+
+    @AfterEach
+    public void shutdown() {
+        server.stop();
+    }
+
+    @Test
+    void callback_withValidToken_shouldNotifyListener() throws Exception {
+        HttpResponse<String> response = post("secret",
+                "{\"Action\": \"updated\", \"Type\": \"ticket\", \"ID\": 42, \"CompanyId\": \"mockCompanyId\"}");
+
+        Assertions.assertEquals(200, response.statusCode());
+        Assertions.assertEquals(1, events.size());
+        Assertions.assertEquals("42", events.get(0).getTicketId());
+        Assertions.assertEquals("mockCompanyId", events.get(0).getCompanyId());
+        Assertions.assertEquals("updated", events.get(0).getAction());
+    }
+
+    @Test
+    void callback_forNote_shouldNotifyListenerWithTicketOfNote() throws Exception {
+        HttpResponse<String> response = post("secret",
+                "{\"Action\": \"added\", \"Type\": \"ticketnote\", \"ID\": 9, \"CompanyId\": \"mockCompanyId\", " +
+                        "\"Entity\": \"{\\\"id\\\": 9, \\\"ticketId\\\": 42}\"}");
+
+        Assertions.assertEquals(200, response.statusCode());
+        Assertions.assertEquals("42", events.get(0).getTicketId());
+    }
+
+    @Test
+    void callback_withWrongToken_shouldBeRejected() throws Exception {
+        HttpResponse<String> response = post("wrong",
+                "{\"Action\": \"updated\", \"Type\": \"ticket\", \"ID\": 42, \"CompanyId\": \"mockCompanyId\"}");
+
+        Assertions.assertEquals(403, response.statusCode());
+        Assertions.assertTrue(events.isEmpty());
+    }
+
+    private HttpResponse<String> post(String token, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:" + server.getPort() + ConnectWiseCallbackServer.CALLBACK_PATH +
+                        "?token=" + token))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
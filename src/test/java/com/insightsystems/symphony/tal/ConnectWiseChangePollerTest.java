@@ -0,0 +1,136 @@
+package com.insightsystems.symphony.tal;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.avispl.symphony.api.tal.TalConfigService;
+import com.avispl.symphony.api.tal.TalProxy;
+import com.avispl.symphony.api.tal.dto.Comment;
+import com.avispl.symphony.api.tal.dto.TalTicket;
+import com.avispl.symphony.api.tal.dto.TicketSystemConfig;
+
+/**
+ * Tester class for ConnectWiseChangePoller.
+ *
+ * @since 5.8
+ */
+public class ConnectWiseChangePollerTest {
+
+    private static final UUID CUSTOMER_ID = UUID.fromString("00000000-0000-0000-0000-000000000001");
+
+    private TalConfigService talConfigService;
+    private TalProxy talProxy;
+    private TicketServiceImpl ticketService;
+    private TicketSystemConfig config;
+    private TicketLocks ticketLocks;
+    private ConnectWiseChangePoller poller;
+
+    @BeforeEach
+    public void init() throws Exception {
+        talConfigService = mock();
+        talProxy = mock();
+        ticketService = mock(TicketServiceImpl.class);
+        config = mock();
+        when(config.getTicketSourceConfig()).thenReturn(Map.of());
+        when(talConfigService.retrieveTicketSystemConfig(CUSTOMER_ID)).thenReturn(config);
+        ticketLocks = new TicketLocks();
+        poller = new ConnectWiseChangePoller(talConfigService, talProxy, ticketService, ticketLocks);
+    }
+
+    @Test
+    void poll_withTrackedTicketChangedInConnectWise_shouldPushItOnce() throws Exception {
+        TalTicket talTicket = new TalTicket();
+        talTicket.setSymphonyId("symphonyId");
+        talTicket.setCustomerId(CUSTOMER_ID.toString());
+        talTicket.setThirdPartyId("1");
+        talTicket.setSubject("Old summary");
+        talTicket.setComments(Set.of(new Comment("symphonyCommentId", "10", "lucap", "Old text", 0L)));
+        talTicket.setExtraParams(new HashMap<>(Map.of("synced", "true")));
+        poller.track(talTicket, config);
+
+        ConnectWiseTicket changedCWTicket = new ConnectWiseTicket(null, null, "1", "https://cw.test/tickets/1", null);
+        changedCWTicket.setSummary("Summary changed in ConnectWise");
+        changedCWTicket.setLastUpdated("2099-08-01T10:00:00Z");
+        changedCWTicket.addComment(new ConnectWiseComment(null, "10", null, "Text changed in ConnectWise", 5L));
+        when(ticketService.getChangedCWTickets(eq(config), any(String.class))).thenReturn(List.of(changedCWTicket));
+
+        Assertions.assertEquals(1, poller.poll(CUSTOMER_ID));
+        // The config of the latest sync is reused
+        verify(talConfigService, times(0)).retrieveTicketSystemConfig(CUSTOMER_ID);
+
+        ArgumentCaptor<TalTicket> pushed = ArgumentCaptor.forClass(TalTicket.class);
+        verify(talProxy, times(1)).pushUpdatesToTal(pushed.capture());
+        Assertions.assertEquals("symphonyId", pushed.getValue().getSymphonyId());
+        Assertions.assertEquals("Summary changed in ConnectWise", pushed.getValue().getSubject());
+        Comment comment = pushed.getValue().getComments().iterator().next();
+        Assertions.assertEquals("symphonyCommentId", comment.getSymphonyId());
+        Assertions.assertEquals("Text changed in ConnectWise", comment.getText());
+        Assertions.assertEquals("2099-08-01T10:00:00Z", pushed.getValue().getExtraParams().get("cwLastUpdated"));
+
+        // The same change is returned again by the next poll
+        Assertions.assertEquals(0, poller.poll(CUSTOMER_ID));
+        verify(talProxy, times(1)).pushUpdatesToTal(any(TalTicket.class));
+        verify(ticketService).getChangedCWTickets(config, "2099-08-01T10:00:00Z");
+    }
+
+    @Test
+    void poll_withUntrackedTicket_shouldNotPush() throws Exception {
+        ConnectWiseTicket changedCWTicket = new ConnectWiseTicket(null, null, "2", "https://cw.test/tickets/2", null);
+        changedCWTicket.setLastUpdated("2099-08-01T10:00:00Z");
+        when(ticketService.getChangedCWTickets(eq(config), any(String.class))).thenReturn(List.of(changedCWTicket));
+
+        Assertions.assertEquals(0, poller.poll(CUSTOMER_ID));
+        verify(talProxy, times(0)).pushUpdatesToTal(any(TalTicket.class));
+    }
+
+    @Test
+    void poll_whileTicketIsSynced_shouldWaitForTheSyncAndSkipItsOwnChange() throws Exception {
+        TalTicket talTicket = new TalTicket();
+        talTicket.setSymphonyId("symphonyId");
+        talTicket.setCustomerId(CUSTOMER_ID.toString());
+        talTicket.setThirdPartyId("3");
+        talTicket.setExtraParams(new HashMap<>(Map.of("cwLastUpdated", "2099-08-01T09:00:00Z")));
+        poller.track(talTicket, config);
+
+        ConnectWiseTicket changedCWTicket = new ConnectWiseTicket(null, null, "3", "https://cw.test/tickets/3", null);
+        changedCWTicket.setLastUpdated("2099-08-01T10:00:00Z");
+        when(ticketService.getChangedCWTickets(eq(config), any(String.class))).thenReturn(List.of(changedCWTicket));
+
+        ticketLocks.lock("symphonyId");
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> pushed = executor.submit(() -> poller.poll(CUSTOMER_ID));
+            Assertions.assertThrows(TimeoutException.class, () -> pushed.get(200, TimeUnit.MILLISECONDS));
+
+            // The sync wrote the change itself, and tracks the date ConnectWise reports after its writes
+            talTicket.setExtraParams(new HashMap<>(Map.of("cwLastUpdated", "2099-08-01T10:00:00Z")));
+            poller.track(talTicket, config);
+            ticketLocks.unlock("symphonyId");
+
+            Assertions.assertEquals(0, pushed.get(5, TimeUnit.SECONDS));
+            verify(talProxy, times(0)).pushUpdatesToTal(any(TalTicket.class));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -1,21 +1,35 @@
 package com.insightsystems.symphony.tal;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.springframework.http.HttpStatus;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 
 import com.avispl.symphony.api.common.error.InvalidArgumentException;
+import com.avispl.symphony.api.tal.dto.TicketSourceConfigProperty;
 import com.avispl.symphony.api.tal.dto.TicketSystemConfig;
 import com.avispl.symphony.api.tal.error.TalAdapterSyncException;
 
@@ -114,4 +128,326 @@ public class ConnectWiseClientTest {
         Assertions.assertThrows(TalAdapterSyncException.class, () -> restCWClient.post(any(TicketSystemConfig.class),mock()));
     }
 
+    @Test
+    void patchComments_withMatchingComments_shouldOnlyPatchChangedTexts() throws Exception {
+        Map<String, String> mapOfConfigs = Map.of(
+                TicketSourceConfigPropertyCW.CLIENT_ID, "mockClientId",
+                TicketSourceConfigPropertyCW.PUBLIC_KEY, "mockPublicKey",
+                TicketSourceConfigPropertyCW.PRIVATE_KEY, "mockPrivateKey",
+                TicketSourceConfigPropertyCW.COMPANY_ID, "mockCompanyId",
+                TicketSourceConfigPropertyCW.URL_PATTERN_TO_GET_COMMENTS, "/notes"
+        );
+        when(config.getTicketSourceConfig()).thenReturn(mapOfConfigs);
+        HttpResponse<String> response = mock();
+        when(response.statusCode()).thenReturn(200);
+        when(response.body()).thenReturn("{}");
+        reset(client);
+        doReturn(response).when(client).send(any(HttpRequest.class), any());
+
+        ConnectWiseTicket symphonyTicket = new ConnectWiseTicket("symphonyId", "symphonyLink", "1", "https://cw.test/tickets/1", null);
+        symphonyTicket.addComment(new ConnectWiseComment("a", "10", "lucap", "Unchanged", 0L));
+        symphonyTicket.addComment(new ConnectWiseComment("b", "11", "lucap", "Edited in Symphony", 0L));
+        ConnectWiseTicket refreshedTicket = new ConnectWiseTicket("symphonyId", "symphonyLink", "1", "https://cw.test/tickets/1", null);
+        ConnectWiseComment description = new ConnectWiseComment(null, "9", "lucap", "Description", 0L);
+        refreshedTicket.setDescription(description);
+        refreshedTicket.addComment(description);
+        refreshedTicket.addComment(new ConnectWiseComment(null, "10", "lucap", "Unchanged", 0L));
+        refreshedTicket.addComment(new ConnectWiseComment(null, "11", "lucap", "Original", 0L));
+
+        restCWClient.patchComments(config, symphonyTicket, refreshedTicket);
+
+        ArgumentCaptor<HttpRequest> request = ArgumentCaptor.forClass(HttpRequest.class);
+        verify(client, times(1)).send(request.capture(), any());
+        Assertions.assertEquals("PATCH", request.getValue().method());
+        Assertions.assertEquals("https://cw.test/tickets/1/notes/11", request.getValue().uri().toString());
+    }
+
+    @Test
+    void patchComments_whenSomeParallelPostsFail_shouldThrowOneAggregatedException() throws Exception {
+        Map<String, String> mapOfConfigs = Map.of(
+                TicketSourceConfigPropertyCW.CLIENT_ID, "mockClientId",
+                TicketSourceConfigPropertyCW.PUBLIC_KEY, "mockPublicKey",
+                TicketSourceConfigPropertyCW.PRIVATE_KEY, "mockPrivateKey",
+                TicketSourceConfigPropertyCW.COMPANY_ID, "mockCompanyId",
+                TicketSourceConfigPropertyCW.URL_PATTERN_TO_GET_COMMENTS, "/notes",
+                TicketSourceConfigPropertyCW.NOTE_POST_PARALLELISM, "4"
+        );
+        when(config.getTicketSourceConfig()).thenReturn(mapOfConfigs);
+        HttpResponse<String> created = mock();
+        when(created.statusCode()).thenReturn(201);
+        when(created.body()).thenReturn("{\"id\": 42}");
+        HttpResponse<String> unavailable = mock();
+        when(unavailable.statusCode()).thenReturn(503);
+        when(unavailable.body()).thenReturn("");
+        reset(client);
+        ConnectWiseTicket symphonyTicket = new ConnectWiseTicket("symphonyId", "symphonyLink", "1",
+                "https://cw.test/tickets/1", null);
+        for (int i = 0; i < 6; i++)
+            symphonyTicket.addComment(new ConnectWiseComment("comment" + i, null, null, "Comment " + i, (long) i));
+        ConnectWiseTicket refreshedTicket = new ConnectWiseTicket("symphonyId", "symphonyLink", "1",
+                "https://cw.test/tickets/1", null);
+        // Make the third POST fail
+        AtomicInteger calls = new AtomicInteger();
+        doAnswer(invocation -> calls.incrementAndGet() == 3 ? unavailable : created)
+                .when(client).send(any(HttpRequest.class), any());
+
+        TalAdapterSyncException exception = Assertions.assertThrows(TalAdapterSyncException.class,
+                () -> restCWClient.patchComments(config, symphonyTicket, refreshedTicket));
+
+        Assertions.assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getHttpStatus());
+        verify(client, times(6)).send(any(HttpRequest.class), any());
+        Assertions.assertEquals(5, symphonyTicket.getComments().stream().filter(c -> c.getThirdPartyId() != null).count());
+        Assertions.assertTrue(exception.getMessage().startsWith("Unable to POST 1/6 comment(s)"));
+    }
+
+    @Test
+    void patchComments_withWatermark_shouldSkipCommentsSyncedBefore() throws Exception {
+        Map<String, String> mapOfConfigs = Map.of(
+                TicketSourceConfigPropertyCW.CLIENT_ID, "mockClientId",
+                TicketSourceConfigPropertyCW.PUBLIC_KEY, "mockPublicKey",
+                TicketSourceConfigPropertyCW.PRIVATE_KEY, "mockPrivateKey",
+                TicketSourceConfigPropertyCW.COMPANY_ID, "mockCompanyId",
+                TicketSourceConfigPropertyCW.URL_PATTERN_TO_GET_COMMENTS, "/notes"
+        );
+        when(config.getTicketSourceConfig()).thenReturn(mapOfConfigs);
+        HttpResponse<String> response = mock();
+        when(response.statusCode()).thenReturn(200);
+        when(response.body()).thenReturn("{}");
+        reset(client);
+        doReturn(response).when(client).send(any(HttpRequest.class), any());
+
+        ConnectWiseTicket symphonyTicket = new ConnectWiseTicket("symphonyId", "symphonyLink", "1",
+                "https://cw.test/tickets/1", null);
+        symphonyTicket.addComment(new ConnectWiseComment("a", "10", "lucap", "Synced before", 1000L));
+        symphonyTicket.addComment(new ConnectWiseComment("b", "11", "lucap", "Edited after sync", 3000L));
+        ConnectWiseTicket refreshedTicket = new ConnectWiseTicket("symphonyId", "symphonyLink", "1",
+                "https://cw.test/tickets/1", null);
+        ConnectWiseComment description = new ConnectWiseComment(null, "9", "lucap", "Description", 0L);
+        refreshedTicket.setDescription(description);
+        refreshedTicket.addComment(description);
+        refreshedTicket.addComment(new ConnectWiseComment(null, "10", "lucap", "Edited in ConnectWise", 0L));
+        refreshedTicket.addComment(new ConnectWiseComment(null, "11", "lucap", "Original", 0L));
+
+        restCWClient.patchComments(config, symphonyTicket, refreshedTicket, 2000L);
+
+        ArgumentCaptor<HttpRequest> request = ArgumentCaptor.forClass(HttpRequest.class);
+        verify(client, times(1)).send(request.capture(), any());
+        Assertions.assertEquals("https://cw.test/tickets/1/notes/11", request.getValue().uri().toString());
+    }
+
+    @Test
+    void patchComments_whenTextPatchFails_shouldKeepWatermarkBelowFailedComment() throws Exception {
+        Map<String, String> mapOfConfigs = Map.of(
+                TicketSourceConfigPropertyCW.CLIENT_ID, "mockClientId",
+                TicketSourceConfigPropertyCW.PUBLIC_KEY, "mockPublicKey",
+                TicketSourceConfigPropertyCW.PRIVATE_KEY, "mockPrivateKey",
+                TicketSourceConfigPropertyCW.COMPANY_ID, "mockCompanyId",
+                TicketSourceConfigPropertyCW.URL_PATTERN_TO_GET_COMMENTS, "/notes"
+        );
+        when(config.getTicketSourceConfig()).thenReturn(mapOfConfigs);
+        HttpResponse<String> badRequest = mock();
+        when(badRequest.statusCode()).thenReturn(400);
+        when(badRequest.body()).thenReturn("");
+        reset(client);
+        doReturn(badRequest).when(client).send(any(HttpRequest.class), any());
+
+        ConnectWiseTicket symphonyTicket = new ConnectWiseTicket("symphonyId", "symphonyLink", "1",
+                "https://cw.test/tickets/1", new HashMap<>());
+        symphonyTicket.addComment(new ConnectWiseComment("a", "10", "lucap", "Unchanged", 1000L));
+        symphonyTicket.addComment(new ConnectWiseComment("b", "11", "lucap", "Edited in Symphony", 3000L));
+        symphonyTicket.addComment(new ConnectWiseComment("c", "12", "lucap", "Also unchanged", 4000L));
+        ConnectWiseTicket refreshedTicket = new ConnectWiseTicket("symphonyId", "symphonyLink", "1",
+                "https://cw.test/tickets/1", null);
+        ConnectWiseComment description = new ConnectWiseComment(null, "9", "lucap", "Description", 0L);
+        refreshedTicket.setDescription(description);
+        refreshedTicket.addComment(description);
+        refreshedTicket.addComment(new ConnectWiseComment(null, "10", "lucap", "Unchanged", 0L));
+        refreshedTicket.addComment(new ConnectWiseComment(null, "11", "lucap", "Original", 0L));
+        refreshedTicket.addComment(new ConnectWiseComment(null, "12", "lucap", "Also unchanged", 0L));
+
+        restCWClient.patchComments(config, symphonyTicket, refreshedTicket, CommentWatermarks.NONE);
+        CommentWatermarks.advanceToConnectWise(symphonyTicket.getExtraParams(), symphonyTicket.getComments(), false);
+
+        // The failed comment is compared again by the next sync
+        verify(client, times(1)).send(any(HttpRequest.class), any());
+        Assertions.assertEquals(2999L, CommentWatermarks.toConnectWise(symphonyTicket.getExtraParams(), config));
+    }
+
+
+    @Test
+    void getTickets_withSeveralIds_shouldRetrieveThemInOneRequest() throws Exception {
+        Map<String, String> mapOfConfigs = Map.of(
+                TicketSourceConfigPropertyCW.CLIENT_ID, "mockClientId",
+                TicketSourceConfigPropertyCW.PUBLIC_KEY, "mockPublicKey",
+                TicketSourceConfigPropertyCW.PRIVATE_KEY, "mockPrivateKey",
+                TicketSourceConfigPropertyCW.COMPANY_ID, "mockCompanyId",
+                TicketSourceConfigProperty.URL, "https://cw.test",
+                TicketSourceConfigProperty.API_PATH, "/v4_6_release/apis/3.0",
+                TicketSourceConfigPropertyCW.URL_PATTERN_TO_GET_TICKET, "/service/tickets"
+        );
+        when(config.getTicketSourceConfig()).thenReturn(mapOfConfigs);
+        HttpResponse<String> response = mock();
+        when(response.statusCode()).thenReturn(200);
+        when(response.body()).thenReturn("[{\"id\": 1, \"summary\": \"First\"}, {\"id\": 2, \"summary\": \"Second\"}]");
+        reset(client);
+        doReturn(response).when(client).send(any(HttpRequest.class), any());
+
+        Map<String, ConnectWiseTicket> tickets = restCWClient.getTickets(config, List.of("1", "2", "not a number"));
+
+        ArgumentCaptor<HttpRequest> request = ArgumentCaptor.forClass(HttpRequest.class);
+        verify(client, times(1)).send(request.capture(), any());
+        Assertions.assertEquals("https://cw.test/v4_6_release/apis/3.0/service/tickets?conditions=id%20in%20(1,2)&pageSize=2",
+                request.getValue().uri().toString());
+        Assertions.assertEquals(2, tickets.size());
+        Assertions.assertEquals("Second", tickets.get("2").getSummary());
+        Assertions.assertEquals("https://cw.test/v4_6_release/apis/3.0/service/tickets/2", tickets.get("2").getUrl());
+    }
+
+    @Test
+    void getPriorityID_withCompaniesOnSameInstance_shouldCachePrioritiesPerCompany() throws Exception {
+        Map<String, String> firstCompany = Map.of(
+                TicketSourceConfigPropertyCW.CLIENT_ID, "mockClientId",
+                TicketSourceConfigPropertyCW.PUBLIC_KEY, "mockPublicKey",
+                TicketSourceConfigPropertyCW.PRIVATE_KEY, "mockPrivateKey",
+                TicketSourceConfigPropertyCW.COMPANY_ID, "firstCompanyId",
+                TicketSourceConfigProperty.URL, "https://cw.test",
+                TicketSourceConfigProperty.API_PATH, "/v4_6_release/apis/3.0"
+        );
+        Map<String, String> secondCompany = Map.of(
+                TicketSourceConfigPropertyCW.CLIENT_ID, "mockClientId",
+                TicketSourceConfigPropertyCW.PUBLIC_KEY, "mockPublicKey",
+                TicketSourceConfigPropertyCW.PRIVATE_KEY, "mockPrivateKey",
+                TicketSourceConfigPropertyCW.COMPANY_ID, "secondCompanyId",
+                TicketSourceConfigProperty.URL, "https://cw.test",
+                TicketSourceConfigProperty.API_PATH, "/v4_6_release/apis/3.0"
+        );
+        HttpResponse<String> firstResponse = mock();
+        when(firstResponse.statusCode()).thenReturn(200);
+        when(firstResponse.body()).thenReturn("[{\"id\": 4, \"name\": \"Priority 3 - Normal\"}]");
+        HttpResponse<String> secondResponse = mock();
+        when(secondResponse.statusCode()).thenReturn(200);
+        when(secondResponse.body()).thenReturn("[{\"id\": 9, \"name\": \"Priority 3 - Normal\"}]");
+        reset(client);
+        AtomicInteger calls = new AtomicInteger();
+        doAnswer(invocation -> calls.incrementAndGet() == 1 ? firstResponse : secondResponse)
+                .when(client).send(any(HttpRequest.class), any());
+
+        when(config.getTicketSourceConfig()).thenReturn(firstCompany);
+        Assertions.assertEquals("4", restCWClient.getPriorityID(config, "Priority 3 - Normal"));
+        Assertions.assertEquals("4", restCWClient.getPriorityID(config, "Priority 3 - Normal"));
+        when(config.getTicketSourceConfig()).thenReturn(secondCompany);
+        Assertions.assertEquals("9", restCWClient.getPriorityID(config, "Priority 3 - Normal"));
+        verify(client, times(2)).send(any(HttpRequest.class), any());
+    }
+
+    @Test
+    void get_withTicketCache_shouldReuseResponsesUntilTicketIsInvalidated() throws Exception {
+        Map<String, String> mapOfConfigs = Map.of(
+                TicketSourceConfigPropertyCW.CLIENT_ID, "mockClientId",
+                TicketSourceConfigPropertyCW.PUBLIC_KEY, "mockPublicKey",
+                TicketSourceConfigPropertyCW.PRIVATE_KEY, "mockPrivateKey",
+                TicketSourceConfigPropertyCW.COMPANY_ID, "mockCompanyId",
+                TicketSourceConfigProperty.URL, "https://cw.test",
+                TicketSourceConfigProperty.API_PATH, "/v4_6_release/apis/3.0",
+                TicketSourceConfigPropertyCW.URL_PATTERN_TO_GET_TICKET, "/service/tickets",
+                TicketSourceConfigPropertyCW.URL_PATTERN_TO_GET_COMMENTS, "/notes",
+                TicketSourceConfigPropertyCW.TICKET_CACHE_SECONDS, "60"
+        );
+        when(config.getTicketSourceConfig()).thenReturn(mapOfConfigs);
+        HttpResponse<String> ticketResponse = mock();
+        when(ticketResponse.statusCode()).thenReturn(200);
+        when(ticketResponse.body()).thenReturn("{\"id\": 7, \"summary\": \"Cached\"}");
+        HttpResponse<String> notesResponse = mock();
+        when(notesResponse.statusCode()).thenReturn(200);
+        when(notesResponse.body()).thenReturn("[]");
+        reset(client);
+        doAnswer(invocation -> invocation.<HttpRequest>getArgument(0).uri().getPath().endsWith("/notes") ?
+                notesResponse : ticketResponse).when(client).send(any(HttpRequest.class), any());
+        String url = "https://cw.test/v4_6_release/apis/3.0/service/tickets/7";
+
+        Assertions.assertEquals("Cached", restCWClient.get(config, url).getSummary());
+        Assertions.assertEquals("Cached", restCWClient.get(config, url).getSummary());
+        verify(client, times(2)).send(any(HttpRequest.class), any());
+
+        restCWClient.invalidateTicket("MOCKCOMPANYID", "7");
+        restCWClient.get(config, url);
+        verify(client, times(4)).send(any(HttpRequest.class), any());
+    }
+
+    @Test
+    void post_whenDescriptionFailed_shouldResumeWithoutCreatingTicketAgain() throws Exception {
+        Map<String, String> mapOfConfigs = Map.of(
+                TicketSourceConfigPropertyCW.CLIENT_ID, "mockClientId",
+                TicketSourceConfigPropertyCW.PUBLIC_KEY, "mockPublicKey",
+                TicketSourceConfigPropertyCW.PRIVATE_KEY, "mockPrivateKey",
+                TicketSourceConfigPropertyCW.COMPANY_ID, "mockCompanyId",
+                TicketSourceConfigProperty.URL, "https://cw.test",
+                TicketSourceConfigProperty.API_PATH, "/v4_6_release/apis/3.0",
+                TicketSourceConfigPropertyCW.URL_PATTERN_TO_GET_TICKET, "/service/tickets",
+                TicketSourceConfigPropertyCW.URL_PATTERN_TO_GET_COMMENTS, "/notes",
+                TicketSourceConfigPropertyCW.COMPANY_REC_ID, "250"
+        );
+        when(config.getTicketSourceConfig()).thenReturn(mapOfConfigs);
+        HttpResponse<String> ticketResponse = mock();
+        when(ticketResponse.statusCode()).thenReturn(201);
+        when(ticketResponse.body()).thenReturn("{\"id\": 5}");
+        HttpResponse<String> unavailableResponse = mock();
+        when(unavailableResponse.statusCode()).thenReturn(503);
+        HttpResponse<String> noteResponse = mock();
+        when(noteResponse.statusCode()).thenReturn(201);
+        when(noteResponse.body()).thenReturn("{\"id\": 50, \"dateCreated\": \"2024-01-01T10:00:00Z\", " +
+                "\"createdBy\": \"lucap\", \"text\": \"Description\"}");
+        AtomicInteger ticketPosts = new AtomicInteger();
+        AtomicInteger notePosts = new AtomicInteger();
+        reset(client);
+        doAnswer(invocation -> {
+            if (invocation.<HttpRequest>getArgument(0).uri().getPath().endsWith("/notes"))
+                return notePosts.incrementAndGet() == 1 ? unavailableResponse : noteResponse;
+            ticketPosts.incrementAndGet();
+            return ticketResponse;
+        }).when(client).send(any(HttpRequest.class), any());
+
+        ConnectWiseTicket CWTicket = new ConnectWiseTicket("resumedSymphonyId", null, null, null, new HashMap<>());
+        CWTicket.setSummary("Summary");
+        CWTicket.addComment(new ConnectWiseComment("symphonyCommentId", null, null, "Comment", 1L));
+        TalAdapterSyncException e = Assertions.assertThrows(TalAdapterSyncException.class,
+                () -> restCWClient.post(config, CWTicket));
+        Assertions.assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getHttpStatus());
+
+        ConnectWiseTicket retriedCWTicket = new ConnectWiseTicket("resumedSymphonyId", null, null, null, new HashMap<>());
+        retriedCWTicket.setSummary("Summary");
+        retriedCWTicket.addComment(new ConnectWiseComment("symphonyCommentId", null, null, "Comment", 1L));
+        restCWClient.post(config, retriedCWTicket);
+
+        Assertions.assertEquals(1, ticketPosts.get());
+        Assertions.assertEquals("5", retriedCWTicket.getId());
+        Assertions.assertEquals("https://cw.test/v4_6_release/apis/3.0/service/tickets/5", retriedCWTicket.getUrl());
+        Assertions.assertEquals("50", retriedCWTicket.getComments().iterator().next().getThirdPartyId());
+        Assertions.assertNull(restCWClient.getCreationJournal().get("resumedSymphonyId"));
+    }
+
+    @Test
+    void deferWrite_shouldOnlyDeferToDurableOutbox(@TempDir Path directory) throws Exception {
+        when(config.getTicketSourceConfig()).thenReturn(Map.of(TicketSourceConfigPropertyCW.COMPANY_ID, "mockCompanyId"));
+        ConnectWiseTicket CWTicket = new ConnectWiseTicket("symphonyId", null, null, null, new HashMap<>());
+        CWTicket.setCustomerId("customerId");
+        TalAdapterSyncException error = new TalAdapterSyncException("PATCH failed", HttpStatus.SERVICE_UNAVAILABLE);
+        WriteOutbox previousOutbox = restCWClient.getWriteOutbox();
+        try {
+            // A write kept in memory only would be lost on restart while the sync is reported as successful
+            restCWClient.setWriteOutbox(new WriteOutbox());
+            Assertions.assertFalse(restCWClient.deferWrite(config, CWTicket, "PATCH", "https://cw.test/tickets/1",
+                    "[]", error));
+
+            WriteOutbox durableOutbox = new WriteOutbox(directory.resolve("outbox.journal"));
+            restCWClient.setWriteOutbox(durableOutbox);
+            Assertions.assertTrue(restCWClient.deferWrite(config, CWTicket, "PATCH", "https://cw.test/tickets/1",
+                    "[]", error));
+            Assertions.assertEquals(1, durableOutbox.size());
+            durableOutbox.stop();
+        } finally {
+            restCWClient.setWriteOutbox(previousOutbox);
+        }
+    }
+
 }
@@ -0,0 +1,48 @@
+package com.insightsystems.symphony.tal;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tester class for ConnectWiseComment.
+ *
+ * @since 5.8
+ */
+public class ConnectWiseCommentTest {
+
+    @Test
+    void setText_withNonAsciiText_shouldDecodeSameText() {
+        ConnectWiseComment comment = new ConnectWiseComment("Réseau coupé – 東京 ✓");
+
+        Assertions.assertEquals("Réseau coupé – 東京 ✓", comment.getText());
+        Assertions.assertTrue(comment.hasText("Réseau coupé – 東京 ✓"));
+        Assertions.assertFalse(comment.hasText("Reseau coupe"));
+        Assertions.assertFalse(comment.hasText(null));
+    }
+
+    @Test
+    void hasSameText_shouldCompareTexts() {
+        ConnectWiseComment comment = new ConnectWiseComment("Same text");
+
+        Assertions.assertTrue(comment.hasSameText(new ConnectWiseComment("Same text")));
+        Assertions.assertFalse(comment.hasSameText(new ConnectWiseComment("Other text")));
+        Assertions.assertTrue(new ConnectWiseComment(null).hasSameText(new ConnectWiseComment(null)));
+        Assertions.assertNull(new ConnectWiseComment(null).getText());
+    }
+
+    @Test
+    void setFlags_shouldKeepFlagsIndependent() {
+        ConnectWiseComment comment = new ConnectWiseComment("id", "1", "creator", "text", 0L, true, false, true);
+
+        Assertions.assertTrue(comment.isDescriptionFlag());
+        Assertions.assertFalse(comment.isInternalFlag());
+        Assertions.assertTrue(comment.isResolutionFlag());
+
+        comment.setDescriptionFlag(false);
+        comment.setInternalFlag(true);
+
+        Assertions.assertFalse(comment.isDescriptionFlag());
+        Assertions.assertTrue(comment.isInternalFlag());
+        Assertions.assertTrue(comment.isResolutionFlag());
+    }
+}
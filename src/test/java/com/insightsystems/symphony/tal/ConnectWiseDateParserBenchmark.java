@@ -0,0 +1,91 @@
+package com.insightsystems.symphony.tal;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares ConnectWiseDateParser with the previous parsing of note timestamps, on notes arrays of 1,000 and 10,000
+ * entries. Not part of the default test run, as its name does not end with Test. Run it with
+ * {@code mvn test -Dtest=ConnectWiseDateParserBenchmark}.
+ * <p>
+ * The previous path read timestamps in the system default zone, which ignored their "Z" suffix. It is measured with
+ * UTC instead, which costs the same, so that both paths must return the same instants: every round checks the sum
+ * of the parsed timestamps against the sum from java.time, so the parsing cannot be optimized away.
+ *
+ * @since 5.8
+ */
+public class ConnectWiseDateParserBenchmark {
+
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int MEASURED_ROUNDS = 50;
+
+    @Test
+    void parseEpochMillis_onNotesArrays_shouldMatchAndOutrunFormatterPath() {
+        for (int size : new int[]{1_000, 10_000}) {
+            JSONArray notes = notes(size);
+            long expectedChecksum = 0;
+            for (int i = 0; i < notes.length(); i++)
+                expectedChecksum += ZonedDateTime.parse(notes.getJSONObject(i).getString("dateCreated"))
+                        .toInstant().toEpochMilli();
+
+            long formatterNanos = measure(notes, true, expectedChecksum);
+            long parserNanos = measure(notes, false, expectedChecksum);
+            System.out.printf("%d notes: formatter %.1f us, ConnectWiseDateParser %.1f us (%.1fx)%n", size,
+                    formatterNanos / 1000.0, parserNanos / 1000.0, (double) formatterNanos / parserNanos);
+        }
+    }
+
+    /**
+     * Parses the timestamps of every note, round after round
+     *
+     * @param formatter true to measure the previous formatter path, false to measure ConnectWiseDateParser
+     * @param expectedChecksum sum of the epoch milliseconds of every note
+     * @return average nanoseconds of a measured round
+     */
+    private static long measure(JSONArray notes, boolean formatter, long expectedChecksum) {
+        long elapsed = 0;
+        for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+            long checksum = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < notes.length(); i++) {
+                String dateCreated = notes.getJSONObject(i).getString("dateCreated");
+                checksum += formatter ?
+                        parseWithFormatter(dateCreated, ZoneOffset.UTC) :
+                        ConnectWiseDateParser.parseEpochMillis(dateCreated);
+            }
+            if (round >= WARMUP_ROUNDS)
+                elapsed += System.nanoTime() - start;
+            Assertions.assertEquals(expectedChecksum, checksum, formatter ? "formatter" : "ConnectWiseDateParser");
+        }
+        return elapsed / MEASURED_ROUNDS;
+    }
+
+    /**
+     * Previous parsing: one formatter per call, through LocalDateTime and ZonedDateTime
+     */
+    private static long parseWithFormatter(String dateCreated, ZoneId zone) {
+        DateTimeFormatter ConnectWiseDateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'H:m:sX");
+        LocalDateTime commentDate = LocalDateTime.parse(dateCreated, ConnectWiseDateTimeFormatter);
+        return ZonedDateTime.of(commentDate, zone).toInstant().toEpochMilli();
+    }
+
+    private static JSONArray notes(int size) {
+        JSONArray notes = new JSONArray();
+        for (int i = 0; i < size; i++) {
+            notes.put(new JSONObject()
+                    .put("id", i)
+                    .put("dateCreated", String.format("2024-%02d-%02dT%02d:%02d:%02dZ",
+                            i % 12 + 1, i % 28 + 1, i % 24, i % 60, (i * 7) % 60))
+                    .put("text", "Note " + i));
+        }
+        return notes;
+    }
+}
@@ -0,0 +1,43 @@
+package com.insightsystems.symphony.tal;
+
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tester class for ConnectWiseDateParser.
+ *
+ * @since 5.8
+ */
+public class ConnectWiseDateParserTest {
+
+    @Test
+    void parseEpochMillis_withUtcTimestamp_shouldMatchJavaTime() {
+        for (String timestamp : new String[]{"2024-01-01T10:00:00Z", "1970-01-01T00:00:00Z", "2024-02-29T23:59:59Z",
+                "1969-12-31T23:59:59Z", "2100-03-01T12:30:45Z", "2024-06-15T08:05:09.123Z",
+                "2024-06-15T08:05:09.5+02:00", "2024-06-15T08:05:09-0530"}) {
+            Assertions.assertEquals(OffsetDateTime.parse(timestamp.replace("-0530", "-05:30"))
+                    .toInstant().toEpochMilli(), ConnectWiseDateParser.parseEpochMillis(timestamp), timestamp);
+        }
+    }
+
+    @Test
+    void parseEpochMillis_withSingleDigitTimeOrNoZone_shouldReadUtc() {
+        Assertions.assertEquals(ConnectWiseDateParser.parseEpochMillis("2024-01-01T09:05:07Z"),
+                ConnectWiseDateParser.parseEpochMillis("2024-01-01T9:5:7Z"));
+        Assertions.assertEquals(ConnectWiseDateParser.parseEpochMillis("2024-01-01T09:05:07Z"),
+                ConnectWiseDateParser.parseEpochMillis("2024-01-01T09:05:07"));
+    }
+
+    @Test
+    void parseEpochMillis_withInvalidTimestamp_shouldThrowDateTimeParseException() {
+        for (String timestamp : new String[]{"", "2024-13-01T10:00:00Z", "2023-02-29T10:00:00Z",
+                "2024-01-01T24:00:00Z", "2024-01-01 10:00:00Z", "2024-01-01T10:00:00Zjunk", "2024-01-01T10:00:00."}) {
+            Assertions.assertThrows(DateTimeParseException.class,
+                    () -> ConnectWiseDateParser.parseEpochMillis(timestamp), timestamp);
+        }
+        Assertions.assertThrows(DateTimeParseException.class, () -> ConnectWiseDateParser.parseEpochMillis(null));
+    }
+}
@@ -0,0 +1,107 @@
+package com.insightsystems.symphony.tal;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.avispl.symphony.api.tal.error.TalAdapterSyncException;
+
+/**
+ * Tester class for ConnectWiseMetrics.
+ *
+ * @since 5.8
+ */
+public class ConnectWiseMetricsTest {
+
+    @Test
+    void endpointOf_shouldReplaceNumericSegmentsAndDropQuery() {
+        Assertions.assertEquals("GET /v4_6_release/apis/3.0/service/tickets/{id}/allNotes",
+                ConnectWiseMetrics.endpointOf("GET",
+                        "https://cw.example.com/v4_6_release/apis/3.0/service/tickets/12345/allNotes?pageSize=1000"));
+        Assertions.assertEquals("PATCH /apis/3.0/service/tickets/{id}/notes/{id}",
+                ConnectWiseMetrics.endpointOf("PATCH", "https://cw.example.com/apis/3.0/service/tickets/1/notes/22"));
+        Assertions.assertEquals("GET /apis/3.0/service/priorities",
+                ConnectWiseMetrics.endpointOf("GET", "https://cw.example.com/apis/3.0/service/priorities?conditions=x"));
+    }
+
+    @Test
+    void recordCall_shouldGroupCallsByTenantAndEndpoint() {
+        ConnectWiseMetrics metrics = new ConnectWiseMetrics();
+        metrics.recordCall("250", "GET", "https://cw/apis/service/tickets/1", 200, TimeUnit.MILLISECONDS.toNanos(20), 0, 300);
+        metrics.recordCall("250", "GET", "https://cw/apis/service/tickets/2", 200, TimeUnit.MILLISECONDS.toNanos(40), 0, 500);
+        metrics.recordCall("250", "GET", "https://cw/apis/service/tickets/3", 429, TimeUnit.MILLISECONDS.toNanos(3), 0, 10);
+        metrics.recordCall("250", "GET", "https://cw/apis/service/tickets/4", 0, TimeUnit.MILLISECONDS.toNanos(900), 0, 0);
+        metrics.recordCall("300", "POST", "https://cw/apis/service/tickets", 201, TimeUnit.MILLISECONDS.toNanos(60), 120, 80);
+
+        ConnectWiseMetrics.Snapshot snapshot = metrics.snapshot();
+        Assertions.assertEquals(2, snapshot.getEndpoints().size());
+
+        ConnectWiseMetrics.EndpointStats gets = snapshot.getEndpoints().get(0);
+        Assertions.assertEquals("250", gets.getTenant());
+        Assertions.assertEquals("GET /apis/service/tickets/{id}", gets.getEndpoint());
+        Assertions.assertEquals(2L, gets.getStatusCodes().get("200"));
+        Assertions.assertEquals(1L, gets.getStatusCodes().get("429"));
+        Assertions.assertEquals(1L, gets.getStatusCodes().get("none"));
+        Assertions.assertEquals(2, gets.getFailures());
+        Assertions.assertEquals(810, gets.getBytesReceived());
+        Assertions.assertEquals(4, gets.getLatency().getCount());
+        Assertions.assertEquals(25, gets.getLatency().getP50Millis());
+        Assertions.assertEquals(900, gets.getLatency().getP99Millis());
+        Assertions.assertEquals(900, gets.getLatency().getMaxMillis());
+
+        ConnectWiseMetrics.EndpointStats posts = snapshot.getEndpoints().get(1);
+        Assertions.assertEquals("300", posts.getTenant());
+        Assertions.assertEquals(0, posts.getFailures());
+        Assertions.assertEquals(120, posts.getBytesSent());
+    }
+
+    @Test
+    void timed_whenActionFails_shouldStillRecordPhase() {
+        ConnectWiseMetrics metrics = new ConnectWiseMetrics();
+        SyncPlan.Action action = metrics.timed(null, ConnectWiseMetrics.Phase.PATCH, () -> {
+            throw new TalAdapterSyncException("PATCH failed");
+        });
+
+        Assertions.assertThrows(TalAdapterSyncException.class, action::run);
+        metrics.recordRetry(ConnectWiseMetrics.UNKNOWN_TENANT);
+
+        ConnectWiseMetrics.Snapshot snapshot = metrics.snapshot();
+        Assertions.assertEquals(1, snapshot.getPhases().size());
+        Assertions.assertEquals("patch", snapshot.getPhases().get(0).getPhase());
+        Assertions.assertEquals(ConnectWiseMetrics.UNKNOWN_TENANT, snapshot.getPhases().get(0).getTenant());
+        Assertions.assertEquals(1, snapshot.getPhases().get(0).getLatency().getCount());
+        Assertions.assertEquals(1L, snapshot.getRetries().get(ConnectWiseMetrics.UNKNOWN_TENANT));
+
+        metrics.reset();
+        Assertions.assertTrue(metrics.snapshot().getPhases().isEmpty());
+        Assertions.assertTrue(metrics.snapshot().getRetries().isEmpty());
+    }
+
+    @Test
+    void register_shouldExposeMetricsOverJmx() throws Exception {
+        ConnectWiseMetrics metrics = new ConnectWiseMetrics();
+        metrics.recordCall("250", "GET", "https://cw/apis/service/tickets/1", 200, 1000, 0, 10);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(ConnectWiseMetrics.OBJECT_NAME);
+        // The shared registry may already be registered by another test
+        if (server.isRegistered(name))
+            server.unregisterMBean(name);
+
+        metrics.register();
+        try {
+            CompositeData[] endpoints = (CompositeData[]) server.getAttribute(name, "Endpoints");
+            Assertions.assertEquals(1, endpoints.length);
+            Assertions.assertEquals("GET /apis/service/tickets/{id}", endpoints[0].get("endpoint"));
+            Assertions.assertEquals(1L, ((CompositeData) endpoints[0].get("latency")).get("count"));
+        } finally {
+            metrics.unregister();
+        }
+        Assertions.assertFalse(server.isRegistered(name));
+    }
+}
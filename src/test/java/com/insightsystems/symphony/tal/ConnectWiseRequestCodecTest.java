@@ -0,0 +1,35 @@
+package com.insightsystems.symphony.tal;
+
+import java.nio.charset.StandardCharsets;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tester class for ConnectWiseRequestCodec.
+ *
+ * @since 5.8
+ */
+public class ConnectWiseRequestCodecTest {
+
+    @Test
+    void encode_withQuotesInText_shouldEscapeThem() {
+        byte[] body = ConnectWiseRequestCodec.encode(new ConnectWiseRequestCodec.NoteRequest(
+                "He said \"reboot\"\nthen left \\ é", false, true, false, "jdoe"));
+
+        JSONObject note = new JSONObject(new String(body, StandardCharsets.UTF_8));
+        Assertions.assertEquals("He said \"reboot\"\nthen left \\ é", note.getString("text"));
+        Assertions.assertTrue(note.getBoolean("internalAnalysisFlag"));
+        Assertions.assertEquals("jdoe", note.getJSONObject("member").getString("identifier"));
+    }
+
+    @Test
+    void encode_withTicket_shouldWriteCompactBodyWithOptionalFields() {
+        String body = new String(ConnectWiseRequestCodec.encode(new ConnectWiseRequestCodec.TicketRequest(
+                "Printer \"down\"", null, "250", "New", null, "4")), StandardCharsets.UTF_8);
+
+        Assertions.assertEquals("{\"summary\":\"Printer \\\"down\\\"\",\"company\":{\"id\":250}," +
+                "\"status\":{\"name\":\"New\"},\"priority\":{\"id\":4}}", body);
+    }
+}
@@ -0,0 +1,66 @@
+package com.insightsystems.symphony.tal;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tester class for ConnectWiseResponseCodec.
+ *
+ * @since 5.8
+ */
+public class ConnectWiseResponseCodecTest {
+
+    @Test
+    void read_withTicket_shouldBindNestedFieldsAndSkipUnknownOnes() {
+        ConnectWiseDto.Ticket ticket = ConnectWiseResponseCodec.read(ConnectWiseResponseCodec.TICKET,
+                "{\"id\":101,\"summary\":\"Printer down\",\"board\":{\"id\":1,\"name\":\"Support\"}," +
+                        "\"status\":{\"id\":5,\"name\":\"New\"},\"priority\":{\"id\":4,\"name\":\"Low\"}," +
+                        "\"owner\":{\"id\":7,\"identifier\":\"jdoe\"}," +
+                        "\"_info\":{\"lastUpdated\":\"2026-10-19T10:15:30Z\",\"updatedBy\":\"jdoe\"}}",
+                "url");
+
+        Assertions.assertNotNull(ticket);
+        Assertions.assertEquals(101, ticket.getId());
+        Assertions.assertEquals("New", ticket.getStatus().getName());
+        Assertions.assertEquals("jdoe", ticket.getOwner().getIdentifier());
+        Assertions.assertEquals("2026-10-19T10:15:30Z", ticket.getInfo().getLastUpdated());
+
+        ConnectWiseTicket CWTicket = new ConnectWiseTicket(ticket, StringPool.NONE);
+        Assertions.assertEquals("101", CWTicket.getId());
+        Assertions.assertEquals("Printer down", CWTicket.getSummary());
+        Assertions.assertEquals("Low", CWTicket.getPriority());
+        Assertions.assertEquals("jdoe", CWTicket.getAssignee());
+    }
+
+    @Test
+    void read_withUnexpectedShapeOrEmptyBody_shouldReturnNull() {
+        Assertions.assertNull(ConnectWiseResponseCodec.read(ConnectWiseResponseCodec.TICKETS, "{\"id\":1}", "url"));
+        Assertions.assertNull(ConnectWiseResponseCodec.read(ConnectWiseResponseCodec.TICKET, "", "url"));
+        Assertions.assertNull(ConnectWiseResponseCodec.read(ConnectWiseResponseCodec.TICKET, "not json", "url"));
+    }
+
+    @Test
+    void read_withNotes_shouldConvertToCommentsAndDescription() {
+        ConnectWiseDto.Note[] notes = ConnectWiseResponseCodec.read(ConnectWiseResponseCodec.NOTES,
+                "[{\"id\":2,\"text\":\"Rebooted\",\"createdBy\":\"jdoe\",\"dateCreated\":\"2026-10-19T11:00:00Z\"," +
+                        "\"internalAnalysisFlag\":true}," +
+                        "{\"id\":1,\"text\":\"Printer does not print\",\"dateCreated\":\"2026-10-19T10:00:00Z\"," +
+                        "\"detailDescriptionFlag\":true}]",
+                "url");
+        Assertions.assertNotNull(notes);
+        Assertions.assertEquals(2, notes.length);
+
+        ConnectWiseDto.Ticket ticket = ConnectWiseResponseCodec.read(ConnectWiseResponseCodec.TICKET,
+                "{\"id\":101}", "url");
+        ConnectWiseTicket CWTicket = new ConnectWiseTicket(ticket, StringPool.NONE);
+        CWTicket.setNotes(notes, StringPool.NONE);
+
+        Assertions.assertEquals("Printer does not print", CWTicket.getDescription().getText());
+        // The description note is kept among the comments, as when decoding JSON notes
+        Assertions.assertEquals(2, CWTicket.getComments().size());
+        ConnectWiseComment comment = CWTicket.getComments().stream()
+                .filter(c -> c.getThirdPartyId().equals("2")).findFirst().orElseThrow();
+        Assertions.assertEquals("jdoe", comment.getCreator());
+        Assertions.assertTrue(comment.isInternalFlag());
+    }
+}
@@ -0,0 +1,49 @@
+package com.insightsystems.symphony.tal;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tester class for ConnectWiseSchema.
+ *
+ * @since 5.8
+ */
+public class ConnectWiseSchemaTest {
+
+    @Test
+    void getString_withMissingField_shouldCountInsteadOfThrowing() {
+        long missingOwners = ConnectWiseSchema.TICKET_OWNER.getMissingCount();
+        JSONObject response = new JSONObject("{\"id\": 7, \"owner\": null, \"status\": {\"name\": \"New\"}}");
+
+        Assertions.assertNull(ConnectWiseSchema.TICKET_OWNER.getString(response));
+        Assertions.assertEquals("New", ConnectWiseSchema.TICKET_STATUS.getString(response));
+        Assertions.assertEquals(missingOwners + 1, ConnectWiseSchema.TICKET_OWNER.getMissingCount());
+        Assertions.assertEquals(missingOwners + 1,
+                ConnectWiseSchema.missingFieldCounts().get("ticket.owner.identifier"));
+    }
+
+    @Test
+    void getId_withNumberOrNumericText_shouldReturnId() {
+        Assertions.assertEquals("7", ConnectWiseSchema.TICKET_ID.getId(new JSONObject("{\"id\": 7}")));
+        Assertions.assertEquals("7", ConnectWiseSchema.TICKET_ID.getId(new JSONObject("{\"id\": \"7\"}")));
+        Assertions.assertNull(ConnectWiseSchema.TICKET_ID.getId(new JSONObject("{\"id\": \"seven\"}")));
+        Assertions.assertNull(ConnectWiseSchema.TICKET_ID.getId(new JSONObject("{\"id\": \"99999999999\"}")));
+    }
+
+    @Test
+    void connectWiseTicket_withPartialNotes_shouldDecodeWhatIsPresent() {
+        ConnectWiseTicket CWTicket = new ConnectWiseTicket(new JSONObject("{\"id\": 7}"));
+        CWTicket.setComments(new JSONArray()
+                .put(new JSONObject("{\"id\": 1, \"text\": \"No flags nor date\"}"))
+                .put(new JSONObject("{\"text\": \"No ID\"}")), StringPool.NONE);
+
+        Assertions.assertNull(CWTicket.getAssignee());
+        Assertions.assertEquals(1, CWTicket.getComments().size());
+        ConnectWiseComment comment = CWTicket.getComments().iterator().next();
+        Assertions.assertEquals("No flags nor date", comment.getText());
+        Assertions.assertFalse(comment.isDescriptionFlag());
+        Assertions.assertEquals(0L, comment.getLastModified());
+    }
+}
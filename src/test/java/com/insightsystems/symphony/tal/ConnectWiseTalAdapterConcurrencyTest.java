@@ -0,0 +1,146 @@
+package com.insightsystems.symphony.tal;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.avispl.symphony.api.tal.TalConfigService;
+import com.avispl.symphony.api.tal.TalProxy;
+import com.avispl.symphony.api.tal.dto.Comment;
+import com.avispl.symphony.api.tal.dto.TalTicket;
+import com.avispl.symphony.api.tal.dto.TicketSourceConfigProperty;
+import com.avispl.symphony.api.tal.dto.TicketSystemConfig;
+
+/**
+ * Concurrency tests for ConnectWiseTalAdapter, from syncTalTicket down to the HTTP requests sent to ConnectWise.
+ *
+ * @since 5.8
+ */
+public class ConnectWiseTalAdapterConcurrencyTest {
+
+    private static final UUID CUSTOMER_ID = UUID.fromString("00000000-0000-0000-0000-000000000001");
+    private static final String TICKETS_PATH = "/v4_6_release/apis/3.0/service/tickets";
+
+    private HttpClient client;
+    private ConnectWiseTalAdapter talAdapter;
+
+    @BeforeEach
+    public void init() throws Exception {
+        TicketSystemConfig config = mock();
+        when(config.getTicketSourceConfig()).thenReturn(Map.of(
+                TicketSourceConfigPropertyCW.CLIENT_ID, "mockClientId",
+                TicketSourceConfigPropertyCW.PUBLIC_KEY, "mockPublicKey",
+                TicketSourceConfigPropertyCW.PRIVATE_KEY, "mockPrivateKey",
+                TicketSourceConfigPropertyCW.COMPANY_ID, "mockCompanyId",
+                TicketSourceConfigProperty.URL, "https://cw.test",
+                TicketSourceConfigProperty.API_PATH, "/v4_6_release/apis/3.0",
+                TicketSourceConfigPropertyCW.URL_PATTERN_TO_GET_TICKET, "/service/tickets",
+                TicketSourceConfigPropertyCW.URL_PATTERN_TO_GET_COMMENTS, "/notes",
+                TicketSourceConfigPropertyCW.COMPANY_REC_ID, "250"
+        ));
+        TalConfigService talConfigService = mock();
+        when(talConfigService.retrieveTicketSystemConfig(CUSTOMER_ID)).thenReturn(config);
+
+        ConnectWiseClient restCWClient = new ConnectWiseClient(config);
+        client = mock();
+        ReflectionTestUtils.setField(restCWClient, "client", client);
+        talAdapter = new ConnectWiseTalAdapter(talConfigService, mock(TalProxy.class), new TicketServiceImpl(restCWClient));
+    }
+
+    @Test
+    void syncTalTicket_withConcurrentUpdatesOfNewTicket_shouldCreateTicketAndNotesOnce() throws Exception {
+        AtomicInteger ticketPosts = new AtomicInteger();
+        List<Integer> postedNoteIds = new ArrayList<>();
+        doAnswer(invocation -> {
+            HttpRequest request = invocation.getArgument(0);
+            String path = request.uri().getPath();
+            if (request.method().equals("POST") && path.equals(TICKETS_PATH)) {
+                ticketPosts.incrementAndGet();
+                // Leave time for the other sync to reach the ticket
+                Thread.sleep(200);
+                return response(201, "{\"id\": 5}");
+            }
+            if (request.method().equals("POST") && path.endsWith("/notes")) {
+                synchronized (postedNoteIds) {
+                    int noteId = 50 + postedNoteIds.size();
+                    postedNoteIds.add(noteId);
+                    return response(201, "{\"id\": " + noteId + ", \"dateCreated\": \"2026-10-19T10:00:00Z\"}");
+                }
+            }
+            if (request.method().equals("GET") && path.endsWith("/notes")) {
+                synchronized (postedNoteIds) {
+                    StringBuilder notes = new StringBuilder("[");
+                    for (int noteId : postedNoteIds) {
+                        notes.append(notes.length() > 1 ? "," : "").append("{\"id\": ").append(noteId)
+                                .append(", \"detailDescriptionFlag\": ").append(noteId == 50).append("}");
+                    }
+                    return response(200, notes.append("]").toString());
+                }
+            }
+            return response(200, "{\"id\": 5, \"summary\": \"Printer down\"}");
+        }).when(client).send(any(HttpRequest.class), any());
+
+        // Symphony sends a second update of the ticket before it stored the IDs of the first sync
+        CyclicBarrier bothUpdatesSent = new CyclicBarrier(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<TalTicket>> syncs = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                TalTicket talTicket = newTalTicket();
+                syncs.add(executor.submit(() -> {
+                    bothUpdatesSent.await(10, TimeUnit.SECONDS);
+                    return talAdapter.syncTalTicket(talTicket);
+                }));
+            }
+            for (Future<TalTicket> sync : syncs)
+                Assertions.assertEquals("5", sync.get(30, TimeUnit.SECONDS).getThirdPartyId());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assertions.assertEquals(1, ticketPosts.get());
+        // The description, the comment and the initial priority note of the first sync only
+        Assertions.assertEquals(3, postedNoteIds.size());
+    }
+
+    private static TalTicket newTalTicket() {
+        TalTicket talTicket = new TalTicket();
+        talTicket.setSymphonyId("symphonyId");
+        talTicket.setCustomerId(CUSTOMER_ID.toString());
+        talTicket.setSubject("Printer down");
+        talTicket.setDescription("Printer does not print");
+        talTicket.setComments(Set.of(new Comment("symphonyCommentId", null, "lucap", "Rebooted", 1L)));
+        talTicket.setExtraParams(new HashMap<>());
+        return talTicket;
+    }
+
+    private static HttpResponse<String> response(int status, String body) {
+        HttpResponse<String> response = mock();
+        when(response.statusCode()).thenReturn(status);
+        when(response.body()).thenReturn(body);
+        return response;
+    }
+}
@@ -0,0 +1,72 @@
+package com.insightsystems.symphony.tal;
+
+import java.util.HashSet;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tester class for ConnectWiseTicket.
+ *
+ * @since 5.8
+ */
+public class ConnectWiseTicketTest {
+
+    @Test
+    void constructor_withBoundTicket_shouldOnlyDecodeFieldsWhenAccessed() {
+        ConnectWiseDto.Ticket ticket = ConnectWiseResponseCodec.read(ConnectWiseResponseCodec.TICKET,
+                "{\"id\": 7, \"summary\": \"Printer down\", " +
+                "\"status\": {\"name\": \"New\"}, \"_info\": {\"lastUpdated\": \"2024-01-01T10:00:00Z\"}}", "url");
+        ConnectWiseTicket CWTicket = new ConnectWiseTicket(ticket, StringPool.NONE);
+
+        // Changes to the bound ticket before a field is accessed are visible, since nothing was decoded yet
+        ticket.setSummary("Printer on fire");
+        long missingPriorities = ConnectWiseSchema.TICKET_PRIORITY.getMissingCount();
+        Assertions.assertEquals("7", CWTicket.getId());
+        Assertions.assertEquals("Printer on fire", CWTicket.getSummary());
+        Assertions.assertEquals(missingPriorities, ConnectWiseSchema.TICKET_PRIORITY.getMissingCount());
+        Assertions.assertNull(CWTicket.getPriority());
+        Assertions.assertEquals(missingPriorities + 1, ConnectWiseSchema.TICKET_PRIORITY.getMissingCount());
+
+        // A field set before it is accessed keeps the value set
+        CWTicket.setStatus("Closed");
+        Assertions.assertEquals("Closed", CWTicket.getStatus());
+        Assertions.assertEquals("2024-01-01T10:00:00Z", CWTicket.getLastUpdated());
+    }
+
+    @Test
+    void setNotes_shouldPickOldestDescriptionNoteWhenAccessed() {
+        ConnectWiseTicket CWTicket = new ConnectWiseTicket(new JSONObject("{\"id\": 7}"));
+        CWTicket.setNotes(new JSONArray()
+                .put(note(2, "2024-01-02T10:00:00Z", "Newer description", true))
+                .put(note(1, "2024-01-01T10:00:00Z", "Oldest description", true))
+                .put(note(3, "2023-12-31T10:00:00Z", "Comment", false)), StringPool.NONE);
+
+        Assertions.assertEquals("Oldest description", CWTicket.getDescription().getText());
+        Assertions.assertEquals(3, CWTicket.getComments().size());
+        Assertions.assertTrue(CWTicket.getComments().contains(CWTicket.getDescription()));
+    }
+
+    @Test
+    void setComments_withSet_shouldDropNotesNotDecodedYet() {
+        ConnectWiseTicket CWTicket = new ConnectWiseTicket(new JSONObject("{\"id\": 7}"));
+        CWTicket.setComments(new JSONArray().put(note(1, "not a date", "Never decoded", false)), StringPool.NONE);
+
+        CWTicket.setComments(new HashSet<>());
+
+        Assertions.assertTrue(CWTicket.getComments().isEmpty());
+    }
+
+    private static JSONObject note(int id, String dateCreated, String text, boolean description) {
+        return new JSONObject()
+                .put("id", id)
+                .put("dateCreated", dateCreated)
+                .put("createdBy", "jdoe")
+                .put("text", text)
+                .put("detailDescriptionFlag", description)
+                .put("internalAnalysisFlag", false)
+                .put("resolutionFlag", false);
+    }
+}
@@ -0,0 +1,48 @@
+package com.insightsystems.symphony.tal;
+
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tester class for CreationJournal.
+ *
+ * @since 5.8
+ */
+public class CreationJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void get_whenJournalIsReopened_shouldResumeIncompleteCreations() throws Exception {
+        Path file = directory.resolve("creations.journal");
+        CreationJournal journal = new CreationJournal(file);
+        journal.ticketCreated("incomplete", "5", "https://cw.test/tickets/5");
+        journal.descriptionPosted("incomplete", "50");
+        journal.commentPosted("incomplete", "symphonyCommentId", "51");
+        journal.ticketCreated("complete", "6", "https://cw.test/tickets/6");
+        journal.completed("complete");
+        journal.close();
+
+        CreationJournal reopened = new CreationJournal(file);
+        Assertions.assertEquals(1, reopened.size());
+        Assertions.assertNull(reopened.get("complete"));
+        CreationJournal.Checkpoint checkpoint = reopened.get("incomplete");
+        Assertions.assertEquals("5", checkpoint.getTicketId());
+        Assertions.assertEquals("https://cw.test/tickets/5", checkpoint.getUrl());
+        Assertions.assertEquals("50", checkpoint.getDescriptionId());
+        Assertions.assertEquals("51", checkpoint.getCommentIds().get("symphonyCommentId"));
+        reopened.close();
+    }
+
+    @Test
+    void commentKey_withoutSymphonyId_shouldUseText() {
+        Assertions.assertEquals("symphonyCommentId",
+                CreationJournal.commentKey(new ConnectWiseComment("symphonyCommentId", null, null, "Text", 1L)));
+        Assertions.assertEquals("text:Initial ticket priority: High",
+                CreationJournal.commentKey(new ConnectWiseComment(null, null, null, "Initial ticket priority: High", null)));
+    }
+}
@@ -0,0 +1,44 @@
+package com.insightsystems.symphony.tal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * SpanExporter keeping every exported span in memory, for tests.
+ *
+ * @since 5.8
+ */
+public class InMemorySpanExporter implements SpanExporter {
+
+    private final List<SyncTrace.Span> spans = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void export(List<SyncTrace.Span> spans) {
+        this.spans.addAll(spans);
+    }
+
+    /**
+     * @return every exported span, in export order
+     */
+    public List<SyncTrace.Span> getFinishedSpans() {
+        return new ArrayList<>(spans);
+    }
+
+    /**
+     * @param name span name
+     * @return exported spans with that name
+     */
+    public List<SyncTrace.Span> getFinishedSpans(String name) {
+        List<SyncTrace.Span> named = new ArrayList<>();
+        for (SyncTrace.Span span : spans) {
+            if (span.getName().equals(name))
+                named.add(span);
+        }
+        return named;
+    }
+
+    public void reset() {
+        spans.clear();
+    }
+}
@@ -0,0 +1,71 @@
+package com.insightsystems.symphony.tal;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import com.avispl.symphony.api.tal.dto.TicketSystemConfig;
+import com.avispl.symphony.api.tal.error.TalAdapterSyncException;
+
+/**
+ * Tester class for RecoverableStatusPolicy.
+ *
+ * @since 5.8
+ */
+public class RecoverableStatusPolicyTest {
+
+    @Test
+    void isRecoverable_withDefaultPolicy_shouldOnlyAcceptDefaultStatuses() {
+        RecoverableStatusPolicy policy = RecoverableStatusPolicy.DEFAULT;
+
+        Assertions.assertEquals(List.of(408, 429, 502, 503), policy.toList());
+        Assertions.assertTrue(policy.isRecoverable(HttpStatus.TOO_MANY_REQUESTS));
+        Assertions.assertFalse(policy.isRecoverable(HttpStatus.NOT_FOUND));
+        Assertions.assertFalse(policy.isRecoverable((HttpStatus) null));
+        Assertions.assertFalse(policy.isRecoverable(new TalAdapterSyncException("no status")));
+        Assertions.assertTrue(policy.isRecoverable(
+                new TalAdapterSyncException("unavailable", HttpStatus.SERVICE_UNAVAILABLE)));
+    }
+
+    @Test
+    void parse_withRelativeEntries_shouldChangeDefaults() {
+        RecoverableStatusPolicy policy = RecoverableStatusPolicy.parse("+500, -429, +abc");
+
+        Assertions.assertEquals(List.of(408, 500, 502, 503), policy.toList());
+    }
+
+    @Test
+    void parse_withAbsoluteEntries_shouldReplaceDefaults() {
+        Assertions.assertEquals(List.of(500, 503), RecoverableStatusPolicy.parse("503,500").toList());
+    }
+
+    @Test
+    void parse_withStatusesOutOfRange_shouldIgnoreThem() {
+        Assertions.assertEquals(List.of(503), RecoverableStatusPolicy.parse("99,600,2147483647,503").toList());
+        Assertions.assertEquals(List.of(408, 429, 502, 503), RecoverableStatusPolicy.parse("+1000000,-5").toList());
+    }
+
+    @Test
+    void forConfig_withSameOverride_shouldShareOnePolicy() {
+        Assertions.assertSame(RecoverableStatusPolicy.DEFAULT, RecoverableStatusPolicy.forConfig(config(null)));
+
+        RecoverableStatusPolicy first = RecoverableStatusPolicy.forConfig(config("+500"));
+        RecoverableStatusPolicy second = RecoverableStatusPolicy.forConfig(config("+500"));
+
+        Assertions.assertSame(first, second);
+        Assertions.assertTrue(first.isRecoverable(500));
+    }
+
+    private static TicketSystemConfig config(String recoverableHttpStatuses) {
+        Map<String, String> properties = new HashMap<>();
+        if (recoverableHttpStatuses != null)
+            properties.put(TicketSourceConfigPropertyCW.RECOVERABLE_HTTP_STATUSES, recoverableHttpStatuses);
+        TicketSystemConfig config = new TicketSystemConfig();
+        config.setTicketSourceConfig(properties);
+        return config;
+    }
+}
@@ -0,0 +1,68 @@
+package com.insightsystems.symphony.tal;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.avispl.symphony.api.tal.dto.TicketSystemConfig;
+
+/**
+ * Tester class for StringPool.
+ *
+ * @since 5.8
+ */
+public class StringPoolTest {
+
+    @Test
+    void canonicalize_withEqualValues_shouldReturnSameInstance() {
+        StringPool pool = new StringPool(10);
+        String first = pool.canonicalize(new String("In Progress"));
+
+        Assertions.assertSame(first, pool.canonicalize(new String("In Progress")));
+        Assertions.assertNull(pool.canonicalize(null));
+        Assertions.assertEquals(1, pool.size());
+    }
+
+    @Test
+    void canonicalize_whenPoolIsFull_shouldReturnValueAsIs() {
+        StringPool pool = new StringPool(1);
+        pool.canonicalize("New");
+        String value = new String("Closed");
+
+        Assertions.assertSame(value, pool.canonicalize(value));
+        Assertions.assertEquals(1, pool.size());
+    }
+
+    @Test
+    void forConfig_shouldKeepOnePoolPerCompany() {
+        Assertions.assertSame(StringPool.forConfig(config("company1")), StringPool.forConfig(config("company1")));
+        Assertions.assertNotSame(StringPool.forConfig(config("company1")), StringPool.forConfig(config("company2")));
+        Assertions.assertSame(StringPool.NONE, StringPool.forConfig(null));
+    }
+
+    @Test
+    void connectWiseTicket_withPool_shouldShareDecodedValues() {
+        StringPool pool = new StringPool(10);
+        String json = "{\"id\": 1, \"status\": {\"name\": \"New\"}, \"priority\": {\"name\": \"High\"}, " +
+                "\"owner\": {\"identifier\": \"jdoe\"}}";
+
+        ConnectWiseTicket first = new ConnectWiseTicket(new JSONObject(json), pool);
+        ConnectWiseTicket second = new ConnectWiseTicket(new JSONObject(json), pool);
+
+        Assertions.assertSame(first.getStatus(), second.getStatus());
+        Assertions.assertSame(first.getPriority(), second.getPriority());
+        Assertions.assertSame(first.getAssignee(), second.getAssignee());
+    }
+
+    private static TicketSystemConfig config(String companyId) {
+        Map<String, String> properties = new HashMap<>();
+        properties.put(TicketSourceConfigPropertyCW.URL, "https://cw.test");
+        properties.put(TicketSourceConfigPropertyCW.COMPANY_ID, companyId);
+        TicketSystemConfig config = new TicketSystemConfig();
+        config.setTicketSourceConfig(properties);
+        return config;
+    }
+}
@@ -0,0 +1,109 @@
+package com.insightsystems.symphony.tal;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.avispl.symphony.api.tal.error.TalAdapterSyncException;
+
+/**
+ * Tester class for SyncPlan.
+ *
+ * @since 5.8
+ */
+public class SyncPlanTest {
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void init() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void execute_withIndependentOperations_shouldRunThemConcurrently() throws Exception {
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        SyncPlan plan = new SyncPlan();
+        plan.add("PATCH", "https://cw.test/tickets/1", "summary", () -> await(barrier));
+        plan.add("PATCH", "https://cw.test/tickets/1/notes/10", "note text", () -> await(barrier));
+
+        // Each operation waits for the other one: it only completes if both run at the same time
+        plan.execute(executor);
+    }
+
+    @Test
+    void execute_withDependency_shouldRunDependentOperationAfterwards() throws Exception {
+        List<String> sent = new CopyOnWriteArrayList<>();
+        SyncPlan plan = new SyncPlan();
+        SyncPlan.Operation description = plan.add("POST", "https://cw.test/tickets/1/notes", "description", () -> {
+            sleep();
+            sent.add("description");
+        });
+        plan.add("POST", "https://cw.test/tickets/1/notes", "1 new note(s)", () -> sent.add("notes"), description);
+
+        plan.execute(executor);
+
+        Assertions.assertEquals(List.of("description", "notes"), sent);
+    }
+
+    @Test
+    void execute_whenOperationsFail_shouldThrowFirstPlannedFailure() {
+        TalAdapterSyncException first = new TalAdapterSyncException("Ticket PATCH failed");
+        SyncPlan plan = new SyncPlan();
+        plan.add("PATCH", "https://cw.test/tickets/1", "summary", () -> {
+            sleep();
+            throw first;
+        });
+        plan.add("POST", "https://cw.test/tickets/1/notes", "1 new note(s)", () -> {
+            throw new TalAdapterSyncException("Note POST failed");
+        });
+
+        TalAdapterSyncException e = Assertions.assertThrows(TalAdapterSyncException.class, () -> plan.execute(executor));
+        Assertions.assertSame(first, e);
+    }
+
+    @Test
+    void describe_shouldListPlannedRequestsWithoutSendingThem() {
+        SyncPlan plan = new SyncPlan();
+        SyncPlan.Operation description = plan.add("POST", "https://cw.test/tickets/1/notes", "description", () -> {
+            throw new AssertionError("Request sent by describe");
+        });
+        plan.add("POST", "https://cw.test/tickets/1/notes", "2 new note(s)", () -> {
+            throw new AssertionError("Request sent by describe");
+        }, description);
+
+        Assertions.assertEquals(List.of(
+                "POST https://cw.test/tickets/1/notes - description",
+                "POST https://cw.test/tickets/1/notes - 2 new note(s) (after [POST https://cw.test/tickets/1/notes])"),
+                plan.describe());
+    }
+
+    private static void await(CyclicBarrier barrier) throws TalAdapterSyncException {
+        try {
+            barrier.await(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new TalAdapterSyncException("Operations did not run concurrently", e);
+        }
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
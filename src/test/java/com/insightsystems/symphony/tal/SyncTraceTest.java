@@ -0,0 +1,132 @@
+package com.insightsystems.symphony.tal;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.avispl.symphony.api.tal.error.TalAdapterSyncException;
+
+/**
+ * Tester class for SyncTrace.
+ *
+ * @since 5.8
+ */
+public class SyncTraceTest {
+
+    private InMemorySpanExporter exporter;
+
+    @BeforeEach
+    void setUp() {
+        exporter = new InMemorySpanExporter();
+        SyncTrace.setExporter(exporter);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SyncTrace.setExporter(null);
+    }
+
+    @Test
+    void close_shouldExportNestedSpansWithRootLast() {
+        try (SyncTrace trace = SyncTrace.start("syncTalTicket")) {
+            trace.getRoot().setAttribute("symphony.ticket.id", "42");
+            try (SyncTrace.Span get = SyncTrace.startSpan("get")) {
+                get.setAttribute("ticket.prefetched", false);
+                try (SyncTrace.Span http = SyncTrace.startSpan("GET")) {
+                    http.setAttribute("http.status_code", 200);
+                }
+            }
+            try (SyncTrace.Span diff = SyncTrace.startSpan("diff")) {
+                Assertions.assertSame(diff, SyncTrace.currentSpan());
+            }
+        }
+
+        List<SyncTrace.Span> spans = exporter.getFinishedSpans();
+        Assertions.assertEquals(4, spans.size());
+        SyncTrace.Span root = spans.get(3);
+        SyncTrace.Span get = exporter.getFinishedSpans("get").get(0);
+        SyncTrace.Span http = exporter.getFinishedSpans("GET").get(0);
+
+        Assertions.assertEquals("syncTalTicket", root.getName());
+        Assertions.assertNull(root.getParentSpanId());
+        Assertions.assertEquals(32, root.getTraceId().length());
+        Assertions.assertEquals(16, root.getSpanId().length());
+        Assertions.assertEquals("42", root.getAttributes().get("symphony.ticket.id"));
+        Assertions.assertEquals(root.getSpanId(), get.getParentSpanId());
+        Assertions.assertEquals(get.getSpanId(), http.getParentSpanId());
+        Assertions.assertEquals(root.getSpanId(), exporter.getFinishedSpans("diff").get(0).getParentSpanId());
+        Assertions.assertEquals("200", http.getAttributes().get("http.status_code"));
+        Assertions.assertEquals("false", get.getAttributes().get("ticket.prefetched"));
+        Assertions.assertTrue(http.getStartEpochNanos() >= root.getStartEpochNanos());
+        Assertions.assertTrue(http.getEndEpochNanos() <= root.getEndEpochNanos());
+        for (SyncTrace.Span span : spans)
+            Assertions.assertEquals(root.getTraceId(), span.getTraceId());
+
+        // The trace is no longer current once closed
+        Assertions.assertNull(SyncTrace.currentSpan().getTraceId());
+    }
+
+    @Test
+    void startSpan_withoutTrace_shouldBeNoOp() {
+        try (SyncTrace.Span span = SyncTrace.startSpan("GET")) {
+            span.setAttribute("http.status_code", 200).setError(new IllegalStateException());
+            Assertions.assertNull(span.getTraceId());
+        }
+        Assertions.assertTrue(exporter.getFinishedSpans().isEmpty());
+    }
+
+    @Test
+    void execute_withExecutor_shouldKeepOperationsInTheTraceOfTheSync() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try (SyncTrace trace = SyncTrace.start("syncTalTicket")) {
+            SyncPlan plan = new SyncPlan();
+            ConnectWiseMetrics metrics = new ConnectWiseMetrics();
+            plan.add("PATCH", "https://cw/tickets/1", "1 field(s)",
+                    metrics.timed(null, ConnectWiseMetrics.Phase.PATCH, () -> { }));
+            Assertions.assertSame(trace.getRoot(), SyncTrace.currentSpan());
+            plan.add("POST", "https://cw/tickets/1/notes", "2 new note(s)",
+                    metrics.timed(null, ConnectWiseMetrics.Phase.COMMENTS, () -> { }));
+            plan.execute(executor);
+        } finally {
+            executor.shutdown();
+        }
+
+        SyncTrace.Span root = exporter.getFinishedSpans("syncTalTicket").get(0);
+        Assertions.assertEquals(root.getSpanId(), exporter.getFinishedSpans("patch").get(0).getParentSpanId());
+        Assertions.assertEquals(root.getSpanId(), exporter.getFinishedSpans("comments").get(0).getParentSpanId());
+    }
+
+    @Test
+    void timed_whenRequestFails_shouldMarkItsSpanAsFailed() {
+        ConnectWiseMetrics metrics = new ConnectWiseMetrics();
+        try (SyncTrace trace = SyncTrace.start("syncTalTicket")) {
+            trace.getRoot().setAttribute("symphony.ticket.id", "42");
+            SyncPlan.Action patch = metrics.timed(null, ConnectWiseMetrics.Phase.PATCH, () -> {
+                throw new TalAdapterSyncException("PATCH failed");
+            });
+            Assertions.assertThrows(TalAdapterSyncException.class, patch::run);
+        }
+
+        Assertions.assertEquals("TalAdapterSyncException: PATCH failed",
+                exporter.getFinishedSpans("patch").get(0).getError());
+    }
+
+    @Test
+    void close_whenExporterFails_shouldNotThrow() {
+        SyncTrace.setExporter(spans -> {
+            throw new IllegalStateException("collector down");
+        });
+
+        Assertions.assertDoesNotThrow(() -> {
+            try (SyncTrace trace = SyncTrace.start("syncTalTicket")) {
+                trace.getRoot().setAttribute("symphony.ticket.id", "42");
+                SyncTrace.startSpan("get").close();
+            }
+        });
+    }
+}
@@ -0,0 +1,99 @@
+package com.insightsystems.symphony.tal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Concurrency stress tests for TicketLocks.
+ *
+ * @since 5.8
+ */
+public class TicketLocksTest {
+
+    private static final int THREADS = 16;
+
+    @Test
+    void lock_withSameTicket_shouldSerializeSyncs() throws Exception {
+        TicketLocks ticketLocks = new TicketLocks();
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger maxInside = new AtomicInteger();
+        int[] unsafeCounter = new int[1];
+        int iterations = 2000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < iterations; i++) {
+                        ticketLocks.lock("symphonyId");
+                        try {
+                            maxInside.accumulateAndGet(inside.incrementAndGet(), Math::max);
+                            // Not atomic: only correct if no other thread is inside
+                            unsafeCounter[0] = unsafeCounter[0] + 1;
+                            inside.decrementAndGet();
+                        } finally {
+                            ticketLocks.unlock("symphonyId");
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures)
+                future.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assertions.assertEquals(1, maxInside.get());
+        Assertions.assertEquals(THREADS * iterations, unsafeCounter[0]);
+        Assertions.assertEquals(0, ticketLocks.size());
+    }
+
+    @Test
+    void lock_withDifferentTickets_shouldSyncInParallel() throws Exception {
+        TicketLocks ticketLocks = new TicketLocks();
+        // Every thread waits while holding its ticket's lock, so the barrier only trips if no lock blocks another
+        CyclicBarrier everyTicketLocked = new CyclicBarrier(THREADS);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                String symphonyId = "symphonyId" + t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 100; i++) {
+                        ticketLocks.lock(symphonyId);
+                        try {
+                            everyTicketLocked.await(10, TimeUnit.SECONDS);
+                        } finally {
+                            ticketLocks.unlock(symphonyId);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures)
+                future.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assertions.assertEquals(0, ticketLocks.size());
+    }
+
+    @Test
+    void unlock_withoutLock_shouldThrowIllegalMonitorStateException() {
+        TicketLocks ticketLocks = new TicketLocks();
+
+        Assertions.assertThrows(IllegalMonitorStateException.class, () -> ticketLocks.unlock("symphonyId"));
+    }
+}
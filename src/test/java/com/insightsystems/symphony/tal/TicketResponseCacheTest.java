@@ -0,0 +1,37 @@
+package com.insightsystems.symphony.tal;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tester class for TicketResponseCache.
+ *
+ * @since 5.8
+ */
+public class TicketResponseCacheTest {
+
+    @Test
+    void get_withExpiredLastResponse_shouldDropTheTicket() {
+        TicketResponseCache cache = new TicketResponseCache();
+        cache.put("company|1", "https://cw.test/tickets/1", "{}", -1, cache.version());
+
+        Assertions.assertNull(cache.get("company|1", "https://cw.test/tickets/1"));
+        Assertions.assertEquals(0, cache.size());
+    }
+
+    @Test
+    void sweep_shouldDropExpiredResponsesOfTicketsNeverReadAgain() {
+        TicketResponseCache cache = new TicketResponseCache();
+        long now = System.currentTimeMillis();
+        cache.put("company|1", "https://cw.test/tickets/1", "{}", 1_000, cache.version());
+        cache.put("company|2", "https://cw.test/tickets/2", "{}", 1_000, cache.version());
+        cache.put("company|2", "https://cw.test/tickets/2/notes", "[]", 10 * TicketResponseCache.SWEEP_INTERVAL_MILLIS,
+                cache.version());
+
+        cache.sweep(now + 2_000);
+
+        Assertions.assertEquals(1, cache.size());
+        Assertions.assertNull(cache.get("company|2", "https://cw.test/tickets/2"));
+        Assertions.assertEquals("[]", cache.get("company|2", "https://cw.test/tickets/2/notes"));
+    }
+}
@@ -1,6 +1,8 @@
 package com.insightsystems.symphony.tal;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.reset;
@@ -8,16 +10,25 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
+import com.avispl.symphony.api.tal.dto.TicketSourceConfigProperty;
 import com.avispl.symphony.api.tal.dto.TicketSystemConfig;
 import com.avispl.symphony.api.tal.error.TalAdapterSyncException;
 
@@ -237,6 +248,247 @@ public class TicketServiceImplTest {
         );
     }
 
+    @Test
+    void updateTicket_whenPatchFailsWithNewComments_shouldNotPostThemUntilRetrySucceeds() throws Exception {
+        TicketSystemConfig clientConfig = mock();
+        when(clientConfig.getTicketSourceConfig()).thenReturn(Map.of(
+                TicketSourceConfigPropertyCW.CLIENT_ID, "mockClientId",
+                TicketSourceConfigPropertyCW.PUBLIC_KEY, "mockPublicKey",
+                TicketSourceConfigPropertyCW.PRIVATE_KEY, "mockPrivateKey",
+                TicketSourceConfigPropertyCW.COMPANY_ID, "mockCompanyId",
+                TicketSourceConfigProperty.URL, "https://cw.test",
+                TicketSourceConfigPropertyCW.URL_PATTERN_TO_GET_COMMENTS, "/notes"
+        ));
+        ConnectWiseClient CWClient = new ConnectWiseClient(clientConfig);
+        HttpClient client = mock();
+        ReflectionTestUtils.setField(CWClient, "client", client);
+        HttpResponse<String> badRequest = mock();
+        when(badRequest.statusCode()).thenReturn(400);
+        when(badRequest.body()).thenReturn("");
+        HttpResponse<String> patched = mock();
+        when(patched.statusCode()).thenReturn(200);
+        when(patched.body()).thenReturn("{}");
+        HttpResponse<String> noteCreated = mock();
+        when(noteCreated.statusCode()).thenReturn(201);
+        when(noteCreated.body()).thenReturn("{\"id\": 50, \"dateCreated\": \"2026-10-19T10:00:00Z\"}");
+        AtomicBoolean patchFails = new AtomicBoolean(true);
+        AtomicInteger notePosts = new AtomicInteger();
+        doAnswer(invocation -> {
+            if (invocation.<HttpRequest>getArgument(0).method().equals("PATCH"))
+                return patchFails.get() ? badRequest : patched;
+            notePosts.incrementAndGet();
+            return noteCreated;
+        }).when(client).send(any(HttpRequest.class), any());
+        TicketServiceImpl service = new TicketServiceImpl(CWClient);
+
+        try {
+            Assertions.assertThrows(TalAdapterSyncException.class,
+                    () -> service.updateTicket(clientConfig, newSymphonyTicket(), newConnectWiseTicket()));
+            // The failed sync reports no note ID to Symphony, so a note posted now would be posted again by the retry
+            Assertions.assertEquals(0, notePosts.get());
+
+            patchFails.set(false);
+            ConnectWiseTicket retriedTicket = newSymphonyTicket();
+            service.updateTicket(clientConfig, retriedTicket, newConnectWiseTicket());
+            Assertions.assertEquals(1, notePosts.get());
+            Assertions.assertEquals("50", retriedTicket.getComments().stream()
+                    .filter(c -> c.hasText("New comment")).findFirst().orElseThrow().getThirdPartyId());
+        } finally {
+            CWClient.shutdown();
+        }
+    }
+
+    @Test
+    void updateTicket_withNoChanges_shouldNotMakePatchCall() throws TalAdapterSyncException {
+        Map<String, String> extraParams = new HashMap<>(Map.of(
+                "connectionFailed", "false",
+                "synced", "true"
+        ));
+        ConnectWiseTicket symphonyTicket = new ConnectWiseTicket("symphonyId","symphonyLink",
+                "ConnectWiseId","url",extraParams);
+        symphonyTicket.setSummary("Same summary");
+        symphonyTicket.setStatus("Open");
+        symphonyTicket.setAssignedTo("lucap");
+
+        ConnectWiseTicket CWTicket = new ConnectWiseTicket("symphonyId","symphonyLink",
+                "ConnectWiseId","url",extraParams);
+        CWTicket.setSummary("Same summary");
+        CWTicket.setStatus("Open");
+        CWTicket.setAssignedTo("lucap");
+
+        Assertions.assertTrue(ticketService.diffTicket(config, symphonyTicket, CWTicket).isEmpty());
+        Assertions.assertDoesNotThrow(() -> ticketService.updateTicket(config, symphonyTicket, CWTicket));
+        verify(restCWClient, times(0)).patch(any(TicketSystemConfig.class), eq("url"), any(String.class));
+    }
+
+    @Test
+    void updateTicket_withSpecialCharacters_shouldSendEscapedPatchBody() throws TalAdapterSyncException {
+        Map<String, String> extraParams = new HashMap<>(Map.of(
+                "connectionFailed", "false",
+                "synced", "true"
+        ));
+        ConnectWiseTicket symphonyTicket = new ConnectWiseTicket("symphonyId","symphonyLink",
+                "ConnectWiseId","url",extraParams);
+        symphonyTicket.setSummary("Projector \"Room 1\"\nis down");
+        symphonyTicket.setStatus("Closed");
+
+        ConnectWiseTicket CWTicket = new ConnectWiseTicket("symphonyId","symphonyLink",
+                "ConnectWiseId","url",extraParams);
+        CWTicket.setSummary("CW summary");
+
+        Assertions.assertDoesNotThrow(() -> ticketService.updateTicket(config, symphonyTicket, CWTicket));
+
+        ArgumentCaptor<String> body = ArgumentCaptor.forClass(String.class);
+        verify(restCWClient, times(1)).patch(any(TicketSystemConfig.class), eq("url"), body.capture());
+        Assertions.assertEquals("[{\"op\":\"replace\",\"path\":\"summary\",\"value\":\"Projector \\\"Room 1\\\"\\nis down\"}," +
+                "{\"op\":\"add\",\"path\":\"status/name\",\"value\":\"Closed\"}]", body.getValue());
+    }
+
+    @Test
+    void planUpdate_withChanges_shouldPlanRequestsWithoutSendingThem() throws TalAdapterSyncException {
+        Map<String, String> extraParams = new HashMap<>(Map.of(
+                "connectionFailed", "false",
+                "synced", "true"
+        ));
+        ConnectWiseTicket symphonyTicket = new ConnectWiseTicket("symphonyId","symphonyLink",
+                "ConnectWiseId","url",extraParams);
+        symphonyTicket.setSummary("Symphony summary");
+
+        ConnectWiseTicket CWTicket = new ConnectWiseTicket("symphonyId","symphonyLink",
+                "ConnectWiseId","url",extraParams);
+        CWTicket.setSummary("CW summary");
+
+        SyncPlan plan = ticketService.planUpdate(config, symphonyTicket, CWTicket);
+
+        Assertions.assertEquals(List.of(
+                "PATCH url - 1 field(s)",
+                "POST urlmockUrlPatternToGetComments - description (after [PATCH url])"), plan.describe());
+        verify(restCWClient, times(0)).patch(any(TicketSystemConfig.class), any(String.class), any(String.class));
+        verify(restCWClient, times(0)).postDescription(any(TicketSystemConfig.class), any(ConnectWiseTicket.class));
+    }
+
+    @Test
+    void planUpdate_onCopies_shouldLeaveTicketsUnchanged() {
+        ConnectWiseTicket symphonyTicket = new ConnectWiseTicket("symphonyId","symphonyLink",
+                "ConnectWiseId","url",new HashMap<>());
+        symphonyTicket.setSummary("Symphony summary");
+        symphonyTicket.addComment(new ConnectWiseComment("a", "10", "lucap", "Edited in Symphony", 1000L));
+
+        ConnectWiseTicket CWTicket = new ConnectWiseTicket("symphonyId","symphonyLink",
+                "ConnectWiseId","url",new HashMap<>());
+        CWTicket.setSummary("CW summary");
+        CWTicket.setStatus("New");
+        ConnectWiseComment description = new ConnectWiseComment(null, "9", "lucap", "Description", 0L);
+        CWTicket.setDescription(description);
+        CWTicket.addComment(description);
+        CWTicket.addComment(new ConnectWiseComment(null, "10", "lucap", "Original", 0L));
+
+        SyncPlan plan = ticketService.planUpdate(config, symphonyTicket.copy(), CWTicket.copy());
+
+        Assertions.assertEquals(List.of("PATCH url - 1 field(s)"), plan.describe());
+        Assertions.assertEquals("CW summary", CWTicket.getSummary());
+        Assertions.assertNull(symphonyTicket.getStatus());
+        Assertions.assertNull(symphonyTicket.getDescription());
+        Assertions.assertSame(description, CWTicket.getDescription());
+        Assertions.assertTrue(CWTicket.getComments().stream().anyMatch(c -> c.hasText("Original")));
+    }
+
+    private static ConnectWiseTicket newSymphonyTicket() {
+        ConnectWiseTicket symphonyTicket = new ConnectWiseTicket("symphonyId", "symphonyLink", "1",
+                "https://cw.test/tickets/1", new HashMap<>());
+        symphonyTicket.setSummary("Symphony summary");
+        symphonyTicket.addComment(new ConnectWiseComment("symphonyCommentId", null, "lucap", "New comment", 1000L));
+        return symphonyTicket;
+    }
+
+    private static ConnectWiseTicket newConnectWiseTicket() {
+        ConnectWiseTicket CWTicket = new ConnectWiseTicket("symphonyId", "symphonyLink", "1",
+                "https://cw.test/tickets/1", new HashMap<>());
+        CWTicket.setSummary("CW summary");
+        ConnectWiseComment description = new ConnectWiseComment(null, "9", "lucap", "Description", 0L);
+        CWTicket.setDescription(description);
+        CWTicket.addComment(description);
+        return CWTicket;
+    }
+
+    @Test
+    void isUnchanged_afterCommitWhenConnectWiseIsUnchanged_shouldReturnTrue() throws TalAdapterSyncException {
+        ConnectWiseTicket CWTicket = makeSyncedTicket();
+        ConnectWiseTicket refreshedCWTicket = makeSyncedTicket();
+        refreshedCWTicket.setLastUpdated("2024-08-01T10:00:00Z");
+        ticketService.commitSyncState(config, CWTicket, refreshedCWTicket, false);
+
+        // Symphony sends the same ticket again
+        ConnectWiseTicket resentCWTicket = makeSyncedTicket();
+        resentCWTicket.setExtraParams(CWTicket.getExtraParams());
+        when(restCWClient.getLastUpdated(config, "url")).thenReturn("2024-08-01T10:00:00Z");
+
+        Assertions.assertTrue(ticketService.isUnchanged(config, resentCWTicket));
+        verify(restCWClient, times(0)).get(any(TicketSystemConfig.class), any(String.class));
+    }
+
+    @Test
+    void isUnchanged_afterCommitOfOwnWrites_shouldReturnTrue() throws TalAdapterSyncException {
+        ConnectWiseTicket CWTicket = makeSyncedTicket();
+        ConnectWiseTicket refreshedCWTicket = makeSyncedTicket();
+        refreshedCWTicket.setLastUpdated("2024-08-01T10:00:00Z");
+        // The sync's own PATCH moved ConnectWise's last update date
+        when(restCWClient.getLastUpdated(config, "url")).thenReturn("2024-08-01T10:00:05Z");
+        ticketService.commitSyncState(config, CWTicket, refreshedCWTicket, true);
+
+        Assertions.assertEquals("2024-08-01T10:00:05Z", CWTicket.getExtraParams().get("cwLastUpdated"));
+        Assertions.assertTrue(ticketService.isUnchanged(config, CWTicket));
+    }
+
+    @Test
+    void isUnchanged_whenConnectWiseHasChanged_shouldReturnFalse() throws TalAdapterSyncException {
+        ConnectWiseTicket CWTicket = makeSyncedTicket();
+        ConnectWiseTicket refreshedCWTicket = makeSyncedTicket();
+        refreshedCWTicket.setLastUpdated("2024-08-01T10:00:00Z");
+        ticketService.commitSyncState(config, CWTicket, refreshedCWTicket, false);
+        when(restCWClient.getLastUpdated(config, "url")).thenReturn("2024-08-02T09:30:00Z");
+
+        Assertions.assertFalse(ticketService.isUnchanged(config, CWTicket));
+    }
+
+    @Test
+    void isUnchanged_whenSymphonyTicketHasChanged_shouldReturnFalse() throws TalAdapterSyncException {
+        ConnectWiseTicket CWTicket = makeSyncedTicket();
+        ConnectWiseTicket refreshedCWTicket = makeSyncedTicket();
+        refreshedCWTicket.setLastUpdated("2024-08-01T10:00:00Z");
+        ticketService.commitSyncState(config, CWTicket, refreshedCWTicket, false);
+        CWTicket.addComment(new ConnectWiseComment("commentId", null, "lucap", "New comment", 0L));
+
+        Assertions.assertFalse(ticketService.isUnchanged(config, CWTicket));
+        verify(restCWClient, times(0)).getLastUpdated(any(TicketSystemConfig.class), any(String.class));
+    }
+
+    @Test
+    void isUnchanged_withPrefetchedTicket_shouldNotProbeConnectWise() throws TalAdapterSyncException {
+        ConnectWiseTicket CWTicket = makeSyncedTicket();
+        ConnectWiseTicket refreshedCWTicket = makeSyncedTicket();
+        refreshedCWTicket.setLastUpdated("2024-08-01T10:00:00Z");
+        ticketService.commitSyncState(config, CWTicket, refreshedCWTicket, false);
+
+        ConnectWiseTicket prefetchedCWTicket = makeSyncedTicket();
+        prefetchedCWTicket.setLastUpdated("2024-08-01T10:00:00Z");
+
+        Assertions.assertTrue(ticketService.isUnchanged(config, CWTicket, prefetchedCWTicket));
+        verify(restCWClient, times(0)).getLastUpdated(any(TicketSystemConfig.class), any(String.class));
+    }
+
+    private static ConnectWiseTicket makeSyncedTicket() {
+        Map<String, String> extraParams = new HashMap<>(Map.of(
+                "connectionFailed", "false",
+                "synced", "true"
+        ));
+        ConnectWiseTicket CWTicket = new ConnectWiseTicket("symphonyId","symphonyLink",
+                "ConnectWiseId","url",extraParams);
+        CWTicket.setSummary("Symphony summary");
+        CWTicket.setStatus("Open");
+        CWTicket.addComment(new ConnectWiseComment("symphonyCommentId", "1", "lucap", "Comment", 0L));
+        return CWTicket;
+    }
 
 
 }
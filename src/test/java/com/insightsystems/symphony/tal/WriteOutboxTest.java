@@ -0,0 +1,100 @@
+package com.insightsystems.symphony.tal;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.JSONArray;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tester class for WriteOutbox.
+ *
+ * @since 5.8
+ */
+public class WriteOutboxTest {
+
+    private static final String URL = "https://cw.test/tickets/1";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void add_whenOutboxIsReopened_shouldKeepPendingWrites() throws Exception {
+        Path journal = directory.resolve("outbox.journal");
+        WriteOutbox outbox = new WriteOutbox(journal);
+        outbox.add("customerId", "symphonyId", "PATCH", URL, replace("summary", "New summary"));
+        outbox.add("customerId", "symphonyId", "PATCH", URL + "/notes/10", replace("text", "New text"));
+        outbox.stop();
+
+        WriteOutbox reopened = new WriteOutbox(journal);
+        List<WriteOutbox.Entry> replayed = new ArrayList<>();
+        Assertions.assertEquals(2, reopened.drain(entry -> replayed.add(entry)));
+        Assertions.assertEquals(URL, replayed.get(0).getUrl());
+        Assertions.assertEquals("customerId", replayed.get(0).getCustomerId());
+        Assertions.assertEquals("symphonyId", replayed.get(0).getSymphonyId());
+        reopened.stop();
+
+        // Completed writes are not replayed after a restart
+        Assertions.assertEquals(0, new WriteOutbox(journal).size());
+    }
+
+    @Test
+    void add_withSameUrl_shouldKeepLatestValueOfEachPath() {
+        WriteOutbox outbox = new WriteOutbox();
+        outbox.add("customerId", "symphonyId", "PATCH", URL, replace("summary", "First summary"));
+        outbox.add("customerId", "symphonyId", "PATCH", URL, replace("priority/id", "3"));
+        outbox.add("customerId", "symphonyId", "PATCH", URL, replace("summary", "Second summary"));
+
+        Assertions.assertEquals(1, outbox.size());
+        List<WriteOutbox.Entry> replayed = new ArrayList<>();
+        outbox.drain(entry -> replayed.add(entry));
+        JSONArray operations = new JSONArray(replayed.get(0).getBody());
+        Assertions.assertEquals(2, operations.length());
+        Assertions.assertEquals("priority/id", operations.getJSONObject(0).getString("path"));
+        Assertions.assertEquals("Second summary", operations.getJSONObject(1).getString("value"));
+    }
+
+    @Test
+    void written_withNewerValue_shouldDropObsoleteOperations() {
+        WriteOutbox outbox = new WriteOutbox();
+        outbox.add("customerId", "symphonyId", "PATCH", URL, replace("summary", "Old summary"));
+
+        outbox.written(URL, replace("summary", "Newer summary"));
+
+        Assertions.assertEquals(0, outbox.size());
+    }
+
+    @Test
+    void written_withSomePaths_shouldKeepOtherOperations() {
+        WriteOutbox outbox = new WriteOutbox();
+        outbox.add("customerId", "symphonyId", "PATCH", URL, PatchOperation.toJson(List.of(
+                PatchOperation.replace("summary", "Old summary"), PatchOperation.replace("priority/id", "3"))));
+
+        outbox.written(URL, replace("summary", "Newer summary"));
+
+        List<WriteOutbox.Entry> replayed = new ArrayList<>();
+        outbox.drain(entry -> replayed.add(entry));
+        JSONArray operations = new JSONArray(replayed.get(0).getBody());
+        Assertions.assertEquals(1, operations.length());
+        Assertions.assertEquals("priority/id", operations.getJSONObject(0).getString("path"));
+    }
+
+    @Test
+    void drain_whenReplayFails_shouldRetryLater() {
+        WriteOutbox outbox = new WriteOutbox();
+        outbox.add("customerId", "symphonyId", "PATCH", URL, replace("summary", "New summary"));
+
+        Assertions.assertEquals(0, outbox.drain(entry -> false));
+        Assertions.assertEquals(0, outbox.drain(entry -> {
+            throw new AssertionError("Replayed before its backoff elapsed");
+        }));
+        Assertions.assertEquals(1, outbox.size());
+    }
+
+    private static String replace(String path, String value) {
+        return PatchOperation.toJson(List.of(PatchOperation.replace(path, value)));
+    }
+}